@@ -0,0 +1,86 @@
+package io.mewbase.benchmarks;
+
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+import io.mewbase.bson.BsonArray;
+import io.mewbase.bson.BsonObject;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.Properties;
+import java.util.stream.Stream;
+
+
+/**
+ * Common fixtures for the benchmarks so that each suite runs against the same shape of
+ * documents and an isolated, throw away, set of directories.
+ */
+public interface BenchmarkSupport {
+
+    /**
+     * Create a config whose file based event channels and binders live under the given directory.
+     */
+    static Config createConfig(final Path baseDir) {
+        final Properties properties = new Properties();
+        properties.setProperty("mewbase.binders.files.store.basedir", baseDir.resolve("binders").toString());
+        properties.setProperty("mewbase.binders.lmdb.store.basedir", baseDir.resolve("lmdb").toString());
+        properties.setProperty("mewbase.binders.lmdb.store.max.binders", "16");
+        properties.setProperty("mewbase.binders.lmdb.store.max.binder.size", String.valueOf(1L << 30));
+        properties.setProperty("mewbase.event.sink.file.basedir", baseDir.resolve("events").toString());
+        properties.setProperty("mewbase.event.source.file.basedir", baseDir.resolve("events").toString());
+        ConfigFactory.invalidateCaches();
+        return ConfigFactory.load(ConfigFactory.parseProperties(properties));
+    }
+
+    static Path createTempDir(final String prefix) throws IOException {
+        return Files.createTempDirectory("mewbase-" + prefix);
+    }
+
+    static void deleteDir(final Path dir) throws IOException {
+        if (!Files.exists(dir)) return;
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    /**
+     * Build a document with roughly the given number of fields, mixing the value types found in
+     * typical events, with a nested object and array every tenth field.
+     */
+    static BsonObject document(final int fields) {
+        final BsonObject doc = new BsonObject();
+        doc.put("customerId", "customer-" + fields);
+        doc.put("eventNum", (long) fields);
+        doc.put("timestamp", Instant.now());
+        for (int i = 3; i < fields; i++) {
+            final String key = "field" + i;
+            switch (i % 10) {
+                case 0:
+                    doc.put(key, new BsonObject().put("name", "nested" + i).put("quantity", i));
+                    break;
+                case 5:
+                    doc.put(key, new BsonArray().add(i).add("item" + i).add(i * 0.5D));
+                    break;
+                case 1:
+                case 4:
+                case 7:
+                    doc.put(key, "value of field " + i);
+                    break;
+                case 2:
+                case 8:
+                    doc.put(key, i * 1.25D);
+                    break;
+                case 3:
+                    doc.put(key, i % 2 == 0);
+                    break;
+                default:
+                    doc.put(key, (long) i * 1000);
+            }
+        }
+        return doc;
+    }
+
+}
@@ -0,0 +1,89 @@
+package io.mewbase.benchmarks;
+
+import com.typesafe.config.Config;
+import io.mewbase.binders.Binder;
+import io.mewbase.binders.BinderStore;
+import io.mewbase.binders.impl.filestore.FileBinderStore;
+import io.mewbase.bson.BsonObject;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Single document reads and writes, and filtered scans, against the embedded binder stores.
+ * LMDB is deprecated but still benchmarked so that it can be compared against its replacements.
+ */
+@SuppressWarnings("deprecation")
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BinderBenchmark {
+
+    private static final String BINDER_NAME = "benchmark";
+
+    @Param({"file", "lmdb"})
+    public String store;
+
+    @Param({"1000"})
+    public int documents;
+
+    private Path baseDir;
+    private BinderStore binderStore;
+    private Binder binder;
+    private BsonObject document;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        baseDir = BenchmarkSupport.createTempDir("binder");
+        final Config config = BenchmarkSupport.createConfig(baseDir);
+        binderStore = "lmdb".equals(store) ? new io.mewbase.binders.impl.lmdb.LmdbBinderStore(config) : new FileBinderStore(config);
+        binder = binderStore.open(BINDER_NAME);
+        document = BenchmarkSupport.document(16);
+        for (int i = 0; i < documents; i++) {
+            binder.put(id(i), document.copy().put("customerId", "customer-" + (i % 10))).join();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        binderStore.close();
+        BenchmarkSupport.deleteDir(baseDir);
+    }
+
+    @Benchmark
+    public BsonObject get() {
+        return binder.get(id(ThreadLocalRandom.current().nextInt(documents))).join();
+    }
+
+    @Benchmark
+    public Boolean put() {
+        return binder.put(id(ThreadLocalRandom.current().nextInt(documents)), document).join();
+    }
+
+    /**
+     * Scan for the tenth of the documents belonging to a single customer.
+     */
+    @Benchmark
+    public long getDocumentsFiltered() {
+        return binder.getDocuments(kv -> "customer-3".equals(kv.getValue().getString("customerId"))).count();
+    }
+
+    /**
+     * As for getDocumentsFiltered but scanning the binder in parallel.
+     */
+    @Benchmark
+    public long getDocumentsInParallelFiltered() {
+        return binder.getDocumentsInParallel(kv -> "customer-3".equals(kv.getValue().getString("customerId"))).count();
+    }
+
+    private static String id(int index) {
+        return "doc" + index;
+    }
+
+}
@@ -0,0 +1,55 @@
+package io.mewbase.benchmarks;
+
+import io.mewbase.bson.BsonCodec;
+import io.mewbase.bson.BsonObject;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Encode and decode documents of several sizes with the BsonCodec.
+ *
+ * The lazy case reads a single field, as a projection filter would, from the encoded bytes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BsonCodecBenchmark {
+
+    @Param({"4", "32", "256"})
+    public int fields;
+
+    private BsonObject document;
+    private byte[] encoded;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        document = BenchmarkSupport.document(fields);
+        encoded = BsonCodec.bsonObjectToBsonBytes(document);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return BsonCodec.bsonObjectToBsonBytes(document);
+    }
+
+    @Benchmark
+    public BsonObject decode() {
+        return BsonCodec.bsonBytesToBsonObject(encoded);
+    }
+
+    @Benchmark
+    public String decodeLazySingleField() {
+        return BsonCodec.bsonBytesToLazyBsonObject(encoded).getString("customerId");
+    }
+
+    @Benchmark
+    public BsonObject roundTrip() {
+        return BsonCodec.bsonBytesToBsonObject(BsonCodec.bsonObjectToBsonBytes(document));
+    }
+
+}
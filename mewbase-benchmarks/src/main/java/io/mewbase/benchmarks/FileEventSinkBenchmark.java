@@ -0,0 +1,65 @@
+package io.mewbase.benchmarks;
+
+import io.mewbase.bson.BsonObject;
+import io.mewbase.eventsource.EventSink;
+import io.mewbase.eventsource.impl.file.FileEventSink;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Throughput of publishing events to a file based event channel.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FileEventSinkBenchmark {
+
+    private static final String CHANNEL_NAME = "benchmark";
+    private static final int ASYNC_BATCH_SIZE = 64;
+
+    @Param({"4", "32"})
+    public int fields;
+
+    private Path baseDir;
+    private EventSink sink;
+    private BsonObject event;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        baseDir = BenchmarkSupport.createTempDir("sink");
+        sink = new FileEventSink(BenchmarkSupport.createConfig(baseDir));
+        event = BenchmarkSupport.document(fields);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        sink.close();
+        BenchmarkSupport.deleteDir(baseDir);
+    }
+
+    @Benchmark
+    public Long publishSync() {
+        return sink.publishSync(CHANNEL_NAME, event);
+    }
+
+    /**
+     * Publish a batch without waiting on each event, as a busy producer would, then wait for all of them.
+     */
+    @Benchmark
+    @OperationsPerInvocation(ASYNC_BATCH_SIZE)
+    public void publishAsync() {
+        final CompletableFuture<?>[] futures = new CompletableFuture<?>[ASYNC_BATCH_SIZE];
+        for (int i = 0; i < ASYNC_BATCH_SIZE; i++) {
+            futures[i] = sink.publishAsync(CHANNEL_NAME, event);
+        }
+        CompletableFuture.allOf(futures).join();
+    }
+
+}
@@ -0,0 +1,65 @@
+package io.mewbase.benchmarks;
+
+import com.typesafe.config.Config;
+import io.mewbase.bson.BsonObject;
+import io.mewbase.eventsource.Event;
+import io.mewbase.eventsource.EventSink;
+import io.mewbase.eventsource.EventSource;
+import io.mewbase.eventsource.Subscription;
+import io.mewbase.eventsource.impl.file.FileEventSink;
+import io.mewbase.eventsource.impl.file.FileEventSource;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Path;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * End to end latency from publishing an event to a file based channel until a subscriber
+ * to that channel has been handed the event.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FileEventSubscriptionBenchmark {
+
+    private static final String CHANNEL_NAME = "benchmark";
+
+    private Path baseDir;
+    private EventSink sink;
+    private EventSource source;
+    private Subscription subscription;
+    private BsonObject event;
+
+    private final BlockingQueue<Event> received = new LinkedBlockingQueue<>();
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        baseDir = BenchmarkSupport.createTempDir("subscription");
+        final Config config = BenchmarkSupport.createConfig(baseDir);
+        sink = new FileEventSink(config);
+        source = new FileEventSource(config);
+        subscription = source.subscribe(CHANNEL_NAME, received::add).get(10, TimeUnit.SECONDS);
+        event = BenchmarkSupport.document(8);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        subscription.close();
+        source.close();
+        sink.close();
+        BenchmarkSupport.deleteDir(baseDir);
+    }
+
+    @Benchmark
+    public Long publishToDelivery() throws InterruptedException {
+        sink.publishSync(CHANNEL_NAME, event);
+        return received.take().getEventNumber();
+    }
+
+}
@@ -1,8 +1,12 @@
 package io.mewbase.binders;
 
 import io.mewbase.bson.BsonObject;
+import io.mewbase.bson.BsonValue;
 import io.mewbase.eventsource.EventSink;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
 import java.util.function.Predicate;
@@ -50,6 +54,42 @@ public interface Binder {
      */
     CompletableFuture<Boolean> delete(String id);
 
+    /**
+     * Put all of the documents at their ids, in as few writes to the store as the binder is able to.
+     *
+     * The default is a put of each document.
+     *
+     * @param docs the documents to save by their ids
+     * @return a CompleteableFuture with a Boolean set to true once all of the documents are written
+     */
+    default CompletableFuture<Boolean> putAll(Map<String, BsonObject> docs) {
+        final CompletableFuture<?>[] puts = docs.entrySet().stream()
+                .map( entry -> put(entry.getKey(), entry.getValue()) )
+                .toArray(CompletableFuture[]::new);
+        return CompletableFuture.allOf(puts).thenApply( v -> true );
+    }
+
+    /**
+     * Get all of the documents with the given ids, in as few reads of the store as the binder is able to.
+     *
+     * The default is a get of each document.
+     *
+     * @param ids the names of the documents within the binder
+     * @return a CompleteableFuture of the documents that were found by their ids
+     */
+    default CompletableFuture<Map<String, BsonObject>> getAll(Collection<String> ids) {
+        final Map<String, CompletableFuture<BsonObject>> gets = new LinkedHashMap<>();
+        ids.forEach( id -> gets.computeIfAbsent(id, this::get) );
+        return CompletableFuture.allOf(gets.values().toArray(new CompletableFuture[0])).thenApply( v -> {
+            final Map<String, BsonObject> docs = new LinkedHashMap<>();
+            gets.forEach( (id, get) -> {
+                final BsonObject doc = get.join();
+                if (doc != null) docs.put(id, doc);
+            });
+            return docs;
+        });
+    }
+
     /**
      * Count up all the documents in this Binder as fast as you like.
      * @return the total number of documents in this binder.
@@ -72,6 +112,63 @@ public interface Binder {
      */
     Stream<KeyVal<String, BsonObject>> getDocuments( Predicate<KeyVal<String,BsonObject>> filter);
 
+    /**
+     * Get all of the documents in the Binder that match the filter, reading, decoding and filtering
+     * them concurrently where the binder is able to.
+     *
+     * The stream is a parallel stream in no particular order. Binders that cannot scan in parallel
+     * return the same documents as getDocuments.
+     *
+     * @return A stream of the matching ids and documents in the binder.
+     */
+    default Stream<KeyVal<String, BsonObject>> getDocumentsInParallel( Predicate<KeyVal<String,BsonObject>> filter) {
+        return getDocuments(filter);
+    }
+
+    /**
+     * Get all of the documents in the Binder that match the field filter.
+     *
+     * Binders that are able to apply the filter in the store do so rather than reading and
+     * filtering every document, others return the same documents as getDocuments.
+     *
+     * @return A stream of the matching ids and documents in the binder.
+     */
+    default Stream<KeyVal<String, BsonObject>> getDocumentsMatching(FieldFilter filter) {
+        return getDocuments(filter);
+    }
+
+    /**
+     * Create a secondary index on a top level field of the documents in this binder, which is then
+     * maintained as documents are put into and deleted from the binder.
+     *
+     * @param fieldName the name of the field to index
+     * @return a CompleteableFuture with a Boolean set to true once the index is ready or false if
+     * this binder does not support indexes.
+     */
+    default CompletableFuture<Boolean> createIndex(String fieldName) {
+        return CompletableFuture.completedFuture(false);
+    }
+
+    /**
+     * Check if there is a ready index on the given field.
+     */
+    default boolean isIndexed(String fieldName) {
+        return false;
+    }
+
+    /**
+     * Get the documents in the Binder in which the field has a value between from and to inclusive,
+     * so for an equality lookup from and to are the same value. A null bound leaves that end of the range open.
+     *
+     * If there is an index on the field the documents are found through it, otherwise all of the
+     * documents in the binder are scanned.
+     *
+     * @return A stream of the matching ids and documents in the binder.
+     */
+    default Stream<KeyVal<String, BsonObject>> getDocumentsInRange(String fieldName, BsonValue from, BsonValue to) {
+        return getDocuments(FieldValues.inRange(fieldName, from, to));
+    }
+
 
     /**
      * Set an EventSink and a channel making this binder stream documents that are put
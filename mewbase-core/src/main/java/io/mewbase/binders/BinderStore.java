@@ -19,6 +19,12 @@ public interface BinderStore extends AutoCloseable {
 
     String factoryConfigPath = "mewbase.binders.factory";
 
+    /**
+     * Binders whose names start with this prefix hold mewbase's own data, such as the snapshots of projections.
+     * They are opened without any cache or secondary indexes and are left out of the binders that are listed.
+     */
+    String internalBinderPrefix = "mewbase_internal_";
+
     /**
      * Create an instance using the current config.
      * @return an Instance of a BinderStore
@@ -34,10 +40,20 @@ public interface BinderStore extends AutoCloseable {
      */
      static BinderStore instance(Config cfg) {
          BinderStore impl = CanFactoryFrom.instance(cfg.getString(factoryConfigPath), cfg, () -> new FileBinderStore(cfg));
-         return new BinderStoreShim(impl);
+         return new BinderStoreShim(impl, cfg);
      }
 
 
+    /**
+     * Check if the binders in this store are only written to by this process, so that anything held in memory
+     * about their documents, such as their secondary indexes, stays up to date with them.
+     *
+     * @return true unless other processes may write to the store, as they may to a database server.
+     */
+    default boolean isSingleWriter() {
+        return true;
+    }
+
     /**
      * Open a new binder of the given name.
      *
@@ -0,0 +1,132 @@
+package io.mewbase.binders;
+
+import io.mewbase.bson.BsonObject;
+import io.mewbase.bson.BsonValue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+
+
+/**
+ * Immutable filter on the values of the top level fields of binder documents, for example
+ *
+ *   FieldFilter.eq("customerId", BsonValue.of("C1")).and(FieldFilter.gte("amount", BsonValue.of(100)))
+ *
+ * Unlike an arbitrary Predicate a FieldFilter can be translated into the query language of the store,
+ * so binders that are able to can apply it in the store rather than reading every document.
+ *
+ * A condition only matches values of the same type as its value, compared as for FieldValues.
+ */
+public final class FieldFilter implements Predicate<KeyVal<String, BsonObject>> {
+
+    public enum Operator { EQ, LT, LTE, GT, GTE }
+
+    /**
+     * A comparison of a single field with a value.
+     */
+    public static final class Condition {
+
+        private final String fieldName;
+        private final Operator operator;
+        private final BsonValue value;
+
+        private Condition(String fieldName, Operator operator, BsonValue value) {
+            this.fieldName = fieldName;
+            this.operator = operator;
+            this.value = value;
+        }
+
+        public String getFieldName() {
+            return fieldName;
+        }
+
+        public Operator getOperator() {
+            return operator;
+        }
+
+        public BsonValue getValue() {
+            return value;
+        }
+
+        boolean test(BsonObject doc) {
+            final Integer comparison = FieldValues.compare(doc.getBsonValue(fieldName), value);
+            if (comparison == null) return false;
+            switch (operator) {
+                case EQ: return comparison == 0;
+                case LT: return comparison < 0;
+                case LTE: return comparison <= 0;
+                case GT: return comparison > 0;
+                default: return comparison >= 0;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return fieldName + " " + operator + " " + value;
+        }
+    }
+
+    private final List<Condition> conditions;
+
+
+    private FieldFilter(List<Condition> conditions) {
+        this.conditions = Collections.unmodifiableList(conditions);
+    }
+
+    private static FieldFilter of(String fieldName, Operator operator, BsonValue value) {
+        if (fieldName == null || value == null) throw new IllegalArgumentException("Please specify a field name and value");
+        return new FieldFilter(Collections.singletonList(new Condition(fieldName, operator, value)));
+    }
+
+    public static FieldFilter eq(String fieldName, BsonValue value) {
+        return of(fieldName, Operator.EQ, value);
+    }
+
+    public static FieldFilter lt(String fieldName, BsonValue value) {
+        return of(fieldName, Operator.LT, value);
+    }
+
+    public static FieldFilter lte(String fieldName, BsonValue value) {
+        return of(fieldName, Operator.LTE, value);
+    }
+
+    public static FieldFilter gt(String fieldName, BsonValue value) {
+        return of(fieldName, Operator.GT, value);
+    }
+
+    public static FieldFilter gte(String fieldName, BsonValue value) {
+        return of(fieldName, Operator.GTE, value);
+    }
+
+    /**
+     * @return a filter that matches the documents that match both this filter and the other.
+     */
+    public FieldFilter and(FieldFilter other) {
+        final List<Condition> both = new ArrayList<>(conditions);
+        both.addAll(other.conditions);
+        return new FieldFilter(both);
+    }
+
+    /**
+     * @return the conditions, all of which a document must match.
+     */
+    public List<Condition> getConditions() {
+        return conditions;
+    }
+
+    @Override
+    public boolean test(KeyVal<String, BsonObject> kv) {
+        for (Condition condition : conditions) {
+            if (!condition.test(kv.getValue())) return false;
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "FieldFilter" + conditions;
+    }
+
+}
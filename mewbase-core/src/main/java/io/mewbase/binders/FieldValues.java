@@ -0,0 +1,84 @@
+package io.mewbase.binders;
+
+import io.mewbase.bson.BsonObject;
+import io.mewbase.bson.BsonValue;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Predicate;
+
+
+/**
+ * The ordering of the values of document fields that are indexed and filtered on.
+ *
+ * Strings, numbers, booleans and instants are compared by value, so 4, 4L and 4.0D are the same
+ * key. Keys of different types are ordered booleans, numbers, strings and then instants. Null, object
+ * and array values and numbers that are not finite have no key.
+ */
+public final class FieldValues {
+
+    // the types of key in the order that they sort
+    private static final List<Class<?>> KEY_TYPES = Arrays.asList(
+            Boolean.class, BigDecimal.class, String.class, Instant.class);
+
+    @SuppressWarnings("unchecked")
+    public static final Comparator<Comparable> KEY_ORDER = (a, b) -> {
+        final int byType = Integer.compare(KEY_TYPES.indexOf(a.getClass()), KEY_TYPES.indexOf(b.getClass()));
+        return byType != 0 ? byType : a.compareTo(b);
+    };
+
+    private FieldValues() {
+    }
+
+    /**
+     * @return the key that a value is ordered by or null if values of its type are not ordered.
+     */
+    public static Comparable key(BsonValue value) {
+        return value.visit(new BsonValue.Visitor<Comparable>() {
+            @Override public Comparable visit(BsonValue.NullBsonValue nullValue) { return null; }
+            @Override public Comparable visit(BsonValue.StringBsonValue value) { return value.getValue(); }
+            @Override public Comparable visit(BsonValue.BigDecimalBsonValue value) { return value.getValue(); }
+            @Override public Comparable visit(BsonValue.BooleanBsonValue value) { return value.getValue(); }
+            @Override public Comparable visit(BsonValue.BsonObjectBsonValue value) { return null; }
+            @Override public Comparable visit(BsonValue.BsonArrayBsonValue value) { return null; }
+            @Override public Comparable visit(BsonValue.InstantBsonValue value) { return value.getValue(); }
+            @Override public Comparable visit(BsonValue.DoubleBsonValue value) {
+                final double number = value.getValue();
+                return (Double.isNaN(number) || Double.isInfinite(number)) ? null : BigDecimal.valueOf(number);
+            }
+        });
+    }
+
+    /**
+     * Compare two values of the same type.
+     *
+     * @return the comparison or null if the values are of different types or are not ordered.
+     */
+    public static Integer compare(BsonValue value, BsonValue other) {
+        final Comparable key = key(value);
+        final Comparable otherKey = key(other);
+        if (key == null || otherKey == null || key.getClass() != otherKey.getClass()) return null;
+        return KEY_ORDER.compare(key, otherKey);
+    }
+
+    /**
+     * @return a filter for the documents in which the field is between from and to inclusive, where a
+     * null bound is open.
+     */
+    public static Predicate<KeyVal<String, BsonObject>> inRange(String fieldName, BsonValue from, BsonValue to) {
+        final Comparable fromKey = (from == null) ? null : key(from);
+        final Comparable toKey = (to == null) ? null : key(to);
+        // nothing is indexed under a bound such as a null value so nothing can match it
+        if ((from != null && fromKey == null) || (to != null && toKey == null)) return kv -> false;
+        return kv -> {
+            final Comparable key = key(kv.getValue().getBsonValue(fieldName));
+            return key != null &&
+                    (fromKey == null || KEY_ORDER.compare(key, fromKey) >= 0) &&
+                    (toKey == null || KEY_ORDER.compare(key, toKey) <= 0);
+        };
+    }
+
+}
@@ -1,15 +1,19 @@
 package io.mewbase.binders.impl;
 
 import io.mewbase.binders.Binder;
+import io.mewbase.binders.FieldFilter;
 import io.mewbase.binders.KeyVal;
 import io.mewbase.bson.BsonObject;
+import io.mewbase.bson.BsonValue;
 import io.mewbase.eventsource.EventSink;
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.Metrics;
 import io.micrometer.core.instrument.Tag;
 
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
@@ -83,6 +87,23 @@ public class BinderShim implements Binder {
             return b; } );
     }
 
+    @Override
+    public CompletableFuture<Boolean> putAll(Map<String, BsonObject> docs) {
+        CompletableFuture<Boolean> op = impl.putAll(docs);
+        putCounter.increment(docs.size());
+        // puts may change the total number of docs
+        return op.thenApplyAsync( b -> {
+            docsCount.set(countDocuments());
+            return b; } );
+    }
+
+    @Override
+    public CompletableFuture<Map<String, BsonObject>> getAll(Collection<String> ids) {
+        CompletableFuture<Map<String, BsonObject>> docs = impl.getAll(ids);
+        getCounter.increment(ids.size());
+        return docs;
+    }
+
     @Override
     public Long countDocuments() {
         return impl.countDocuments();
@@ -98,6 +119,31 @@ public class BinderShim implements Binder {
         return impl.getDocuments(filter);
     }
 
+    @Override
+    public Stream<KeyVal<String, BsonObject>> getDocumentsInParallel(Predicate<KeyVal<String, BsonObject>> filter) {
+        return impl.getDocumentsInParallel(filter);
+    }
+
+    @Override
+    public Stream<KeyVal<String, BsonObject>> getDocumentsMatching(FieldFilter filter) {
+        return impl.getDocumentsMatching(filter);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> createIndex(String fieldName) {
+        return impl.createIndex(fieldName);
+    }
+
+    @Override
+    public boolean isIndexed(String fieldName) {
+        return impl.isIndexed(fieldName);
+    }
+
+    @Override
+    public Stream<KeyVal<String, BsonObject>> getDocumentsInRange(String fieldName, BsonValue from, BsonValue to) {
+        return impl.getDocumentsInRange(fieldName, from, to);
+    }
+
     @Override
     public Boolean setStreaming(EventSink sink, String channel) {
         return impl.setStreaming (sink, channel);
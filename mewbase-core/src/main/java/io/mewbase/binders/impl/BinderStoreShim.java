@@ -1,11 +1,16 @@
 package io.mewbase.binders.impl;
 
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+import com.typesafe.config.ConfigUtil;
 import io.mewbase.binders.Binder;
 import io.mewbase.binders.BinderStore;
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.Metrics;
 
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Stream;
 
@@ -15,6 +20,12 @@ import java.util.stream.Stream;
  *
  * 1) Instrument the Calls to the underlying class
  * 2) Implement security on a call by call basis possibly wrt Counters and other instrumentation
+ *
+ * The shim also wraps each binder in an IndexedBinder, which holds the secondary indexes created on the binder,
+ * if the store is a single writer, and that in a CachingBinder if a cache is configured for it under
+ * mewbase.binders.cache
+ *
+ * Internal binders, named with BinderStore.internalBinderPrefix, are never wrapped or listed.
  */
 
 public class BinderStoreShim implements BinderStore {
@@ -27,14 +38,23 @@ public class BinderStoreShim implements BinderStore {
     private final AtomicLong binderCount = new AtomicLong(0);
 
     private final BinderStore impl;
+    private final Config cfg;
+
+    // the wrapped binders so that there is only one cache and one set of indexes for each binder
+    private final ConcurrentMap<String, Binder> wrappedBinders = new ConcurrentHashMap<>();
 
     public BinderStoreShim(BinderStore impl) {
+        this(impl, ConfigFactory.load());
+    }
+
+    public BinderStoreShim(BinderStore impl, Config cfg) {
         openCounter = Metrics.counter(METRICS_NAME + ".open");
         getCounter = Metrics.counter( METRICS_NAME + ".get");
         delCounter = Metrics.counter( METRICS_NAME + ".delete");
         // gauges need to wrapped and registered
         Metrics.gauge(METRICS_NAME + ".binders", binderCount);
         this.impl = impl;
+        this.cfg = cfg;
     }
 
     @Override
@@ -42,34 +62,57 @@ public class BinderStoreShim implements BinderStore {
         Binder b = impl.open(name);
         openCounter.increment();
         this.binders(); // force a count on the current binders
-        return b;
+        return isInternal(name) ? b : wrapped(b);
     }
 
     @Override
     public Optional<Binder> get(String name) {
         Optional<Binder> ob = impl.get(name);
         getCounter.increment();
-        return ob;
+        return isInternal(name) ? ob : ob.map(this::wrapped);
     }
 
     @Override
     public Stream<Binder> binders() {
-        binderCount.set(impl.binders().count());
-        return impl.binders();
+        binderCount.set(impl.binderNames().filter(name -> !isInternal(name)).count());
+        return impl.binders().filter(binder -> !isInternal(binder.getName())).map(this::wrapped);
     }
 
     @Override
     public Stream<String> binderNames() {
-        return impl.binderNames();
+        return impl.binderNames().filter(name -> !isInternal(name));
+    }
+
+    @Override
+    public boolean isSingleWriter() {
+        return impl.isSingleWriter();
     }
 
     @Override
     public Boolean delete(String name) {
         Boolean b = impl.delete(name);
+        wrappedBinders.remove(name);
         delCounter.increment();
         return b;
     }
 
+    private static boolean isInternal(String binderName) {
+        return binderName.startsWith(internalBinderPrefix);
+    }
+
+    private Binder wrapped(Binder binder) {
+        return wrappedBinders.computeIfAbsent(binder.getName(), name -> {
+            final Binder indexed = impl.isSingleWriter() ? new IndexedBinder(binder) : binder;
+            final long capacity = cacheSize(name);
+            return capacity > 0 ? new CachingBinder(indexed, capacity) : indexed;
+        });
+    }
+
+    private long cacheSize(String binderName) {
+        final String binderPath = "mewbase.binders.cache.binders." + ConfigUtil.quoteString(binderName) + ".size";
+        return cfg.hasPath(binderPath) ? cfg.getBytes(binderPath) : cfg.getBytes("mewbase.binders.cache.size");
+    }
+
     @Override
     public void close() throws Exception {
         impl.close();
@@ -0,0 +1,265 @@
+package io.mewbase.binders.impl;
+
+import io.mewbase.binders.Binder;
+import io.mewbase.binders.FieldFilter;
+import io.mewbase.binders.KeyVal;
+import io.mewbase.bson.BsonCodec;
+import io.mewbase.bson.BsonObject;
+import io.mewbase.bson.BsonValue;
+import io.mewbase.eventsource.EventSink;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tag;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+
+/**
+ * Decorates a Binder with a cache of its documents so that repeated reads of the same documents do not
+ * go to the underlying store or decode the document again.
+ *
+ * The documents are held encoded, in direct buffers outside of the Java heap, least recently used first,
+ * and are evicted once their total size exceeds the capacity of the cache. A document is dropped from the
+ * cache as soon as it is put or deleted, and cached again once the put has completed, so the cache only
+ * sees the writes made through this binder. A document read or written is only cached if there has been
+ * no later write to that same document in the meantime. Streams of documents always go to the underlying
+ * binder.
+ *
+ * Hits, misses and evictions are counted in the mewbase.binder.cache meters.
+ */
+public class CachingBinder implements Binder {
+
+    private static final String METRICS_NAME = "mewbase.binder.cache";
+
+    private final Binder impl;
+    private final long capacityBytes;
+
+    private final Counter hitCounter;
+    private final Counter missCounter;
+    private final Counter evictionCounter;
+
+    // access ordered so that the eldest entry is the least recently used
+    private final LinkedHashMap<String, ByteBuffer> documents = new LinkedHashMap<>(16, 0.75f, true);
+    private long sizeBytes = 0;
+
+    // the documents being read or written, each with the version of its latest write, so that a read that
+    // overlaps a write to the same document does not cache a stale document
+    private final Map<String, InFlight> inFlight = new HashMap<>();
+    // numbers the versions of the documents, bumped by every put and delete
+    private long writes = 0;
+
+
+    public CachingBinder(Binder impl, long capacityBytes) {
+        this.impl = impl;
+        this.capacityBytes = capacityBytes;
+
+        List<Tag> tag = Arrays.asList(Tag.of("name", impl.getName()));
+        hitCounter = Metrics.counter( METRICS_NAME + ".hit", tag);
+        missCounter = Metrics.counter( METRICS_NAME + ".miss", tag);
+        evictionCounter = Metrics.counter( METRICS_NAME + ".eviction", tag);
+        Metrics.gauge(METRICS_NAME + ".bytes", tag, this, CachingBinder::cachedBytes);
+    }
+
+    @Override
+    public String getName() {
+        return impl.getName();
+    }
+
+    @Override
+    public CompletableFuture<BsonObject> get(String id) {
+        final ByteBuffer cached;
+        final long version;
+        synchronized (this) {
+            cached = documents.get(id);
+            version = (cached == null) ? begin(id, false) : 0;
+        }
+        if (cached != null) {
+            hitCounter.increment();
+            return CompletableFuture.completedFuture(BsonCodec.bsonBytesToLazyBsonObject(cached.duplicate()));
+        }
+        missCounter.increment();
+        return impl.get(id).whenComplete( (doc, exp) -> end(id, doc == null ? null : encode(doc), version) );
+    }
+
+    @Override
+    public CompletableFuture<Boolean> put(String id, BsonObject doc) {
+        final long version = begin(id, true);
+        // encode now as the caller may change the document once the put has been made
+        final ByteBuffer encoded = encode(doc);
+        return impl.put(id, doc).whenComplete( (b, exp) -> end(id, exp == null ? encoded : null, version) );
+    }
+
+    @Override
+    public CompletableFuture<Boolean> delete(String id) {
+        final long version = begin(id, true);
+        return impl.delete(id).whenComplete( (b, exp) -> end(id, null, version) );
+    }
+
+    @Override
+    public CompletableFuture<Boolean> putAll(Map<String, BsonObject> docs) {
+        final Map<String, Long> versions = new HashMap<>();
+        synchronized (this) {
+            docs.keySet().forEach( id -> versions.put(id, begin(id, true)) );
+        }
+        final Map<String, ByteBuffer> encoded = new LinkedHashMap<>();
+        docs.forEach( (id, doc) -> encoded.put(id, encode(doc)) );
+        return impl.putAll(docs).whenComplete( (b, exp) ->
+            encoded.forEach( (id, bytes) -> end(id, exp == null ? bytes : null, versions.get(id)) )
+        );
+    }
+
+    @Override
+    public CompletableFuture<Map<String, BsonObject>> getAll(Collection<String> ids) {
+        final Map<String, ByteBuffer> cached = new LinkedHashMap<>();
+        final Map<String, Long> missing = new LinkedHashMap<>();
+        synchronized (this) {
+            for (String id : ids) {
+                final ByteBuffer doc = documents.get(id);
+                if (doc != null) cached.put(id, doc);
+                else if (!missing.containsKey(id)) missing.put(id, begin(id, false));
+            }
+        }
+        hitCounter.increment(cached.size());
+        missCounter.increment(missing.size());
+        final CompletableFuture<Map<String, BsonObject>> read = missing.isEmpty() ?
+                CompletableFuture.completedFuture(new LinkedHashMap<>()) : impl.getAll(missing.keySet());
+        return read.whenComplete( (found, exp) -> missing.forEach( (id, version) -> {
+            final BsonObject doc = (found == null) ? null : found.get(id);
+            end(id, doc == null ? null : encode(doc), version);
+        })).thenApply( found -> {
+            final Map<String, BsonObject> docs = new LinkedHashMap<>();
+            for (String id : ids) {
+                final ByteBuffer hit = cached.get(id);
+                final BsonObject doc = hit != null ? BsonCodec.bsonBytesToLazyBsonObject(hit.duplicate()) : found.get(id);
+                if (doc != null) docs.put(id, doc);
+            }
+            return docs;
+        });
+    }
+
+    @Override
+    public Long countDocuments() {
+        return impl.countDocuments();
+    }
+
+    @Override
+    public Stream<KeyVal<String, BsonObject>> getDocuments() {
+        return impl.getDocuments();
+    }
+
+    @Override
+    public Stream<KeyVal<String, BsonObject>> getDocuments(Predicate<KeyVal<String, BsonObject>> filter) {
+        return impl.getDocuments(filter);
+    }
+
+    @Override
+    public Stream<KeyVal<String, BsonObject>> getDocumentsInParallel(Predicate<KeyVal<String, BsonObject>> filter) {
+        return impl.getDocumentsInParallel(filter);
+    }
+
+    @Override
+    public Stream<KeyVal<String, BsonObject>> getDocumentsMatching(FieldFilter filter) {
+        return impl.getDocumentsMatching(filter);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> createIndex(String fieldName) {
+        return impl.createIndex(fieldName);
+    }
+
+    @Override
+    public boolean isIndexed(String fieldName) {
+        return impl.isIndexed(fieldName);
+    }
+
+    @Override
+    public Stream<KeyVal<String, BsonObject>> getDocumentsInRange(String fieldName, BsonValue from, BsonValue to) {
+        return impl.getDocumentsInRange(fieldName, from, to);
+    }
+
+    @Override
+    public Boolean setStreaming(EventSink sink, String channel) {
+        return impl.setStreaming(sink, channel);
+    }
+
+    @Override
+    public Boolean isStreaming() {
+        return impl.isStreaming();
+    }
+
+
+    synchronized long cachedBytes() {
+        return sizeBytes;
+    }
+
+    synchronized int cachedDocuments() {
+        return documents.size();
+    }
+
+
+    /**
+     * Start a read or write of the document, where a write drops the document from the cache.
+     * @return the version of the document that the read or write will see.
+     */
+    private synchronized long begin(String id, boolean write) {
+        final InFlight doc = inFlight.computeIfAbsent(id, key -> new InFlight());
+        doc.operations++;
+        if (write) {
+            remove(id);
+            doc.version = ++writes;
+        }
+        return doc.version;
+    }
+
+    /**
+     * Finish a read or write of the document and cache it, if there is a document to cache, unless there
+     * has been another write to it since the read or write started.
+     */
+    private synchronized void end(String id, ByteBuffer encoded, long version) {
+        final InFlight doc = inFlight.get(id);
+        if (encoded != null && doc.version == version) cache(id, encoded);
+        if (--doc.operations == 0) inFlight.remove(id);
+    }
+
+    private void cache(String id, ByteBuffer encoded) {
+        if (encoded.capacity() > capacityBytes) return;
+        remove(id);
+        documents.put(id, encoded);
+        sizeBytes += encoded.capacity();
+        final Iterator<Map.Entry<String, ByteBuffer>> eldest = documents.entrySet().iterator();
+        while (sizeBytes > capacityBytes && eldest.hasNext()) {
+            sizeBytes -= eldest.next().getValue().capacity();
+            eldest.remove();
+            evictionCounter.increment();
+        }
+    }
+
+    private void remove(String id) {
+        final ByteBuffer removed = documents.remove(id);
+        if (removed != null) sizeBytes -= removed.capacity();
+    }
+
+    private static final class InFlight {
+        long version = 0;
+        int operations = 0;
+    }
+
+    private static ByteBuffer encode(BsonObject doc) {
+        final byte[] bytes = BsonCodec.bsonObjectToBsonBytes(doc);
+        final ByteBuffer encoded = ByteBuffer.allocateDirect(bytes.length);
+        encoded.put(bytes);
+        ((java.nio.Buffer) encoded).flip();
+        return encoded.asReadOnlyBuffer();
+    }
+
+}
@@ -0,0 +1,110 @@
+package io.mewbase.binders.impl;
+
+import io.mewbase.binders.KeyVal;
+import io.mewbase.bson.BsonObject;
+import io.mewbase.util.SerialExecutor;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+
+/**
+ * Streams the documents of a binder lazily, a page at a time, so that only one page of documents is
+ * held in memory and the first documents are available as soon as the first page has been read.
+ *
+ * Each page is read by a task on the binder's own executor, so a page is never read part way through
+ * a write to the binder, and the next page is only read once the stream has consumed the last one.
+ * A stream consumed by one of the executor's own tasks, such as a callback on a write to the binder,
+ * reads its pages directly as nothing else can write to the binder meanwhile.
+ */
+public final class DocumentPages {
+
+    public static final int PAGE_SIZE = 256;
+
+    /**
+     * Reads the page of documents that follows the given key.
+     */
+    @FunctionalInterface
+    public interface PageReader {
+        /**
+         * @param lastKey the key of the last document in the previous page or null for the first page
+         * @return up to PAGE_SIZE documents, fewer only if there are no more
+         */
+        List<KeyVal<String, BsonObject>> read(String lastKey) throws Exception;
+    }
+
+    private DocumentPages() {
+    }
+
+
+    /**
+     * @param reader reads each page
+     * @param executor the executor to read the pages on
+     * @param onClose releases any resources held by the reader, once the last page has been read or when
+     *                the stream is closed, whichever is first
+     */
+    public static Stream<KeyVal<String, BsonObject>> stream(final PageReader reader,
+                                                             final Executor executor,
+                                                             final Runnable onClose) {
+        final AtomicBoolean closed = new AtomicBoolean(false);
+        final Runnable closeOnce = () -> { if (closed.compareAndSet(false, true)) onClose.run(); };
+        final Iterator<KeyVal<String, BsonObject>> documents = new Iterator<KeyVal<String, BsonObject>>() {
+            private List<KeyVal<String, BsonObject>> page = null;
+            private int next = 0;
+            private boolean last = false;
+
+            @Override
+            public boolean hasNext() {
+                if (page != null && next < page.size()) return true;
+                if (last) return false;
+                final String lastKey = (page == null || page.isEmpty()) ? null : page.get(page.size() - 1).getKey();
+                page = readPage(reader, executor, lastKey);
+                next = 0;
+                last = page.size() < PAGE_SIZE;
+                if (last) closeOnce.run();
+                return !page.isEmpty();
+            }
+
+            @Override
+            public KeyVal<String, BsonObject> next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                return page.get(next++);
+            }
+        };
+        final Spliterator<KeyVal<String, BsonObject>> spliterator =
+                Spliterators.spliteratorUnknownSize(documents, Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false).onClose(closeOnce);
+    }
+
+    private static List<KeyVal<String, BsonObject>> readPage(final PageReader reader,
+                                                             final Executor executor,
+                                                             final String lastKey) {
+        if (executor instanceof SerialExecutor && ((SerialExecutor) executor).isRunningTask()) {
+            // a task queued behind the current one would never run
+            try {
+                return reader.read(lastKey);
+            } catch (RuntimeException exp) {
+                throw exp;
+            } catch (Exception exp) {
+                throw new CompletionException(exp);
+            }
+        }
+        return CompletableFuture.supplyAsync( () -> {
+            try {
+                return reader.read(lastKey);
+            } catch (Exception exp) {
+                throw new CompletionException(exp);
+            }
+        }, executor).join();
+    }
+
+}
@@ -0,0 +1,260 @@
+package io.mewbase.binders.impl;
+
+import io.mewbase.binders.Binder;
+import io.mewbase.binders.FieldFilter;
+import io.mewbase.binders.KeyVal;
+import io.mewbase.bson.BsonObject;
+import io.mewbase.bson.BsonValue;
+import io.mewbase.eventsource.EventSink;
+import io.mewbase.util.ExecutionModel;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+import static io.mewbase.binders.FieldValues.KEY_ORDER;
+import static io.mewbase.binders.FieldValues.inRange;
+import static io.mewbase.binders.FieldValues.key;
+
+
+/**
+ * Decorates a Binder with secondary indexes on the top level fields of its documents so that documents
+ * can be found by the value of a field without scanning the whole binder.
+ *
+ * The indexes are held in memory. An index is built from the documents in the binder when it is created
+ * and is then kept up to date by the puts and deletes made through this binder, so the indexes need to be
+ * created again each time the binder is opened in a new process, and a binder is only indexed if its store
+ * is not written to by any other process, see BinderStore.isSingleWriter. The documents found through an index are
+ * read back from the binder and checked against the lookup, so an index never returns a document that does
+ * not match, even if it has been written elsewhere.
+ *
+ * The values are indexed in the order of their FieldValues keys. Documents in which the field is missing,
+ * null, an object or an array are not indexed.
+ */
+public class IndexedBinder implements Binder {
+
+    private final static Logger log = LoggerFactory.getLogger(IndexedBinder.class);
+
+    private final Binder impl;
+
+    private final Map<String, FieldIndex> indexes = new ConcurrentHashMap<>();
+
+
+    public IndexedBinder(Binder impl) {
+        this.impl = impl;
+    }
+
+    @Override
+    public String getName() {
+        return impl.getName();
+    }
+
+    @Override
+    public CompletableFuture<BsonObject> get(String id) {
+        return impl.get(id);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> put(String id, BsonObject doc) {
+        // index now as the caller may change the document once the put has been made
+        indexes.values().forEach( index -> index.put(id, doc) );
+        return impl.put(id, doc);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> delete(String id) {
+        indexes.values().forEach( index -> index.remove(id) );
+        return impl.delete(id);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> putAll(Map<String, BsonObject> docs) {
+        indexes.values().forEach( index -> docs.forEach(index::put) );
+        return impl.putAll(docs);
+    }
+
+    @Override
+    public CompletableFuture<Map<String, BsonObject>> getAll(Collection<String> ids) {
+        return impl.getAll(ids);
+    }
+
+    @Override
+    public Long countDocuments() {
+        return impl.countDocuments();
+    }
+
+    @Override
+    public Stream<KeyVal<String, BsonObject>> getDocuments() {
+        return impl.getDocuments();
+    }
+
+    @Override
+    public Stream<KeyVal<String, BsonObject>> getDocuments(Predicate<KeyVal<String, BsonObject>> filter) {
+        return impl.getDocuments(filter);
+    }
+
+    @Override
+    public Stream<KeyVal<String, BsonObject>> getDocumentsInParallel(Predicate<KeyVal<String, BsonObject>> filter) {
+        return impl.getDocumentsInParallel(filter);
+    }
+
+    /**
+     * If the filter has an equality condition on an indexed field the documents are found through the index.
+     */
+    @Override
+    public Stream<KeyVal<String, BsonObject>> getDocumentsMatching(FieldFilter filter) {
+        for (FieldFilter.Condition condition : filter.getConditions()) {
+            if (condition.getOperator() == FieldFilter.Operator.EQ && isIndexed(condition.getFieldName())) {
+                return getDocumentsInRange(condition.getFieldName(), condition.getValue(), condition.getValue()).filter(filter);
+            }
+        }
+        return impl.getDocumentsMatching(filter);
+    }
+
+    /**
+     * @return a future that completes once the index has been built, which for an index that has already
+     * been created is the future of its build.
+     */
+    @Override
+    public CompletableFuture<Boolean> createIndex(String fieldName) {
+        final FieldIndex index = new FieldIndex(fieldName);
+        final FieldIndex existing = indexes.putIfAbsent(fieldName, index);
+        if (existing != null) return existing.ready;
+        ExecutionModel.instance().blocking().execute( () -> {
+            try (Stream<KeyVal<String, BsonObject>> documents = impl.getDocuments()) {
+                documents.forEach( kv -> index.build(kv.getKey(), kv.getValue()) );
+            } catch (RuntimeException exp) {
+                log.error("Failed to build index on " + fieldName + " for binder " + getName(), exp);
+                indexes.remove(fieldName, index);
+                index.ready.completeExceptionally(exp);
+                return;
+            }
+            index.built();
+            log.info("Built index on " + fieldName + " for binder " + getName() + " of " + index.size() + " documents");
+            index.ready.complete(true);
+        });
+        return index.ready;
+    }
+
+    @Override
+    public boolean isIndexed(String fieldName) {
+        final FieldIndex index = indexes.get(fieldName);
+        return index != null && index.isBuilt();
+    }
+
+    @Override
+    public Stream<KeyVal<String, BsonObject>> getDocumentsInRange(String fieldName, BsonValue from, BsonValue to) {
+        final FieldIndex index = indexes.get(fieldName);
+        if (index == null || !index.isBuilt()) return impl.getDocumentsInRange(fieldName, from, to);
+
+        final List<CompletableFuture<KeyVal<String, BsonObject>>> reads = new ArrayList<>();
+        for (String id : index.idsInRange(from, to)) {
+            reads.add(impl.get(id).thenApply( doc -> doc == null ? null : KeyVal.create(id, doc) ));
+        }
+        final Predicate<KeyVal<String, BsonObject>> matches = inRange(fieldName, from, to);
+        return reads.stream()
+                .map(CompletableFuture::join)
+                .filter(Objects::nonNull)
+                .filter(matches);
+    }
+
+    @Override
+    public Boolean setStreaming(EventSink sink, String channel) {
+        return impl.setStreaming(sink, channel);
+    }
+
+    @Override
+    public Boolean isStreaming() {
+        return impl.isStreaming();
+    }
+
+
+
+    /**
+     * The index of one field, from each key to the ids of the documents with that key, and back.
+     */
+    private static final class FieldIndex {
+
+        private final String fieldName;
+        private final NavigableMap<Comparable, Set<String>> idsByKey = new TreeMap<>(KEY_ORDER);
+        private final Map<String, Comparable> keysById = new HashMap<>();
+
+        // completes once the index has been built
+        final CompletableFuture<Boolean> ready = new CompletableFuture<>();
+
+        // the documents written whilst the index was being built, which the build must not overwrite
+        private Set<String> writtenWhileBuilding = new HashSet<>();
+
+        FieldIndex(String fieldName) {
+            this.fieldName = fieldName;
+        }
+
+        synchronized void put(String id, BsonObject doc) {
+            if (writtenWhileBuilding != null) writtenWhileBuilding.add(id);
+            index(id, key(doc.getBsonValue(fieldName)));
+        }
+
+        synchronized void remove(String id) {
+            if (writtenWhileBuilding != null) writtenWhileBuilding.add(id);
+            index(id, null);
+        }
+
+        synchronized void build(String id, BsonObject doc) {
+            if (!writtenWhileBuilding.contains(id)) index(id, key(doc.getBsonValue(fieldName)));
+        }
+
+        synchronized void built() {
+            writtenWhileBuilding = null;
+        }
+
+        synchronized boolean isBuilt() {
+            return writtenWhileBuilding == null;
+        }
+
+        synchronized int size() {
+            return keysById.size();
+        }
+
+        synchronized List<String> idsInRange(BsonValue from, BsonValue to) {
+            final Comparable fromKey = (from == null) ? null : key(from);
+            final Comparable toKey = (to == null) ? null : key(to);
+            if ((from != null && fromKey == null) || (to != null && toKey == null)) return new ArrayList<>();
+            if (fromKey != null && toKey != null && KEY_ORDER.compare(fromKey, toKey) > 0) return new ArrayList<>();
+
+            NavigableMap<Comparable, Set<String>> range = idsByKey;
+            if (fromKey != null) range = range.tailMap(fromKey, true);
+            if (toKey != null) range = range.headMap(toKey, true);
+            final List<String> ids = new ArrayList<>();
+            range.values().forEach(ids::addAll);
+            return ids;
+        }
+
+        private void index(String id, Comparable key) {
+            final Comparable oldKey = keysById.remove(id);
+            if (oldKey != null) {
+                final Set<String> ids = idsByKey.get(oldKey);
+                ids.remove(id);
+                if (ids.isEmpty()) idsByKey.remove(oldKey);
+            }
+            if (key != null) {
+                keysById.put(id, key);
+                idsByKey.computeIfAbsent(key, k -> new HashSet<>()).add(id);
+            }
+        }
+    }
+
+}
@@ -3,25 +3,37 @@ package io.mewbase.binders.impl.filestore;
 
 import io.mewbase.binders.Binder;
 import io.mewbase.binders.KeyVal;
+import io.mewbase.binders.impl.DocumentPages;
 import io.mewbase.binders.impl.StreamableBinder;
 import io.mewbase.bson.BsonCodec;
 import io.mewbase.bson.BsonObject;
+import io.mewbase.util.ExecutionModel;
+import io.mewbase.util.SerialExecutor;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Paths;
-import java.util.HashSet;
-
-import java.util.Set;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Predicate;
 import java.util.stream.Stream;
 
@@ -37,7 +49,7 @@ public class FileBinder extends StreamableBinder implements Binder {
 
     private final File binderDir;
 
-    private final ExecutorService stexec = Executors.newSingleThreadExecutor();
+    private final SerialExecutor stexec = ExecutionModel.instance().serial();
 
 
     public FileBinder(String name, File binderDir) {
@@ -59,7 +71,7 @@ public class FileBinder extends StreamableBinder implements Binder {
         final File file = new File(binderDir,id);
 
         CompletableFuture<BsonObject> fut = new CompletableFuture<>();
-        stexec.submit( () -> {
+        stexec.execute( () -> {
             BsonObject doc = null;
             if (file.exists()) {
                 try {
@@ -84,7 +96,7 @@ public class FileBinder extends StreamableBinder implements Binder {
         final byte[] valBytes = BsonCodec.bsonObjectToBsonBytes(doc);
 
         CompletableFuture<Boolean> fut = new CompletableFuture<>();
-        stexec.submit( () -> {
+        stexec.execute( () -> {
             try {
                 Boolean newWrite = Files.notExists(file.toPath());
                 Files.write(file.toPath(), valBytes); // implies CREATE, TRUNCATE_EXISTING, WRITE;
@@ -100,12 +112,57 @@ public class FileBinder extends StreamableBinder implements Binder {
     }
 
 
+    /**
+     * The documents are written one file each, as for put, but in a single task rather than a task each.
+     */
+    @Override
+    public CompletableFuture<Boolean> putAll(final Map<String, BsonObject> docs) {
+        final Map<Path, byte[]> files = new LinkedHashMap<>();
+        docs.forEach( (id, doc) -> files.put(new File(binderDir, id).toPath(), BsonCodec.bsonObjectToBsonBytes(doc)) );
+
+        CompletableFuture<Boolean> fut = new CompletableFuture<>();
+        stexec.execute( () -> {
+            try {
+                for (Map.Entry<Path, byte[]> file : files.entrySet()) {
+                    Files.write(file.getKey(), file.getValue());
+                }
+                log.debug("Written " + files.size() + " Documents");
+                fut.complete(true);
+            } catch (Exception exp) {
+                log.error("Error writing " + files.size() + " documents");
+                fut.completeExceptionally(exp);
+            }
+        });
+        streamFunc.ifPresent( func -> docs.forEach(func) );
+        return fut;
+    }
+
+    @Override
+    public CompletableFuture<Map<String, BsonObject>> getAll(final Collection<String> ids) {
+        CompletableFuture<Map<String, BsonObject>> fut = new CompletableFuture<>();
+        stexec.execute( () -> {
+            final Map<String, BsonObject> docs = new LinkedHashMap<>();
+            try {
+                for (String id : ids) {
+                    final File file = new File(binderDir, id);
+                    if (file.exists()) docs.put(id, BsonCodec.bsonBytesToBsonObject(Files.readAllBytes(file.toPath())));
+                }
+                fut.complete(docs);
+            } catch (Exception exp) {
+                log.error("Error getting " + ids.size() + " documents");
+                fut.completeExceptionally(exp);
+            }
+        });
+        return fut;
+    }
+
+
     @Override
     public CompletableFuture<Boolean> delete(final String id) {
         final File file = new File(binderDir, id);
 
         CompletableFuture<Boolean> fut = new CompletableFuture<>();
-        stexec.submit(  () -> {
+        stexec.execute(  () -> {
             try {
                 fut.complete( Files.deleteIfExists(file.toPath()) );
                 log.debug("Deleted " + file.toPath());
@@ -132,29 +189,120 @@ public class FileBinder extends StreamableBinder implements Binder {
     @Override
     public Stream<KeyVal<String, BsonObject>> getDocuments() { return getDocuments( kv -> true); }
 
+    /**
+     * The documents are read lazily, a page of files at a time, as the stream is consumed.
+     * The directory is opened when the first page is read and closed once the last page has been read,
+     * or when the stream is closed if it is not consumed to the end.
+     */
     @Override
     public Stream<KeyVal<String, BsonObject>> getDocuments( Predicate<KeyVal<String, BsonObject>> filter) {
+        final AtomicReference<DirectoryStream<Path>> directory = new AtomicReference<>();
+        final AtomicBoolean closed = new AtomicBoolean(false);
+
+        final DocumentPages.PageReader pageReader = new DocumentPages.PageReader() {
+            private Iterator<Path> entries = null;
+
+            @Override
+            public List<KeyVal<String, BsonObject>> read(String lastKey) throws IOException {
+                if (entries == null) {
+                    final DirectoryStream<Path> opened;
+                    try {
+                        opened = Files.newDirectoryStream(binderDir.toPath());
+                    } catch (IOException exp) {
+                        log.error("File based Binder failed to get documents", exp);
+                        throw exp;
+                    }
+                    directory.set(opened);
+                    // the stream may have been closed whilst the directory was being opened
+                    if (closed.get()) closeDirectory(directory);
+                    entries = opened.iterator();
+                }
+                final List<KeyVal<String, BsonObject>> page = new ArrayList<>(DocumentPages.PAGE_SIZE);
+                while (page.size() < DocumentPages.PAGE_SIZE && entries.hasNext()) {
+                    final Path entry = entries.next();
+                    try {
+                        final byte[] buffer = Files.readAllBytes(entry);
+                        page.add(KeyVal.create(entry.getFileName().toString(), BsonCodec.bsonBytesToLazyBsonObject(buffer)));
+                    } catch (NoSuchFileException exp) {
+                        // deleted since the directory was listed
+                    }
+                }
+                return page;
+            }
+        };
 
-        CompletableFuture<Set<KeyVal<String, BsonObject>>> fut = CompletableFuture.supplyAsync( () -> {
+        final Runnable onClose = () -> {
+            closed.set(true);
+            closeDirectory(directory);
+        };
+        return DocumentPages.stream(pageReader, stexec, onClose).filter(filter);
+    }
 
-            Set<KeyVal<String, BsonObject>> resultSet = new HashSet<>();
-            try (DirectoryStream<Path> stream = Files.newDirectoryStream(binderDir.toPath())) {
-                for (Path entry: stream) {
-                    String key = entry.getFileName().toString();
-                    byte[] buffer = Files.readAllBytes(entry);
-                    final BsonObject doc = BsonCodec.bsonBytesToBsonObject(buffer);
-                    KeyVal<String,BsonObject> kv = KeyVal.create(key, doc);
-                    if (filter.test(kv)) resultSet.add(kv);
-                }
-            } catch (Exception ex) {
-                log.error("File based Binder failed to get documents", ex);
+    private void closeDirectory(final AtomicReference<DirectoryStream<Path>> directory) {
+        final DirectoryStream<Path> opened = directory.getAndSet(null);
+        if (opened == null) return;
+        try {
+            opened.close();
+        } catch (IOException exp) {
+            log.error("File based Binder failed to close directory", exp);
+        }
+    }
+
+    /**
+     * The files are listed up front and then read, decoded and filtered by a parallel stream, so on
+     * the common fork-join pool unless the stream is consumed from a task of another fork-join pool.
+     *
+     * The files are not read on the binder's executor so a file may be read part way through a write,
+     * in which case it is read again once the write has finished.
+     */
+    @Override
+    public Stream<KeyVal<String, BsonObject>> getDocumentsInParallel( Predicate<KeyVal<String, BsonObject>> filter) {
+        final Path[] entries;
+        try (Stream<Path> files = Files.list(binderDir.toPath())) {
+            entries = files.toArray(Path[]::new);
+        } catch (IOException exp) {
+            log.error("File based Binder failed to get documents", exp);
+            throw new UncheckedIOException(exp);
+        }
+        return Arrays.stream(entries)
+                .parallel()
+                .map(this::readDocument)
+                .filter(Objects::nonNull)
+                .filter(filter);
+    }
+
+    private KeyVal<String, BsonObject> readDocument(final Path entry) {
+        try {
+            byte[] bytes = Files.readAllBytes(entry);
+            if (!isWholeDocument(bytes)) {
+                bytes = CompletableFuture.supplyAsync( () -> {
+                    try {
+                        return Files.readAllBytes(entry);
+                    } catch (IOException exp) {
+                        throw new UncheckedIOException(exp);
+                    }
+                }, stexec).join();
             }
-            return resultSet;
-        }, stexec);
+            return KeyVal.create(entry.getFileName().toString(), BsonCodec.bsonBytesToBsonObject(bytes));
+        } catch (NoSuchFileException exp) {
+            // deleted since the directory was listed
+            return null;
+        } catch (CompletionException exp) {
+            if (exp.getCause() instanceof UncheckedIOException &&
+                    exp.getCause().getCause() instanceof NoSuchFileException) return null;
+            throw exp;
+        } catch (IOException exp) {
+            throw new UncheckedIOException(exp);
+        }
+    }
 
-        return fut.join().stream();
+    // a document starts with its length as a little endian int32
+    private static boolean isWholeDocument(final byte[] bytes) {
+        return bytes.length >= 4 &&
+                ((bytes[0] & 0xff) | (bytes[1] & 0xff) << 8 | (bytes[2] & 0xff) << 16 | (bytes[3] & 0xff) << 24) == bytes.length;
     }
 
+
     public static void createIfDoesntExists(File dir) {
         if (!dir.exists()) {
             if (!dir.mkdirs()) {
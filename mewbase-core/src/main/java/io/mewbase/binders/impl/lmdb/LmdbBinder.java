@@ -1,6 +1,7 @@
 package io.mewbase.binders.impl.lmdb;
 
 import io.mewbase.binders.KeyVal;
+import io.mewbase.binders.impl.DocumentPages;
 import io.mewbase.binders.impl.StreamableBinder;
 import io.mewbase.bson.BsonCodec;
 import io.mewbase.bson.BsonObject;
@@ -14,6 +15,9 @@ import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
 
+import io.mewbase.util.ExecutionModel;
+import io.mewbase.util.SerialExecutor;
+
 import java.util.concurrent.*;
 
 import java.util.function.Predicate;
@@ -35,7 +39,7 @@ public class LmdbBinder extends StreamableBinder implements Binder {
     private final String name;
 
     // In LMDB all transactional ops have thread affinity so they must be executed on the same thread.
-    private final ExecutorService stexec = Executors.newSingleThreadExecutor();
+    private final SerialExecutor stexec = ExecutionModel.instance().serial();
 
     private final Env<ByteBuffer> env;
     private Dbi<ByteBuffer> dbi;
@@ -94,6 +98,53 @@ public class LmdbBinder extends StreamableBinder implements Binder {
     }
 
 
+    /**
+     * All of the documents are put in a single write txn.
+     */
+    @Override
+    public CompletableFuture<Boolean> putAll(final Map<String, BsonObject> docs) {
+        CompletableFuture<Boolean> fut = CompletableFuture.supplyAsync( () -> {
+            synchronized (this) {
+                try (Txn<ByteBuffer> txn = env.txnWrite()) {
+                    docs.forEach( (id, doc) -> {
+                        byte[] valBytes = BsonCodec.bsonObjectToBsonBytes(doc);
+                        final ByteBuffer val = allocateDirect(valBytes.length);
+                        ((java.nio.Buffer)val.put(valBytes)).flip();
+                        dbi.put(txn, makeKeyBuffer(id), val);
+                    });
+                    txn.commit();
+                }
+            }
+            return true;
+        }, stexec);
+        streamFunc.ifPresent( func -> docs.forEach(func) );
+        return fut;
+    }
+
+    /**
+     * All of the documents are read in a single read txn.
+     */
+    @Override
+    public CompletableFuture<Map<String, BsonObject>> getAll(final Collection<String> ids) {
+        CompletableFuture<Map<String, BsonObject>> fut = CompletableFuture.supplyAsync( () -> {
+            final Map<String, BsonObject> docs = new LinkedHashMap<>();
+            try (Txn<ByteBuffer> txn = env.txnRead()) {
+                for (String id : ids) {
+                    final ByteBuffer found = dbi.get(txn, makeKeyBuffer(id));
+                    if (found != null) {
+                        // copy out of the map before the txn is closed
+                        final byte[] valBytes = new byte[found.remaining()];
+                        found.get(valBytes);
+                        docs.put(id, BsonCodec.bsonBytesToBsonObject(valBytes));
+                    }
+                }
+            }
+            return docs;
+        }, stexec);
+        return fut;
+    }
+
+
     @Override
     public CompletableFuture<Boolean> delete(final String id) {
         CompletableFuture<Boolean> fut = CompletableFuture.supplyAsync( () -> {
@@ -114,33 +165,31 @@ public class LmdbBinder extends StreamableBinder implements Binder {
         return getDocuments( kv -> true);
     }
 
+    /**
+     * The documents are read lazily, in key order, a page at a time as the stream is consumed. Each page
+     * is read in a read transaction of its own, which starts after the key of the last page.
+     */
     @Override
     public Stream<KeyVal<String, BsonObject>> getDocuments( Predicate<KeyVal<String, BsonObject>> filter) {
-        CompletableFuture<Set<KeyVal<String, BsonObject>>> fut = CompletableFuture.supplyAsync( () -> {
-
-            Set<KeyVal<String, BsonObject>> resultSet = new HashSet<>();
-
-            try (final Txn<ByteBuffer> txn = env.txnRead()) {
-                final CursorIterator<ByteBuffer> cursorItr = dbi.iterate(txn, KeyRange.all());
+        final DocumentPages.PageReader pageReader = lastKey -> {
+            final List<KeyVal<String, BsonObject>> page = new ArrayList<>(DocumentPages.PAGE_SIZE);
+            final KeyRange<ByteBuffer> range = (lastKey == null) ? KeyRange.all() : KeyRange.greaterThan(makeKeyBuffer(lastKey));
+            try (final Txn<ByteBuffer> txn = env.txnRead();
+                 final CursorIterator<ByteBuffer> cursorItr = dbi.iterate(txn, range)) {
                 final Iterator<CursorIterator.KeyVal<ByteBuffer>> itr = cursorItr.iterable().iterator();
-                boolean hasNext = itr.hasNext();
-                txn.reset();
-
-                while (hasNext) {
-                    txn.renew();
+                while (page.size() < DocumentPages.PAGE_SIZE && itr.hasNext()) {
                     final CursorIterator.KeyVal<ByteBuffer> rawKV = itr.next();
-                    final String id = new String(rawKV.key().array());
-                    final BsonObject doc = BsonCodec.bsonBytesToBsonObject(rawKV.val().array());
-                    hasNext = itr.hasNext(); // iterator makes reference to the txn
-                    txn.reset(); // got data so release the txn
-
-                    KeyVal<String,BsonObject> entry = KeyVal.create(id, doc);
-                    if (filter.test(entry)) resultSet.add(entry);
+                    // copy out of the map before the txn is closed
+                    final byte[] key = new byte[rawKV.key().remaining()];
+                    rawKV.key().get(key);
+                    final byte[] val = new byte[rawKV.val().remaining()];
+                    rawKV.val().get(val);
+                    page.add(KeyVal.create(new String(key, StandardCharsets.UTF_8), BsonCodec.bsonBytesToBsonObject(val)));
                 }
             }
-            return resultSet;
-        }, stexec);
-        return fut.join().stream();
+            return page;
+        };
+        return DocumentPages.stream(pageReader, stexec, () -> {}).filter(filter);
     }
 
     
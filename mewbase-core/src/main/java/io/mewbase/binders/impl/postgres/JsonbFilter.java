@@ -0,0 +1,96 @@
+package io.mewbase.binders.impl.postgres;
+
+import io.mewbase.binders.FieldFilter;
+import io.mewbase.binders.FieldValues;
+import io.mewbase.bson.BsonCodec;
+import io.mewbase.bson.BsonObject;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * The translation of a FieldFilter into a condition on the jsonb doc column of the binder data table.
+ *
+ * Equality is a containment test, which the GIN index on the column serves. Ranges of numbers and
+ * strings compare the text of the field as a number or in byte order.
+ * The other conditions are left to the filter itself, which is applied to every document that is read.
+ * Rows without a doc column cannot match the condition so they are read separately, see WITHOUT_DOC.
+ */
+final class JsonbFilter {
+
+    static final JsonbFilter NONE = new JsonbFilter("", new ArrayList<>());
+
+    // the rows written without a doc column, which the partial index on those rows serves
+    static final JsonbFilter WITHOUT_DOC = new JsonbFilter(" AND doc IS NULL", new ArrayList<>());
+
+    private final String sql;
+    private final List<Object> parameters;
+
+
+    private JsonbFilter(String sql, List<Object> parameters) {
+        this.sql = sql;
+        this.parameters = parameters;
+    }
+
+    static JsonbFilter compile(FieldFilter filter) {
+        final List<String> clauses = new ArrayList<>();
+        final List<Object> parameters = new ArrayList<>();
+        for (FieldFilter.Condition condition : filter.getConditions()) {
+            final Comparable key = FieldValues.key(condition.getValue());
+            if (key == null) continue;
+            final String field = condition.getFieldName();
+
+            if (condition.getOperator() == FieldFilter.Operator.EQ) {
+                clauses.add("doc @> ?::jsonb");
+                parameters.add(BsonCodec.bsonObjectToJsonObject(new BsonObject().put(field, condition.getValue())).toString());
+            } else if (key instanceof BigDecimal) {
+                clauses.add("(jsonb_typeof(doc -> ?) = 'number' AND (doc ->> ?)::numeric " + operator(condition) + " ?)");
+                parameters.add(field);
+                parameters.add(field);
+                parameters.add(key);
+            } else if (key instanceof String) {
+                clauses.add("(jsonb_typeof(doc -> ?) = 'string' AND (doc ->> ?) COLLATE \"C\" " + operator(condition) + " ?)");
+                parameters.add(field);
+                parameters.add(field);
+                parameters.add(key);
+            }
+        }
+        if (clauses.isEmpty()) return NONE;
+        return new JsonbFilter(" AND " + String.join(" AND ", clauses), parameters);
+    }
+
+    /**
+     * @return the condition to append to a WHERE clause, which is empty if nothing can be filtered in postgres.
+     */
+    String where() {
+        return sql;
+    }
+
+    /**
+     * Set the parameters of the condition on the statement starting at the given parameter index.
+     *
+     * @return the index of the next parameter.
+     */
+    int setParameters(PreparedStatement statement, int first) throws SQLException {
+        int param = first;
+        for (Object parameter : parameters) {
+            statement.setObject(param++, parameter);
+        }
+        return param;
+    }
+
+    private static String operator(FieldFilter.Condition condition) {
+        switch (condition.getOperator()) {
+            case LT: return "<";
+            case LTE: return "<=";
+            case GT: return ">";
+            case GTE: return ">=";
+            default: return "=";
+        }
+    }
+
+}
@@ -3,10 +3,14 @@ package io.mewbase.binders.impl.postgres;
 
 import com.google.common.base.Throwables;
 import io.mewbase.binders.Binder;
+import io.mewbase.binders.FieldFilter;
 import io.mewbase.binders.KeyVal;
+import io.mewbase.binders.impl.DocumentPages;
 import io.mewbase.binders.impl.StreamableBinder;
 import io.mewbase.bson.BsonCodec;
 import io.mewbase.bson.BsonObject;
+import io.mewbase.util.ExecutionModel;
+import io.mewbase.util.SerialExecutor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -14,33 +18,84 @@ import org.slf4j.LoggerFactory;
 import java.math.BigInteger;
 import java.sql.*;
 
-import java.util.HashSet;
-import java.util.Set;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.Executor;
 import java.util.function.Predicate;
 import java.util.stream.Stream;
 
 
 /**
  * Created by Nige on 4/12/17.
+ *
+ * The binders of a store share its pool of connections. Gets, puts and deletes of the same key run in the order
+ * that they were made but, when the pool has more than one connection, those of different keys run concurrently.
+ *
+ * The statements of gets, puts, deletes and scans are built once and prepared once for each connection, see
+ * PostgresConnectionPool.prepared, so those that are kept must not be closed.
+ *
+ * If the binder is opened in jsonb mode each document is also written as jsonb to the doc column, so that
+ * the field filters of getDocumentsMatching are applied by postgres rather than to every document in the binder.
+ * Otherwise the doc column of each document that is written is cleared, so that a document written by another
+ * writer, or before the mode was switched on, is never matched by a doc column that it no longer has.
  */
 public class PostgresBinder extends StreamableBinder implements Binder {
 
     private final static Logger log = LoggerFactory.getLogger(PostgresBinder.class);
 
+    // the most documents written by each statement of a putAll
+    private final static int ROWS_PER_PUT_ALL = 1000;
+
+    private final static String GET_SQL =
+            "SELECT data FROM " + PostgresBinderStore.MEWBASE_BINDER_DATA_TABLE_NAME + " WHERE key = ? AND binder_id = ?";
+    private final static String GET_ALL_SQL =
+            "SELECT key, data FROM " + PostgresBinderStore.MEWBASE_BINDER_DATA_TABLE_NAME + " WHERE binder_id = ? AND key = ANY (?)";
+    private final static String PUT_SQL =
+            "INSERT INTO "+ PostgresBinderStore.MEWBASE_BINDER_DATA_TABLE_NAME +"(binder_id, key, data)  VALUES( ?, ?, ? )" +
+            " ON CONFLICT (binder_id, key) DO UPDATE SET data = ?, doc = NULL ;";
+    private final static String PUT_JSON_SQL =
+            "INSERT INTO "+ PostgresBinderStore.MEWBASE_BINDER_DATA_TABLE_NAME +"(binder_id, key, data, doc)  VALUES( ?, ?, ?, ?::jsonb )" +
+            " ON CONFLICT (binder_id, key) DO UPDATE SET data = EXCLUDED.data, doc = EXCLUDED.doc ;";
+    private final static String PUT_ALL_SQL = upsertSql(ROWS_PER_PUT_ALL, false);
+    private final static String PUT_ALL_JSON_SQL = upsertSql(ROWS_PER_PUT_ALL, true);
+    private final static String DELETE_SQL =
+            "DELETE FROM " + PostgresBinderStore.MEWBASE_BINDER_DATA_TABLE_NAME + " WHERE key = ? AND binder_id = ?";
+    private final static String FIRST_PAGE_SQL =
+            "SELECT key, data FROM " + PostgresBinderStore.MEWBASE_BINDER_DATA_TABLE_NAME + " WHERE binder_id = ? ORDER BY key LIMIT ?";
+    private final static String NEXT_PAGE_SQL =
+            "SELECT key, data FROM " + PostgresBinderStore.MEWBASE_BINDER_DATA_TABLE_NAME + " WHERE binder_id = ? AND key > ? ORDER BY key LIMIT ?";
+
     private final String name;
     private final long id;
 
-    private final ExecutorService stexec = Executors.newSingleThreadExecutor();
+    // the work for each key runs in order on one of these, so work for different keys can run concurrently
+    private final SerialExecutor[] stexecs;
 
-    private final Connection connection;
+    private final PostgresConnectionPool pool;
+    private final boolean jsonb;
 
     public PostgresBinder(Connection connection, String name) {
-        this.connection = connection;
+        this(connection, name, false);
+    }
+
+    public PostgresBinder(Connection connection, String name, boolean jsonb) {
+        this(PostgresConnectionPool.of(connection), name, jsonb);
+    }
+
+    public PostgresBinder(PostgresConnectionPool pool, String name, boolean jsonb) {
+        this.pool = pool;
         this.name = name;
+        this.jsonb = jsonb;
+        this.stexecs = new SerialExecutor[pool.size()];
+        for (int i = 0; i < stexecs.length; i++) stexecs[i] = ExecutionModel.instance().serial();
         try {
             log.info("Opened Binder named " + name);
             addToBinderStore();
@@ -61,78 +116,217 @@ public class PostgresBinder extends StreamableBinder implements Binder {
     public CompletableFuture<BsonObject> get(final String key) {
 
         CompletableFuture<BsonObject> fut = CompletableFuture.supplyAsync( () -> {
-            BsonObject doc = null;
             try {
-                final Statement stmt = connection.createStatement();
-                final String sql = "SELECT data FROM " + PostgresBinderStore.MEWBASE_BINDER_DATA_TABLE_NAME + " WHERE key = ? AND binder_id = ?";
-                try (final PreparedStatement statement = connection.prepareStatement(sql)) {
+                return pool.withConnection( connection -> {
+                    BsonObject doc = null;
+                    final PreparedStatement statement = pool.prepared(connection, GET_SQL);
                     statement.setString(1, key);
                     statement.setLong(2, id);
 
                     try (final ResultSet resultSet = statement.executeQuery()) {
                         if (resultSet.next()) {
-                            byte[] buffer = resultSet.getBytes("data");
+                            byte[] buffer = resultSet.getBytes(1);
                             doc = BsonCodec.bsonBytesToBsonObject(buffer);
                         }
                     }
-                }
+                    return doc;
+                });
             } catch (Exception exp) {
                     log.error("Error getting document with key : " + key);
                     throw new CompletionException(exp);
             }
-            return doc;
-        }, stexec);
+        }, stexecFor(key));
         return fut;
     }
 
     private void addToBinderStore() throws SQLException {
         final String sql =
                 "INSERT INTO " + PostgresBinderStore.MEWBASE_BINDER_TABLE_NAME + "(name) VALUES (?) ON CONFLICT DO NOTHING";
-        try (final PreparedStatement statement = connection.prepareStatement(sql)) {
-            statement.setString(1, name);
-            statement.execute();
-        }
+        pool.withConnection( connection -> {
+            try (final PreparedStatement statement = connection.prepareStatement(sql)) {
+                statement.setString(1, name);
+                return statement.execute();
+            }
+        });
     }
 
     private long queryBinderId() throws SQLException {
         final String sql =
                 "SELECT id FROM " + PostgresBinderStore.MEWBASE_BINDER_TABLE_NAME + " WHERE name = ?";
-        try (final PreparedStatement statement = connection.prepareStatement(sql)) {
-            statement.setString(1, name);
-            try (final ResultSet rs = statement.executeQuery()) {
-                if (rs.next())
-                    return rs.getLong(1);
-                else
-                    throw new IllegalStateException("Binder with name " + name + " not found");
+        return pool.withConnection( connection -> {
+            try (final PreparedStatement statement = connection.prepareStatement(sql)) {
+                statement.setString(1, name);
+                try (final ResultSet rs = statement.executeQuery()) {
+                    if (rs.next())
+                        return rs.getLong(1);
+                    else
+                        throw new IllegalStateException("Binder with name " + name + " not found");
+                }
             }
-        }
+        });
     }
 
     @Override
     public CompletableFuture<Boolean> put(final String key, final BsonObject doc) {
         final byte[] valBytes = BsonCodec.bsonObjectToBsonBytes(doc);
+        if (jsonb) return putWithJson(key, doc, valBytes);
 
         CompletableFuture<Boolean> fut = CompletableFuture.supplyAsync( () -> {
             try {
-                final String sql = "INSERT INTO "+ PostgresBinderStore.MEWBASE_BINDER_DATA_TABLE_NAME +"(binder_id, key, data)  VALUES( ?, ?, ? )" +
-                        " ON CONFLICT (binder_id, key) DO UPDATE SET data = ? ;";
-                try (final PreparedStatement stmt = connection.prepareStatement(sql)) {
+                pool.withConnection( connection -> {
+                    final PreparedStatement stmt = pool.prepared(connection, PUT_SQL);
                     stmt.setLong(1, id);
                     stmt.setString(2, key);
                     stmt.setBytes(3, valBytes);
                     stmt.setBytes(4, valBytes);
-                    stmt.executeUpdate();
-                }
+                    return stmt.executeUpdate();
+                });
             } catch (Exception exp) {
                 log.error("Error writing document key : " + key + " value : " + doc);
                 throw new CompletionException(exp);
             }
             return true;
-        }, stexec);
+        }, stexecFor(key));
         streamFunc.ifPresent( func -> func.accept(key,doc));
         return fut;
     }
 
+    private CompletableFuture<Boolean> putWithJson(final String key, final BsonObject doc, final byte[] valBytes) {
+        final String json = toJson(key, doc);
+
+        CompletableFuture<Boolean> fut = CompletableFuture.supplyAsync( () -> {
+            try {
+                pool.withConnection( connection -> {
+                    final PreparedStatement stmt = pool.prepared(connection, PUT_JSON_SQL);
+                    stmt.setLong(1, id);
+                    stmt.setString(2, key);
+                    stmt.setBytes(3, valBytes);
+                    stmt.setString(4, json);
+                    return stmt.executeUpdate();
+                });
+            } catch (Exception exp) {
+                log.error("Error writing document key : " + key + " value : " + doc);
+                throw new CompletionException(exp);
+            }
+            return true;
+        }, stexecFor(key));
+        streamFunc.ifPresent( func -> func.accept(key,doc));
+        return fut;
+    }
+
+    /**
+     * @return the document as json or null, so that it is always read and filtered in java, if it
+     * cannot be written as json.
+     */
+    private String toJson(final String key, final BsonObject doc) {
+        try {
+            return BsonCodec.bsonObjectToJsonObject(doc).toString();
+        } catch (RuntimeException exp) {
+            log.warn("Document " + key + " in binder " + name + " cannot be written as json", exp);
+            return null;
+        }
+    }
+
+
+    /**
+     * The documents are written by multi row upserts of up to ROWS_PER_PUT_ALL documents. Each statement
+     * runs on the executor of the keys in it, so the documents are still written in order with other puts.
+     */
+    @Override
+    public CompletableFuture<Boolean> putAll(final Map<String, BsonObject> docs) {
+        final Map<SerialExecutor, List<Object[]>> rowsByExecutor = new LinkedHashMap<>();
+        docs.forEach( (key, doc) -> rowsByExecutor.computeIfAbsent(stexecFor(key), k -> new ArrayList<>())
+                .add(new Object[] { key, BsonCodec.bsonObjectToBsonBytes(doc), jsonb ? toJson(key, doc) : null }) );
+
+        final List<CompletableFuture<Integer>> writes = new ArrayList<>();
+        rowsByExecutor.forEach( (executor, rows) -> {
+            for (int from = 0; from < rows.size(); from += ROWS_PER_PUT_ALL) {
+                final List<Object[]> chunk = rows.subList(from, Math.min(rows.size(), from + ROWS_PER_PUT_ALL));
+                writes.add(CompletableFuture.supplyAsync( () -> {
+                    try {
+                        return pool.withConnection( connection -> upsert(connection, chunk) );
+                    } catch (Exception exp) {
+                        log.error("Error writing " + chunk.size() + " documents to binder " + name);
+                        throw new CompletionException(exp);
+                    }
+                }, executor));
+            }
+        });
+        streamFunc.ifPresent( func -> docs.forEach(func) );
+        return CompletableFuture.allOf(writes.toArray(new CompletableFuture[0])).thenApply( v -> true );
+    }
+
+    /**
+     * Only the statement for a whole chunk of rows is kept, that for the rows left over is prepared each time.
+     */
+    private int upsert(final Connection connection, final List<Object[]> rows) throws SQLException {
+        if (rows.size() == ROWS_PER_PUT_ALL) {
+            return upsert(pool.prepared(connection, jsonb ? PUT_ALL_JSON_SQL : PUT_ALL_SQL), rows);
+        }
+        try (final PreparedStatement stmt = connection.prepareStatement(upsertSql(rows.size(), jsonb))) {
+            return upsert(stmt, rows);
+        }
+    }
+
+    private int upsert(final PreparedStatement stmt, final List<Object[]> rows) throws SQLException {
+        int param = 1;
+        for (Object[] values : rows) {
+            stmt.setLong(param++, id);
+            stmt.setString(param++, (String) values[0]);
+            stmt.setBytes(param++, (byte[]) values[1]);
+            if (jsonb) stmt.setString(param++, (String) values[2]);
+        }
+        return stmt.executeUpdate();
+    }
+
+    private static String upsertSql(final int rows, final boolean jsonb) {
+        final String row = jsonb ? "(?, ?, ?, ?::jsonb)" : "(?, ?, ?)";
+        return "INSERT INTO " + PostgresBinderStore.MEWBASE_BINDER_DATA_TABLE_NAME +
+                (jsonb ? "(binder_id, key, data, doc)" : "(binder_id, key, data)") +
+                " VALUES " + String.join(", ", Collections.nCopies(rows, row)) +
+                " ON CONFLICT (binder_id, key) DO UPDATE SET data = EXCLUDED.data, doc = " + (jsonb ? "EXCLUDED.doc" : "NULL");
+    }
+
+    /**
+     * The documents are read by a query for each executor of the keys, as for putAll.
+     */
+    @Override
+    public CompletableFuture<Map<String, BsonObject>> getAll(final Collection<String> keys) {
+        final Map<SerialExecutor, List<String>> keysByExecutor = new LinkedHashMap<>();
+        new LinkedHashSet<>(keys).forEach( key -> keysByExecutor.computeIfAbsent(stexecFor(key), k -> new ArrayList<>()).add(key) );
+
+        final List<CompletableFuture<Map<String, BsonObject>>> reads = new ArrayList<>();
+        keysByExecutor.forEach( (executor, group) -> reads.add(CompletableFuture.supplyAsync( () -> {
+            try {
+                return pool.withConnection( connection -> {
+                    final Map<String, BsonObject> found = new HashMap<>();
+                    final PreparedStatement statement = pool.prepared(connection, GET_ALL_SQL);
+                    statement.setLong(1, id);
+                    statement.setArray(2, connection.createArrayOf("text", group.toArray()));
+                    try (final ResultSet resultSet = statement.executeQuery()) {
+                        while (resultSet.next()) {
+                            found.put(resultSet.getString(1), BsonCodec.bsonBytesToBsonObject(resultSet.getBytes(2)));
+                        }
+                    }
+                    return found;
+                });
+            } catch (Exception exp) {
+                log.error("Error getting " + group.size() + " documents from binder " + name);
+                throw new CompletionException(exp);
+            }
+        }, executor)));
+
+        return CompletableFuture.allOf(reads.toArray(new CompletableFuture[0])).thenApply( v -> {
+            final Map<String, BsonObject> found = new HashMap<>();
+            reads.forEach( read -> found.putAll(read.join()) );
+            final Map<String, BsonObject> docs = new LinkedHashMap<>();
+            for (String key : keys) {
+                if (found.containsKey(key)) docs.put(key, found.get(key));
+            }
+            return docs;
+        });
+    }
+
 
     @Override
     @Deprecated
@@ -140,18 +334,18 @@ public class PostgresBinder extends StreamableBinder implements Binder {
 
         CompletableFuture<Boolean> fut = CompletableFuture.supplyAsync( () -> {
             try {
-                final String sql = "DELETE FROM " + PostgresBinderStore.MEWBASE_BINDER_DATA_TABLE_NAME + " WHERE key = ? AND binder_id = ?";
-                try (final PreparedStatement statement = connection.prepareStatement(sql)) {
+                return pool.withConnection( connection -> {
+                    final PreparedStatement statement = pool.prepared(connection, DELETE_SQL);
                     statement.setString(1, key);
                     statement.setLong(2, id);
                     statement.executeUpdate();
                     return true;
-                }
+                });
             } catch (Exception exp) {
                 log.error("Error deleting document " + key );
                 throw new CompletionException(exp);
             }
-        }, stexec);
+        }, stexecFor(key));
         return fut;
     }
 
@@ -167,32 +361,80 @@ public class PostgresBinder extends StreamableBinder implements Binder {
     }
 
 
+    /**
+     * The documents are read lazily, in key order, a page at a time as the stream is consumed. Each page
+     * is a query for the keys that follow the last page so no cursor or transaction is held open between pages.
+     */
     @Override
     public Stream<KeyVal<String, BsonObject>> getDocuments( Predicate<KeyVal<String, BsonObject>> filter) {
-        CompletableFuture<Set<KeyVal<String, BsonObject>>> fut = CompletableFuture.supplyAsync( () -> {
-            Set<KeyVal<String, BsonObject>> resultSet = new HashSet<>();
+        return documentPages(JsonbFilter.NONE).filter(filter);
+    }
 
+    /**
+     * In jsonb mode the filter is applied to the doc column of each page as it is read, and the rows without
+     * a doc column are then read and filtered as they would be by getDocuments.
+     */
+    @Override
+    public Stream<KeyVal<String, BsonObject>> getDocumentsMatching(FieldFilter filter) {
+        final JsonbFilter jsonbFilter = jsonb ? JsonbFilter.compile(filter) : JsonbFilter.NONE;
+        if (jsonbFilter == JsonbFilter.NONE) return getDocuments(filter);
+        return Stream.concat(documentPages(jsonbFilter), documentPages(JsonbFilter.WITHOUT_DOC)).filter(filter);
+    }
+
+    /**
+     * The statements of unfiltered scans are kept, those of filtered scans are prepared for each page.
+     */
+    private Stream<KeyVal<String, BsonObject>> documentPages(final JsonbFilter jsonbFilter) {
+        final DocumentPages.PageReader pageReader = lastKey -> {
             try {
-                final String sql = "SELECT key, data FROM " + PostgresBinderStore.MEWBASE_BINDER_DATA_TABLE_NAME + " WHERE binder_id = ?";
-                try (final PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
-                    preparedStatement.setLong(1, id);
-
-                    try (final ResultSet dbrs = preparedStatement.executeQuery()) {
-                        while(dbrs.next()) {
-                            final String key = dbrs.getString("key");
-                            byte[] bytes = dbrs.getBytes("data");
-                            final BsonObject doc = BsonCodec.bsonBytesToBsonObject(bytes);
-                            KeyVal<String,BsonObject> kv = KeyVal.create(key, doc);
-                            if (filter.test(kv)) resultSet.add(kv);
-                        }
+                return pool.withConnection( connection -> {
+                    if (jsonbFilter == JsonbFilter.NONE) {
+                        return readPage(pool.prepared(connection, lastKey == null ? FIRST_PAGE_SQL : NEXT_PAGE_SQL), jsonbFilter, lastKey);
                     }
-                }
+                    final String sql = "SELECT key, data FROM " + PostgresBinderStore.MEWBASE_BINDER_DATA_TABLE_NAME +
+                            " WHERE binder_id = ?" + jsonbFilter.where() + (lastKey == null ? "" : " AND key > ?") + " ORDER BY key LIMIT ?";
+                    try (final PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+                        return readPage(preparedStatement, jsonbFilter, lastKey);
+                    }
+                });
             } catch (Exception ex) {
                 log.error("Postgres Binder failed to get documents", ex);
+                throw ex;
             }
-            return resultSet;
-        }, stexec);
-        return fut.join().stream();
+        };
+        return DocumentPages.stream(pageReader, scanExecutor(), () -> {});
+    }
+
+    private List<KeyVal<String, BsonObject>> readPage(final PreparedStatement preparedStatement,
+                                                      final JsonbFilter jsonbFilter,
+                                                      final String lastKey) throws SQLException {
+        final List<KeyVal<String, BsonObject>> page = new ArrayList<>(DocumentPages.PAGE_SIZE);
+        int param = 1;
+        preparedStatement.setLong(param++, id);
+        param = jsonbFilter.setParameters(preparedStatement, param);
+        if (lastKey != null) preparedStatement.setString(param++, lastKey);
+        preparedStatement.setInt(param, DocumentPages.PAGE_SIZE);
+
+        try (final ResultSet dbrs = preparedStatement.executeQuery()) {
+            while(dbrs.next()) {
+                final String key = dbrs.getString(1);
+                byte[] bytes = dbrs.getBytes(2);
+                page.add(KeyVal.create(key, BsonCodec.bsonBytesToLazyBsonObject(bytes)));
+            }
+        }
+        return page;
+    }
+
+    private SerialExecutor stexecFor(final String key) {
+        return stexecs[Math.floorMod(key.hashCode(), stexecs.length)];
+    }
+
+    /**
+     * With a single connection a scan is queued behind the work already submitted, as before, otherwise
+     * each scan reads its pages in order on an executor of its own.
+     */
+    private Executor scanExecutor() {
+        return stexecs.length == 1 ? stexecs[0] : ExecutionModel.instance().serial();
     }
 
 }
\ No newline at end of file
@@ -25,7 +25,8 @@ public class PostgresBinderStore implements BinderStore {
 
     protected final ConcurrentMap<String, Binder> binders = new ConcurrentHashMap<>();
 
-    private Connection connection;
+    private final PostgresConnectionPool pool;
+    private final boolean jsonb;
 
     public PostgresBinderStore() throws Exception {
         this(ConfigFactory.load(), DriverManager::getConnection);
@@ -40,9 +41,12 @@ public class PostgresBinderStore implements BinderStore {
         final String uri = cfg.getString("mewbase.binders.postgres.store.url");
         final String username = cfg.getString("mewbase.binders.postgres.store.username");
         final String password = cfg.getString("mewbase.binders.postgres.store.password");
+        jsonb = cfg.hasPath("mewbase.binders.postgres.store.jsonb") && cfg.getBoolean("mewbase.binders.postgres.store.jsonb");
 
-        connection = connectionBuilder.build(uri, username, password);
-        logger.info("Started postgress binder store with  " + uri);
+        final int poolSize = cfg.hasPath("mewbase.binders.postgres.store.pool.size") ?
+                cfg.getInt("mewbase.binders.postgres.store.pool.size") : 1;
+        pool = PostgresConnectionPool.create(poolSize, connectionBuilder, uri, username, password);
+        logger.info("Started postgress binder store with  " + uri + " and " + poolSize + " connections");
 
         listAllTables().forEach(this::open);
     }
@@ -50,7 +54,7 @@ public class PostgresBinderStore implements BinderStore {
 
     @Override
     public Binder open(String name) {
-        return binders.computeIfAbsent(name, key -> new PostgresBinder(connection, key));
+        return binders.computeIfAbsent(name, key -> new PostgresBinder(pool, key, jsonb));
     }
 
     @Override
@@ -69,6 +73,15 @@ public class PostgresBinderStore implements BinderStore {
     }
 
 
+    /**
+     * Other processes can write to the same database, so indexes held in memory would miss their writes
+     * and the binders are not indexed.
+     */
+    @Override
+    public boolean isSingleWriter() {
+        return false;
+    }
+
     @Override
     public Boolean delete(String name) {
         return null;
@@ -79,13 +92,16 @@ public class PostgresBinderStore implements BinderStore {
         Set<String> names = new HashSet<>();
         try {
             final String sql = "SELECT name FROM " + MEWBASE_BINDER_TABLE_NAME;
-            try (final Statement stmt = connection.createStatement()) {
-                try (ResultSet dbrs = stmt.executeQuery(sql)) {
-                    while (dbrs.next()) {
-                        names.add(dbrs.getString(1));
+            pool.withConnection( connection -> {
+                try (final Statement stmt = connection.createStatement()) {
+                    try (ResultSet dbrs = stmt.executeQuery(sql)) {
+                        while (dbrs.next()) {
+                            names.add(dbrs.getString(1));
+                        }
                     }
                 }
-            }
+                return names;
+            });
         } catch (Exception exp) {
             logger.error("Failed to find current binders list in postgres",exp);
         }
@@ -94,6 +110,6 @@ public class PostgresBinderStore implements BinderStore {
 
     @Override
     public void close() throws Exception {
-        connection.close();
+        pool.close();
     }
 }
@@ -0,0 +1,165 @@
+package io.mewbase.binders.impl.postgres;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+
+/**
+ * A fixed size pool of connections shared by all of the binders of a PostgresBinderStore.
+ *
+ * Work borrows a connection for as long as it runs, waiting while all of the connections are in use. A
+ * connection that is no longer valid after work on it has failed is replaced with a new one.
+ *
+ * The statements that are run over and over again, such as those of gets and puts, are prepared once for each
+ * connection and then kept by the pool. So the client neither builds nor parses them again and, once a statement
+ * has been run a few times, the driver has postgres keep the parsed and planned statement too.
+ *
+ * The pool size is configured by mewbase.binders.postgres.store.pool.size
+ */
+public final class PostgresConnectionPool implements AutoCloseable {
+
+    private final static Logger logger = LoggerFactory.getLogger(PostgresConnectionPool.class);
+
+    // the validity check of a connection after a failure, in seconds
+    private final static int VALID_TIMEOUT = 1;
+
+    @FunctionalInterface
+    public interface SqlWork<T> {
+        T apply(Connection connection) throws SQLException;
+    }
+
+    @FunctionalInterface
+    private interface ConnectionFactory {
+        Connection create() throws SQLException;
+    }
+
+    private final ConnectionFactory factory;
+    private final BlockingQueue<Connection> idle;
+    private final List<Connection> connections = new ArrayList<>();
+    // only used by the work that has borrowed the connection
+    private final Map<Connection, Map<String, PreparedStatement>> statements = new ConcurrentHashMap<>();
+    private final int size;
+
+    private volatile boolean closed = false;
+
+
+    private PostgresConnectionPool(final int size, final ConnectionFactory factory) throws SQLException {
+        this.size = size;
+        this.factory = factory;
+        this.idle = new ArrayBlockingQueue<>(size);
+        for (int i = 0; i < size; i++) {
+            final Connection connection = factory.create();
+            connections.add(connection);
+            idle.add(connection);
+        }
+    }
+
+    /**
+     * A pool of the given number of connections built by the connection builder.
+     */
+    public static PostgresConnectionPool create(final int size, final ConnectionBuilder builder,
+                                                final String uri, final String username, final String password) throws SQLException {
+        if (size < 1) throw new IllegalArgumentException("Please specify a pool size of at least 1");
+        return new PostgresConnectionPool(size, () -> builder.build(uri, username, password));
+    }
+
+    /**
+     * A pool of the single given connection, which is never replaced.
+     */
+    public static PostgresConnectionPool of(final Connection connection) {
+        try {
+            return new PostgresConnectionPool(1, () -> connection);
+        } catch (SQLException exp) {
+            throw new IllegalStateException(exp);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Run the work on a connection from the pool, waiting for one to be free if necessary.
+     */
+    public <T> T withConnection(final SqlWork<T> work) throws SQLException {
+        if (closed) throw new SQLException("Connection pool is closed");
+        final Connection connection;
+        try {
+            connection = idle.take();
+        } catch (InterruptedException exp) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted waiting for a connection", exp);
+        }
+        Connection returned = connection;
+        try {
+            return work.apply(connection);
+        } catch (SQLException | RuntimeException exp) {
+            returned = validOrReplaced(connection);
+            throw exp;
+        } finally {
+            idle.add(returned);
+        }
+    }
+
+    /**
+     * The statement for the sql prepared on a connection that the caller has borrowed, which is kept
+     * for as long as the connection so must not be closed by the caller.
+     */
+    public PreparedStatement prepared(final Connection connection, final String sql) throws SQLException {
+        final Map<String, PreparedStatement> prepared = statements.computeIfAbsent(connection, c -> new HashMap<>());
+        PreparedStatement statement = prepared.get(sql);
+        if (statement == null || statement.isClosed()) {
+            statement = connection.prepareStatement(sql);
+            prepared.put(sql, statement);
+        }
+        return statement;
+    }
+
+    private Connection validOrReplaced(final Connection connection) {
+        try {
+            if (closed || connection.isValid(VALID_TIMEOUT)) return connection;
+            final Connection replacement = factory.create();
+            if (replacement == connection) return connection;
+            logger.warn("Replaced a broken postgres connection");
+            synchronized (connections) {
+                connections.remove(connection);
+                connections.add(replacement);
+            }
+            statements.remove(connection);
+            closeQuietly(connection);
+            return replacement;
+        } catch (SQLException exp) {
+            logger.error("Failed to replace a broken postgres connection", exp);
+            return connection;
+        }
+    }
+
+    @Override
+    public void close() throws SQLException {
+        closed = true;
+        synchronized (connections) {
+            connections.forEach(PostgresConnectionPool::closeQuietly);
+        }
+        statements.clear();
+    }
+
+    private static void closeQuietly(final Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException exp) {
+            logger.warn("Failed to close postgres connection", exp);
+        }
+    }
+
+}
@@ -174,7 +174,8 @@ public class BsonArray implements Iterable<BsonValue> {
      * Get the Instant at position {@code pos} in the array.
      * <p>
      * JSON itself has no notion of a temporal types, so this method assumes there is a String value and
-     * it contains a ISOString encoded date, which it decodes if found and returns.
+     * it contains a ISOString encoded date, which it decodes if found and returns. A BSON UTC datetime is
+     * returned as it is.
      * <p>
      * This method should be used in conjunction with {@link #add(Instant)}
      *
@@ -183,12 +184,7 @@ public class BsonArray implements Iterable<BsonValue> {
      * @throws ClassCastException if the value cannot be converted to String
      */
     public Instant getInstant(int pos) {
-        final String val = getString(pos);
-        if (val == null) {
-            return null;
-        } else {
-            return Instant.from(ISO_INSTANT.parse(val));
-        }
+        return getBsonValue(pos).visit(ClassCastExceptionBsonValueVisitor.instantVisitor);
     }
 
     /**
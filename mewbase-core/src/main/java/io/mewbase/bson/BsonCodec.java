@@ -9,6 +9,7 @@ import de.undercouch.bson4jackson.BsonModule;
 import javax.json.*;
 import java.io.IOException;
 import java.io.StringReader;
+import java.nio.ByteBuffer;
 import java.util.function.Consumer;
 
 public class BsonCodec {
@@ -40,7 +41,7 @@ public class BsonCodec {
     }
 
     public static byte[] bsonArrayToBsonBytes(BsonArray bsonArray) {
-        return jsonArrayToBsonBytes(bsonArrayToJsonArray(bsonArray));
+        return BsonEncoder.encode(bsonArray);
     }
 
     public static byte[] jsonArrayToBsonBytes(JsonArray jsonArray) {
@@ -51,16 +52,44 @@ public class BsonCodec {
         }
     }
 
+    /*
+    The BsonObject and BsonArray <-> bytes conversions are streamed directly by the BsonEncoder
+    and BsonDecoder rather than going via a javax.json tree and Jackson.
+     */
     public static byte[] bsonObjectToBsonBytes(BsonObject bsonObject) {
-        return jsonObjectToBsonBytes(bsonObjectToJsonObject(bsonObject));
+        return BsonEncoder.encode(bsonObject);
     }
 
     public static BsonObject bsonBytesToBsonObject(byte[] bytes) {
-        return jsonObjectToBsonObject(bsonBytesToJsonObject(bytes));
+        return BsonDecoder.decodeObject(ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * Decode the document starting at the buffer's current position.
+     * The buffer's position and limit are left unchanged.
+     */
+    public static BsonObject bsonBytesToBsonObject(ByteBuffer buffer) {
+        return BsonDecoder.decodeObject(buffer);
+    }
+
+    /**
+     * Wrap the document in a read optimised view that only decodes the fields as they are read.
+     * The bytes must not be changed while the returned BsonObject is in use.
+     */
+    public static BsonObject bsonBytesToLazyBsonObject(byte[] bytes) {
+        return BsonDecoder.lazyObject(ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * As for bsonBytesToLazyBsonObject(byte[]) for the document starting at the buffer's current position.
+     * The buffer's position and limit are left unchanged.
+     */
+    public static BsonObject bsonBytesToLazyBsonObject(ByteBuffer buffer) {
+        return BsonDecoder.lazyObject(buffer);
     }
 
     public static BsonArray bsonBytesToBsonArray(byte[] bytes) {
-        return jsonArrayToBsonArray(bsonBytesToJsonArray(bytes));
+        return BsonDecoder.decodeArray(ByteBuffer.wrap(bytes));
     }
 
     public static JsonObject bsonBytesToJsonObject(byte[] bytes) {
@@ -147,6 +176,18 @@ public class BsonCodec {
             return null;
         }
 
+        @Override
+        public Void visit(BsonValue.LongBsonValue value) {
+            builder.add(value.getValue());
+            return null;
+        }
+
+        @Override
+        public Void visit(BsonValue.DoubleBsonValue value) {
+            builder.add(value.getValue());
+            return null;
+        }
+
         @Override
         public Void visit(BsonValue.BooleanBsonValue value) {
             builder.add(value.getValue());
@@ -189,6 +230,16 @@ public class BsonCodec {
             return fieldName -> builder.add(fieldName, value.getValue());
         }
 
+        @Override
+        public Consumer<String> visit(BsonValue.LongBsonValue value) {
+            return fieldName -> builder.add(fieldName, value.getValue());
+        }
+
+        @Override
+        public Consumer<String> visit(BsonValue.DoubleBsonValue value) {
+            return fieldName -> builder.add(fieldName, value.getValue());
+        }
+
         @Override
         public Consumer<String> visit(BsonValue.BooleanBsonValue value) {
             return fieldName -> builder.add(fieldName, value.getValue());
@@ -0,0 +1,309 @@
+package io.mewbase.bson;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads BSON bytes straight into BsonObjects and BsonArrays without building any intermediate
+ * (JSR-353 or Jackson) representation of the document.
+ *
+ * The source buffer is only read using absolute positions so its position and limit are never changed,
+ * and any bytes following the end of the top level document are ignored.
+ *
+ * Nested documents are either decoded in full or, when lazy, returned as LazyBsonObject views
+ * over their own bytes that are decoded only when they are read.
+ *
+ * Each instance decodes a single top level document and is not thread safe.
+ */
+final class BsonDecoder {
+
+    private final ByteBuffer buffer;
+    private final boolean lazy;
+    private int position = 0;
+
+    private BsonDecoder(ByteBuffer source, boolean lazy) {
+        // a slice means absolute index 0 is the start of the document whatever the source position
+        this.buffer = source.slice().order(ByteOrder.LITTLE_ENDIAN);
+        this.lazy = lazy;
+    }
+
+    static BsonObject decodeObject(ByteBuffer source) {
+        try {
+            return new BsonDecoder(source, false).readDocument();
+        } catch (IndexOutOfBoundsException exp) {
+            throw new IllegalArgumentException("Malformed BSON document", exp);
+        }
+    }
+
+    static BsonArray decodeArray(ByteBuffer source) {
+        try {
+            return new BsonDecoder(source, false).readArray();
+        } catch (IndexOutOfBoundsException exp) {
+            throw new IllegalArgumentException("Malformed BSON document", exp);
+        }
+    }
+
+    /**
+     * Frame the document at the position of the source without decoding any of its elements.
+     */
+    static LazyBsonObject lazyObject(ByteBuffer source) {
+        try {
+            final BsonDecoder decoder = new BsonDecoder(source, true);
+            final int end = decoder.readDocumentStart();
+            return new LazyBsonObject(decoder.slice(0, end + 1));
+        } catch (IndexOutOfBoundsException exp) {
+            throw new IllegalArgumentException("Malformed BSON document", exp);
+        }
+    }
+
+    /**
+     * Decode all the elements of a document previously framed by lazyObject.
+     */
+    static Map<String, BsonValue> lazyFields(ByteBuffer document) {
+        try {
+            return new BsonDecoder(document, true).readFields();
+        } catch (IndexOutOfBoundsException exp) {
+            throw new IllegalArgumentException("Malformed BSON document", exp);
+        }
+    }
+
+    /**
+     * Scan a document previously framed by lazyObject for a single element, skipping over
+     * the elements before it without decoding them.
+     *
+     * @return the value or null if the document has no element with that name
+     */
+    static BsonValue lazyValue(ByteBuffer document, String name) {
+        try {
+            return new BsonDecoder(document, true).findValue(name.getBytes(StandardCharsets.UTF_8));
+        } catch (IndexOutOfBoundsException exp) {
+            throw new IllegalArgumentException("Malformed BSON document", exp);
+        }
+    }
+
+
+    private BsonObject readDocument() {
+        if (lazy) {
+            final int length = buffer.getInt(position);
+            final LazyBsonObject document = lazyObject(slice(position, buffer.limit() - position));
+            position += length;
+            return document;
+        }
+        return new BsonObject(readFields());
+    }
+
+    private Map<String, BsonValue> readFields() {
+        final int end = readDocumentStart();
+        final Map<String, BsonValue> map = new LinkedHashMap<>();
+        while (position < end) {
+            final byte type = buffer.get(position++);
+            final String name = readCString(end);
+            map.put(name, readValue(type));
+        }
+        readDocumentEnd(end);
+        return map;
+    }
+
+    private BsonValue findValue(byte[] name) {
+        final int end = readDocumentStart();
+        while (position < end) {
+            final byte type = buffer.get(position++);
+            final boolean found = matchCString(name, end);
+            if (found) {
+                return readValue(type);
+            }
+            skipValue(type);
+        }
+        readDocumentEnd(end);
+        return null;
+    }
+
+    private BsonArray readArray() {
+        final int end = readDocumentStart();
+        final List<BsonValue> list = new ArrayList<>();
+        while (position < end) {
+            final byte type = buffer.get(position++);
+            skipCString(end); // element names are just the indexes
+            list.add(readValue(type));
+        }
+        readDocumentEnd(end);
+        return new BsonArray(list);
+    }
+
+    /**
+     * Check the length prefix of the document at the current position and return the
+     * index of its END_OF_DOCUMENT marker.
+     */
+    private int readDocumentStart() {
+        final int length = buffer.getInt(position);
+        if (length < BsonTypes.MIN_DOCUMENT_LENGTH || length > buffer.limit() - position) {
+            throw new IllegalArgumentException("Invalid BSON document length " + length + " at " + position);
+        }
+        final int end = position + length - 1;
+        if (buffer.get(end) != BsonTypes.END_OF_DOCUMENT) {
+            throw new IllegalArgumentException("BSON document at " + position + " is not terminated");
+        }
+        position += 4;
+        return end;
+    }
+
+    private void readDocumentEnd(int end) {
+        if (position != end) {
+            throw new IllegalArgumentException("BSON element overruns the end of its document at " + end);
+        }
+        position = end + 1;
+    }
+
+    private BsonValue readValue(byte type) {
+        switch (type) {
+            case BsonTypes.DOUBLE:
+                final double doubleValue = buffer.getDouble(position);
+                position += 8;
+                return BsonValue.of(doubleValue);
+            case BsonTypes.STRING:
+                return BsonValue.of(readString());
+            case BsonTypes.DOCUMENT:
+                return BsonValue.of(readDocument());
+            case BsonTypes.ARRAY:
+                return BsonValue.of(readArray());
+            case BsonTypes.BINARY:
+                // as for BsonObject.put(String, byte[]) binary is held as a Base64 String
+                final int binaryLength = buffer.getInt(position);
+                final byte[] binary = readBytes(position + 5, binaryLength); // skip length and subtype
+                position += 5 + binaryLength;
+                return BsonValue.of(Base64.getEncoder().encodeToString(binary));
+            case BsonTypes.BOOLEAN:
+                return BsonValue.of(buffer.get(position++) != BsonTypes.FALSE);
+            case BsonTypes.UTC_DATETIME:
+                final long epochMillis = buffer.getLong(position);
+                position += 8;
+                return BsonValue.of(Instant.ofEpochMilli(epochMillis));
+            case BsonTypes.NULL:
+                return BsonValue.nullValue();
+            case BsonTypes.INT32:
+                final int intValue = buffer.getInt(position);
+                position += 4;
+                return BsonValue.of((long) intValue);
+            case BsonTypes.INT64:
+                final long longValue = buffer.getLong(position);
+                position += 8;
+                return BsonValue.of(longValue);
+            default:
+                throw new IllegalArgumentException("Unsupported BSON element type " + type + " at " + (position - 1));
+        }
+    }
+
+    private void skipValue(byte type) {
+        switch (type) {
+            case BsonTypes.DOUBLE:
+            case BsonTypes.UTC_DATETIME:
+            case BsonTypes.INT64:
+                position += 8;
+                break;
+            case BsonTypes.STRING:
+                position += 4 + buffer.getInt(position);
+                break;
+            case BsonTypes.DOCUMENT:
+            case BsonTypes.ARRAY:
+                position += buffer.getInt(position);
+                break;
+            case BsonTypes.BINARY:
+                position += 5 + buffer.getInt(position);
+                break;
+            case BsonTypes.BOOLEAN:
+                position += 1;
+                break;
+            case BsonTypes.NULL:
+                break;
+            case BsonTypes.INT32:
+                position += 4;
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported BSON element type " + type + " at " + (position - 1));
+        }
+    }
+
+    private String readString() {
+        final int length = buffer.getInt(position);
+        if (length < 1 || buffer.get(position + 3 + length) != BsonTypes.END_OF_DOCUMENT) {
+            throw new IllegalArgumentException("Invalid BSON string at " + position);
+        }
+        final String value = readUtf8(position + 4, length - 1);
+        position += 4 + length;
+        return value;
+    }
+
+    private String readCString(int end) {
+        final int start = position;
+        skipCString(end);
+        return readUtf8(start, position - start - 1);
+    }
+
+    /**
+     * Compare the element name at the current position with the given UTF-8 bytes without
+     * decoding it to a String, leaving the position after the name either way.
+     */
+    private boolean matchCString(byte[] name, int end) {
+        final int start = position;
+        skipCString(end);
+        if (position - start - 1 != name.length) {
+            return false;
+        }
+        for (int index = 0; index < name.length; index++) {
+            if (buffer.get(start + index) != name[index]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void skipCString(int end) {
+        while (buffer.get(position) != BsonTypes.END_OF_DOCUMENT) {
+            if (++position >= end) {
+                throw new IllegalArgumentException("Unterminated BSON element name");
+            }
+        }
+        position++;
+    }
+
+    private String readUtf8(int index, int length) {
+        if (buffer.hasArray()) {
+            if (index < 0 || length < 0 || index + length > buffer.limit()) {
+                throw new IndexOutOfBoundsException();
+            }
+            return new String(buffer.array(), buffer.arrayOffset() + index, length, StandardCharsets.UTF_8);
+        } else {
+            return new String(readBytes(index, length), StandardCharsets.UTF_8);
+        }
+    }
+
+    private ByteBuffer slice(int index, int length) {
+        if (index < 0 || length < 0 || index + length > buffer.limit()) {
+            throw new IndexOutOfBoundsException();
+        }
+        final ByteBuffer slice = buffer.duplicate();
+        // between jdk 8 and 9 limit and position have been moved hence apparently redundant cast
+        ((java.nio.Buffer) slice).limit(index + length).position(index);
+        return slice.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private byte[] readBytes(int index, int length) {
+        if (length < 0 || index + length > buffer.limit()) {
+            throw new IndexOutOfBoundsException();
+        }
+        final byte[] bytes = new byte[length];
+        final ByteBuffer source = buffer.duplicate();
+        // between jdk 8 and 9 position has been moved hence apparently redundant cast
+        ((java.nio.Buffer) source).position(index);
+        source.get(bytes);
+        return bytes;
+    }
+
+}
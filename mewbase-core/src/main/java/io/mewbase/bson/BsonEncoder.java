@@ -0,0 +1,227 @@
+package io.mewbase.bson;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Map;
+
+import static java.time.format.DateTimeFormatter.ISO_INSTANT;
+
+/**
+ * Writes BsonObjects and BsonArrays straight to BSON bytes by visiting each value in turn,
+ * without building any intermediate (JSR-353 or Jackson) representation of the document.
+ *
+ * Each instance encodes a single top level document and is not thread safe.
+ */
+final class BsonEncoder implements BsonValue.Visitor<Void> {
+
+    private static final int INITIAL_CAPACITY = 256;
+    private static final int NANOS_PER_MILLI = 1_000_000;
+
+    private byte[] buffer;
+    private int position = 0;
+
+    // the name of the element currently being visited, written out with its type marker.
+    private String elementName;
+
+    private BsonEncoder(int initialCapacity) {
+        this.buffer = new byte[initialCapacity];
+    }
+
+    static byte[] encode(BsonObject document) {
+        final BsonEncoder encoder = new BsonEncoder(INITIAL_CAPACITY);
+        encoder.writeDocument(document);
+        return encoder.toByteArray();
+    }
+
+    /**
+     * BSON has no top level array so, as with Jackson, an array is written as a document whose
+     * element names are the array indexes.
+     */
+    static byte[] encode(BsonArray array) {
+        final BsonEncoder encoder = new BsonEncoder(INITIAL_CAPACITY);
+        encoder.writeArray(array);
+        return encoder.toByteArray();
+    }
+
+
+    @Override
+    public Void visit(BsonValue.NullBsonValue nullValue) {
+        writeElementHeader(BsonTypes.NULL);
+        return null;
+    }
+
+    @Override
+    public Void visit(BsonValue.StringBsonValue value) {
+        writeElementHeader(BsonTypes.STRING);
+        writeString(value.getValue());
+        return null;
+    }
+
+    @Override
+    public Void visit(BsonValue.BigDecimalBsonValue value) {
+        final BigDecimal number = value.getValue();
+        // integral values that fit are written as int64 otherwise fall back to a double
+        if (number.scale() == 0 && number.unscaledValue().bitLength() < Long.SIZE) {
+            writeElementHeader(BsonTypes.INT64);
+            writeInt64(number.longValue());
+        } else {
+            writeElementHeader(BsonTypes.DOUBLE);
+            writeInt64(Double.doubleToRawLongBits(number.doubleValue()));
+        }
+        return null;
+    }
+
+    @Override
+    public Void visit(BsonValue.LongBsonValue value) {
+        writeElementHeader(BsonTypes.INT64);
+        writeInt64(value.getValue());
+        return null;
+    }
+
+    @Override
+    public Void visit(BsonValue.DoubleBsonValue value) {
+        writeElementHeader(BsonTypes.DOUBLE);
+        writeInt64(Double.doubleToRawLongBits(value.getValue()));
+        return null;
+    }
+
+    @Override
+    public Void visit(BsonValue.InstantBsonValue value) {
+        final Instant instant = value.getValue();
+        // a UTC datetime only holds milliseconds so anything more precise is kept as an ISO String
+        if (instant.getNano() % NANOS_PER_MILLI == 0) {
+            writeElementHeader(BsonTypes.UTC_DATETIME);
+            writeInt64(instant.toEpochMilli());
+        } else {
+            writeElementHeader(BsonTypes.STRING);
+            writeString(ISO_INSTANT.format(instant));
+        }
+        return null;
+    }
+
+    @Override
+    public Void visit(BsonValue.BooleanBsonValue value) {
+        writeElementHeader(BsonTypes.BOOLEAN);
+        writeByte(value.getValue() ? BsonTypes.TRUE : BsonTypes.FALSE);
+        return null;
+    }
+
+    @Override
+    public Void visit(BsonValue.BsonObjectBsonValue value) {
+        writeElementHeader(BsonTypes.DOCUMENT);
+        writeDocument(value.getValue());
+        return null;
+    }
+
+    @Override
+    public Void visit(BsonValue.BsonArrayBsonValue value) {
+        writeElementHeader(BsonTypes.ARRAY);
+        writeArray(value.getValue());
+        return null;
+    }
+
+
+    private void writeDocument(BsonObject document) {
+        if (document instanceof LazyBsonObject) {
+            // an unchanged view can be written straight back out as it was read
+            final ByteBuffer encoded = ((LazyBsonObject) document).encodedBytes();
+            if (encoded != null) {
+                writeBytes(encoded);
+                return;
+            }
+        }
+        final int start = reserveLength();
+        for (Map.Entry<String, BsonValue> entry : document) {
+            elementName = entry.getKey();
+            entry.getValue().visit(this);
+        }
+        writeByte(BsonTypes.END_OF_DOCUMENT);
+        writeLengthAt(start);
+    }
+
+    private void writeArray(BsonArray array) {
+        final int start = reserveLength();
+        int index = 0;
+        for (BsonValue value : array) {
+            elementName = Integer.toString(index++);
+            value.visit(this);
+        }
+        writeByte(BsonTypes.END_OF_DOCUMENT);
+        writeLengthAt(start);
+    }
+
+    private void writeElementHeader(byte type) {
+        writeByte(type);
+        writeBytes(elementName.getBytes(StandardCharsets.UTF_8));
+        writeByte(BsonTypes.END_OF_DOCUMENT);
+    }
+
+    private void writeString(String value) {
+        final byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        writeInt32(utf8.length + 1);
+        writeBytes(utf8);
+        writeByte(BsonTypes.END_OF_DOCUMENT);
+    }
+
+    private int reserveLength() {
+        final int start = position;
+        writeInt32(0);
+        return start;
+    }
+
+    private void writeLengthAt(int start) {
+        final int end = position;
+        position = start;
+        writeInt32(end - start);
+        position = end;
+    }
+
+    private void writeByte(byte value) {
+        ensureCapacity(1);
+        buffer[position++] = value;
+    }
+
+    private void writeBytes(byte[] values) {
+        ensureCapacity(values.length);
+        System.arraycopy(values, 0, buffer, position, values.length);
+        position += values.length;
+    }
+
+    private void writeBytes(ByteBuffer values) {
+        final int length = values.remaining();
+        ensureCapacity(length);
+        values.get(buffer, position, length);
+        position += length;
+    }
+
+    // BSON is little endian throughout
+    private void writeInt32(int value) {
+        ensureCapacity(4);
+        buffer[position++] = (byte) value;
+        buffer[position++] = (byte) (value >>> 8);
+        buffer[position++] = (byte) (value >>> 16);
+        buffer[position++] = (byte) (value >>> 24);
+    }
+
+    private void writeInt64(long value) {
+        ensureCapacity(8);
+        for (int shift = 0; shift < Long.SIZE; shift += 8) {
+            buffer[position++] = (byte) (value >>> shift);
+        }
+    }
+
+    private void ensureCapacity(int extra) {
+        final int required = position + extra;
+        if (required > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(required, buffer.length << 1));
+        }
+    }
+
+    private byte[] toByteArray() {
+        return Arrays.copyOf(buffer, position);
+    }
+
+}
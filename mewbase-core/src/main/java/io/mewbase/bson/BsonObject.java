@@ -62,16 +62,16 @@ public class BsonObject implements Iterable<Map.Entry<String, BsonValue>> {
     }
 
     public boolean isNull(String key) {
-        return map.get(key).isNull();
+        return getMap().get(key).isNull();
     }
 
     public boolean isAbsent(String key) {
-        return !map.containsKey(key);
+        return !getMap().containsKey(key);
     }
 
     public BsonValue getBsonValue(String key) {
         Objects.requireNonNull(key);
-        final BsonValue result = map.get(key);
+        final BsonValue result = getMap().get(key);
         return result == null ? BsonValue.nullValue() : result;
     }
 
@@ -186,6 +186,7 @@ public class BsonObject implements Iterable<Map.Entry<String, BsonValue>> {
      * <p>
      * JSON itself has no notion of a date, this extension complies to the RFC-7493, so this method assumes there is a
      * String value with the key and it contains a ISODATE encoded date, which it decodes if found and returns.
+     * A BSON UTC datetime is returned as it is.
      * <p>
      * This method should be used in conjunction with {@link #put(String, Instant)}
      *
@@ -195,13 +196,12 @@ public class BsonObject implements Iterable<Map.Entry<String, BsonValue>> {
      * @throws IllegalArgumentException if the String value is not a legal Base64 encoded value
      */
     public Instant getInstant(String key) {
-        final String encoded = getString(key);
-        return encoded == null ? null : Instant.from(ISO_INSTANT.parse(encoded));
+        return getBsonValue(key).visit(ClassCastExceptionBsonValueVisitor.instantVisitor);
     }
 
     private <T> T getOrDefault(String key, Function<String, T> supplier, T def) {
         Objects.requireNonNull(key);
-        if (map.containsKey(key))
+        if (containsKey(key))
             return supplier.apply(key);
         else
             return def;
@@ -325,7 +325,7 @@ public class BsonObject implements Iterable<Map.Entry<String, BsonValue>> {
      */
     public boolean containsKey(String key) {
         Objects.requireNonNull(key);
-        return map.containsKey(key);
+        return getMap().containsKey(key);
     }
 
     /**
@@ -334,7 +334,7 @@ public class BsonObject implements Iterable<Map.Entry<String, BsonValue>> {
      * @return the set of field names
      */
     public Set<String> fieldNames() {
-        return map.keySet();
+        return getMap().keySet();
     }
 
     /**
@@ -350,13 +350,13 @@ public class BsonObject implements Iterable<Map.Entry<String, BsonValue>> {
     public BsonObject put(String key, Enum value) {
         Objects.requireNonNull(key);
         final String string = value == null ? null : value.name();
-        map.put(key, BsonValue.of(string));
+        getMap().put(key, BsonValue.of(string));
         return this;
     }
 
     public BsonObject put(String key, BsonValue value) {
         Objects.requireNonNull(key);
-        map.put(key, value);
+        getMap().put(key, value);
         return this;
     }
 
@@ -371,7 +371,7 @@ public class BsonObject implements Iterable<Map.Entry<String, BsonValue>> {
 
         Objects.requireNonNull(key);
         final String string = value == null ? null : value.toString();
-        map.put(key, BsonValue.of(string));
+        getMap().put(key, BsonValue.of(string));
         return this;
     }
 
@@ -384,7 +384,7 @@ public class BsonObject implements Iterable<Map.Entry<String, BsonValue>> {
      */
     public BsonObject put(String key, String value) {
         Objects.requireNonNull(key);
-        map.put(key, BsonValue.of(value));
+        getMap().put(key, BsonValue.of(value));
         return this;
     }
 
@@ -397,7 +397,7 @@ public class BsonObject implements Iterable<Map.Entry<String, BsonValue>> {
      */
     public BsonObject put(String key, Integer value) {
         Objects.requireNonNull(key);
-        map.put(key, BsonValue.of(value));
+        getMap().put(key, BsonValue.of(value));
         return this;
     }
 
@@ -410,7 +410,7 @@ public class BsonObject implements Iterable<Map.Entry<String, BsonValue>> {
      */
     public BsonObject put(String key, Long value) {
         Objects.requireNonNull(key);
-        map.put(key, BsonValue.of(value));
+        getMap().put(key, BsonValue.of(value));
         return this;
     }
 
@@ -423,7 +423,7 @@ public class BsonObject implements Iterable<Map.Entry<String, BsonValue>> {
      */
     public BsonObject put(String key, Double value) {
         Objects.requireNonNull(key);
-        map.put(key, BsonValue.of(value));
+        getMap().put(key, BsonValue.of(value));
         return this;
     }
 
@@ -436,7 +436,7 @@ public class BsonObject implements Iterable<Map.Entry<String, BsonValue>> {
      */
     public BsonObject put(String key, Float value) {
         Objects.requireNonNull(key);
-        map.put(key, BsonValue.of(value));
+        getMap().put(key, BsonValue.of(value));
         return this;
     }
 
@@ -449,7 +449,7 @@ public class BsonObject implements Iterable<Map.Entry<String, BsonValue>> {
      */
     public BsonObject put(String key, Boolean value) {
         Objects.requireNonNull(key);
-        map.put(key, BsonValue.of(value));
+        getMap().put(key, BsonValue.of(value));
         return this;
     }
 
@@ -461,7 +461,7 @@ public class BsonObject implements Iterable<Map.Entry<String, BsonValue>> {
      */
     public BsonObject putNull(String key) {
         Objects.requireNonNull(key);
-        map.put(key, BsonValue.nullValue());
+        getMap().put(key, BsonValue.nullValue());
         return this;
     }
 
@@ -474,7 +474,7 @@ public class BsonObject implements Iterable<Map.Entry<String, BsonValue>> {
      */
     public BsonObject put(String key, BsonObject value) {
         Objects.requireNonNull(key);
-        map.put(key, BsonValue.of(value));
+        getMap().put(key, BsonValue.of(value));
         return this;
     }
 
@@ -487,7 +487,7 @@ public class BsonObject implements Iterable<Map.Entry<String, BsonValue>> {
      */
     public BsonObject put(String key, BsonArray value) {
         Objects.requireNonNull(key);
-        map.put(key, BsonValue.of(value));
+        getMap().put(key, BsonValue.of(value));
         return this;
     }
 
@@ -503,7 +503,7 @@ public class BsonObject implements Iterable<Map.Entry<String, BsonValue>> {
     public BsonObject put(String key, byte[] value) {
         Objects.requireNonNull(key);
         final String string = value == null ? null : Base64.getEncoder().encodeToString(value);
-        map.put(key, BsonValue.of(string));
+        getMap().put(key, BsonValue.of(string));
         return this;
     }
 
@@ -519,7 +519,7 @@ public class BsonObject implements Iterable<Map.Entry<String, BsonValue>> {
     public BsonObject put(String key, Instant value) {
         Objects.requireNonNull(key);
         final String string = value == null ? null : ISO_INSTANT.format(value);
-        map.put(key, BsonValue.of(string));
+        getMap().put(key, BsonValue.of(string));
         return this;
     }
 
@@ -530,7 +530,7 @@ public class BsonObject implements Iterable<Map.Entry<String, BsonValue>> {
      * @return the value that was removed, or null if none
      */
     public BsonValue remove(String key) {
-        return map.remove(key);
+        return getMap().remove(key);
     }
 
     /**
@@ -542,7 +542,7 @@ public class BsonObject implements Iterable<Map.Entry<String, BsonValue>> {
      * @return a reference to this, so the API can be used fluently
      */
     public BsonObject mergeIn(BsonObject other) {
-        map.putAll(other.map);
+        getMap().putAll(other.getMap());
         return this;
     }
 
@@ -552,8 +552,8 @@ public class BsonObject implements Iterable<Map.Entry<String, BsonValue>> {
      * @return a copy of the object
      */
     public BsonObject copy() {
-        Map<String, BsonValue> copiedMap = new HashMap<>(map.size());
-        for (Map.Entry<String, BsonValue> entry : map.entrySet()) {
+        Map<String, BsonValue> copiedMap = new HashMap<>(getMap().size());
+        for (Map.Entry<String, BsonValue> entry : getMap().entrySet()) {
             copiedMap.put(entry.getKey(), entry.getValue().copy());
         }
         return new BsonObject(copiedMap);
@@ -561,6 +561,9 @@ public class BsonObject implements Iterable<Map.Entry<String, BsonValue>> {
 
     /**
      * Get the underlying Map.
+     * <p>
+     * All access to the entries goes through here so that a subclass, such as the LazyBsonObject,
+     * can defer building the Map until it is actually needed.
      *
      * @return the underlying Map.
      */
@@ -591,7 +594,7 @@ public class BsonObject implements Iterable<Map.Entry<String, BsonValue>> {
      */
     @Override
     public Iterator<Map.Entry<String, BsonValue>> iterator() {
-        return map.entrySet().iterator();
+        return getMap().entrySet().iterator();
     }
 
     /**
@@ -600,14 +603,14 @@ public class BsonObject implements Iterable<Map.Entry<String, BsonValue>> {
      * @return the number of entries
      */
     public int size() {
-        return map.size();
+        return getMap().size();
     }
 
     /**
      * Remove all the entries in this JSON object
      */
     public BsonObject clear() {
-        map.clear();
+        getMap().clear();
         return this;
     }
 
@@ -623,7 +626,7 @@ public class BsonObject implements Iterable<Map.Entry<String, BsonValue>> {
         stringBuilder.append("BsonObject{");
 
         final List<String> elements = new ArrayList<>();
-        for (Map.Entry<String, BsonValue> entry : map.entrySet()) {
+        for (Map.Entry<String, BsonValue> entry : getMap().entrySet()) {
             elements.add(entry.getKey() + ": " + entry.getValue().toString());
         }
 
@@ -639,20 +642,20 @@ public class BsonObject implements Iterable<Map.Entry<String, BsonValue>> {
      * @return true if it has zero entries, false if not.
      */
     public boolean isEmpty() {
-        return map.isEmpty();
+        return getMap().isEmpty();
     }
 
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
+        if (!(o instanceof BsonObject)) return false;
         BsonObject entries = (BsonObject) o;
-        return Objects.equals(map, entries.map);
+        return Objects.equals(getMap(), entries.getMap());
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(map);
+        return Objects.hash(getMap());
     }
 
 }
@@ -0,0 +1,28 @@
+package io.mewbase.bson;
+
+/**
+ * Element type markers and framing constants from the BSON specification (http://bsonspec.org/spec.html)
+ * that are understood by the BsonEncoder and BsonDecoder.
+ */
+interface BsonTypes {
+
+    byte END_OF_DOCUMENT = 0x00;
+
+    byte DOUBLE = 0x01;
+    byte STRING = 0x02;
+    byte DOCUMENT = 0x03;
+    byte ARRAY = 0x04;
+    byte BINARY = 0x05;
+    byte BOOLEAN = 0x08;
+    byte UTC_DATETIME = 0x09;
+    byte NULL = 0x0A;
+    byte INT32 = 0x10;
+    byte INT64 = 0x12;
+
+    byte FALSE = 0x00;
+    byte TRUE = 0x01;
+
+    // int32 length prefix plus the trailing END_OF_DOCUMENT
+    int MIN_DOCUMENT_LENGTH = 5;
+
+}
@@ -1,11 +1,14 @@
 package io.mewbase.bson;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.function.Function;
 
+import static java.time.format.DateTimeFormatter.ISO_INSTANT;
+
 public abstract class BsonValue {
 
     private BsonValue() {
@@ -19,6 +22,22 @@ public abstract class BsonValue {
         Res visit(BooleanBsonValue value);
         Res visit(BsonObjectBsonValue value);
         Res visit(BsonArrayBsonValue value);
+
+        /*
+        The primitive numeric and Instant values are visited as their BigDecimal and ISO String
+        equivalents unless a visitor chooses to handle them directly.
+         */
+        default Res visit(LongBsonValue value) {
+            return visit(value.toBigDecimalBsonValue());
+        }
+
+        default Res visit(DoubleBsonValue value) {
+            return visit(value.toBigDecimalBsonValue());
+        }
+
+        default Res visit(InstantBsonValue value) {
+            return visit(value.toStringBsonValue());
+        }
     }
 
     public abstract <Res> Res visit(Visitor<Res> res);
@@ -41,8 +60,8 @@ public abstract class BsonValue {
         return fromNullable(string, StringBsonValue::new);
     }
 
-    public static BigDecimalBsonValue of(long value) {
-        return new BigDecimalBsonValue(new BigDecimal(value));
+    public static LongBsonValue of(long value) {
+        return new LongBsonValue(value);
     }
 
     public static BsonValue of(java.lang.Integer value) {
@@ -57,14 +76,22 @@ public abstract class BsonValue {
         return fromNullable(value, f -> of(f.doubleValue()));
     }
 
-    public static BigDecimalBsonValue of(double value) {
-        return new BigDecimalBsonValue(new BigDecimal(value));
+    public static DoubleBsonValue of(double value) {
+        return new DoubleBsonValue(value);
     }
 
     public static BsonValue of(Double value) {
         return fromNullable(value, d -> of(d.doubleValue()));
     }
 
+    public static BsonValue of(BigDecimal value) {
+        return fromNullable(value, BigDecimalBsonValue::new);
+    }
+
+    public static BsonValue of(Instant value) {
+        return fromNullable(value, InstantBsonValue::new);
+    }
+
     public static BooleanBsonValue of(boolean value) {
         return BooleanBsonValue.from(value);
     }
@@ -89,7 +116,154 @@ public abstract class BsonValue {
         return of(new BsonArray(value));
     }
 
-    public static final class BigDecimalBsonValue extends BsonValue {
+    /**
+     * The numeric values are equal whenever they represent the same number, whichever their type,
+     * and hash consistently with that so that, for example, 4, 4L and 4.0D are interchangeable.
+     */
+    public static abstract class NumberBsonValue extends BsonValue {
+
+        private NumberBsonValue() {
+        }
+
+        @Override
+        public BsonValue copy() {
+            return this; // immutable
+        }
+
+        @Override
+        public boolean isNull() {
+            return false;
+        }
+
+        abstract BigDecimal toBigDecimal();
+
+        abstract boolean isFinite();
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof NumberBsonValue)) return false;
+            NumberBsonValue that = (NumberBsonValue) o;
+            if (!isFinite() || !that.isFinite()) return false;
+            return toBigDecimal().compareTo(that.toBigDecimal()) == 0;
+        }
+
+        static int hashOf(long value) {
+            return Long.hashCode(value);
+        }
+
+        static int hashOf(double value) {
+            // integral doubles hash as the equivalent long
+            if (value == Math.rint(value) && value >= Long.MIN_VALUE && value < Long.MAX_VALUE)
+                return hashOf((long) value);
+            return Double.hashCode(value);
+        }
+    }
+
+    public static final class LongBsonValue extends NumberBsonValue {
+
+        private final long value;
+
+        private LongBsonValue(long value) {
+            this.value = value;
+        }
+
+        @Override
+        public <Res> Res visit(Visitor<Res> res) {
+            return res.visit(this);
+        }
+
+        public long getValue() {
+            return value;
+        }
+
+        BigDecimalBsonValue toBigDecimalBsonValue() {
+            return new BigDecimalBsonValue(toBigDecimal());
+        }
+
+        @Override
+        BigDecimal toBigDecimal() {
+            return BigDecimal.valueOf(value);
+        }
+
+        @Override
+        boolean isFinite() {
+            return true;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (o instanceof LongBsonValue) return value == ((LongBsonValue) o).value;
+            return super.equals(o);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashOf(value);
+        }
+
+        @Override
+        public String toString() {
+            return "LongBsonValue{" +
+                    "value=" + value +
+                    '}';
+        }
+    }
+
+    public static final class DoubleBsonValue extends NumberBsonValue {
+
+        private final double value;
+
+        private DoubleBsonValue(double value) {
+            this.value = value;
+        }
+
+        @Override
+        public <Res> Res visit(Visitor<Res> res) {
+            return res.visit(this);
+        }
+
+        public double getValue() {
+            return value;
+        }
+
+        BigDecimalBsonValue toBigDecimalBsonValue() {
+            return new BigDecimalBsonValue(toBigDecimal());
+        }
+
+        @Override
+        BigDecimal toBigDecimal() {
+            return new BigDecimal(value);
+        }
+
+        @Override
+        boolean isFinite() {
+            return !Double.isNaN(value) && !Double.isInfinite(value);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (o instanceof DoubleBsonValue) {
+                final double other = ((DoubleBsonValue) o).value;
+                return value == other || (Double.isNaN(value) && Double.isNaN(other));
+            }
+            return super.equals(o);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashOf(value);
+        }
+
+        @Override
+        public String toString() {
+            return "DoubleBsonValue{" +
+                    "value=" + value +
+                    '}';
+        }
+    }
+
+    public static final class BigDecimalBsonValue extends NumberBsonValue {
 
         private final BigDecimal value;
 
@@ -102,6 +276,49 @@ public abstract class BsonValue {
             return res.visit(this);
         }
 
+        public BigDecimal getValue() {
+            return value;
+        }
+
+        @Override
+        BigDecimal toBigDecimal() {
+            return value;
+        }
+
+        @Override
+        boolean isFinite() {
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            final boolean integral = value.signum() == 0 || value.stripTrailingZeros().scale() <= 0;
+            if (integral && value.toBigInteger().bitLength() < Long.SIZE)
+                return hashOf(value.longValue());
+            return hashOf(value.doubleValue());
+        }
+
+        @Override
+        public String toString() {
+            return "BigDecimalBsonValue{" +
+                    "value=" + value +
+                    '}';
+        }
+    }
+
+    public static final class InstantBsonValue extends BsonValue {
+
+        private final Instant value;
+
+        private InstantBsonValue(Instant value) {
+            this.value = value;
+        }
+
+        @Override
+        public <Res> Res visit(Visitor<Res> res) {
+            return res.visit(this);
+        }
+
         @Override
         public BsonValue copy() {
             return this; // immutable
@@ -112,15 +329,19 @@ public abstract class BsonValue {
             return false;
         }
 
-        public BigDecimal getValue() {
+        public Instant getValue() {
             return value;
         }
 
+        StringBsonValue toStringBsonValue() {
+            return new StringBsonValue(ISO_INSTANT.format(value));
+        }
+
         @Override
         public boolean equals(Object o) {
             if (this == o) return true;
             if (o == null || getClass() != o.getClass()) return false;
-            BigDecimalBsonValue that = (BigDecimalBsonValue) o;
+            InstantBsonValue that = (InstantBsonValue) o;
             return Objects.equals(value, that.value);
         }
 
@@ -131,7 +352,7 @@ public abstract class BsonValue {
 
         @Override
         public String toString() {
-            return "BigDecimalBsonValue{" +
+            return "InstantBsonValue{" +
                     "value=" + value +
                     '}';
         }
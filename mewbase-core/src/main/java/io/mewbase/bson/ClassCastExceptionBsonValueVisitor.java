@@ -1,5 +1,9 @@
 package io.mewbase.bson;
 
+import java.time.Instant;
+
+import static java.time.format.DateTimeFormatter.ISO_INSTANT;
+
 abstract class ClassCastExceptionBsonValueVisitor<T> implements BsonValue.Visitor<T> {
     /*
     These visitors throw a ClassCastException when applied to a BsonValue type they
@@ -10,9 +14,36 @@ abstract class ClassCastExceptionBsonValueVisitor<T> implements BsonValue.Visito
         public String visit(BsonValue.StringBsonValue value) {
             return value.getValue();
         }
+
+        @Override
+        public String visit(BsonValue.InstantBsonValue value) {
+            return ISO_INSTANT.format(value.getValue());
+        }
+    };
+
+    static final BsonValue.Visitor<Instant> instantVisitor = new ClassCastExceptionBsonValueVisitor<Instant>() {
+        @Override
+        public Instant visit(BsonValue.StringBsonValue value) {
+            return Instant.from(ISO_INSTANT.parse(value.getValue()));
+        }
+
+        @Override
+        public Instant visit(BsonValue.InstantBsonValue value) {
+            return value.getValue();
+        }
     };
 
     static final BsonValue.Visitor<Integer> integerVisitor = new ClassCastExceptionBsonValueVisitor<Integer>() {
+        @Override
+        public Integer visit(BsonValue.LongBsonValue value) {
+            return (int) value.getValue();
+        }
+
+        @Override
+        public Integer visit(BsonValue.DoubleBsonValue value) {
+            return (int) (long) value.getValue();
+        }
+
         @Override
         public Integer visit(BsonValue.BigDecimalBsonValue value) {
             return value.getValue().intValue();
@@ -20,6 +51,16 @@ abstract class ClassCastExceptionBsonValueVisitor<T> implements BsonValue.Visito
     };
 
     static final BsonValue.Visitor<Long> longVisitor = new ClassCastExceptionBsonValueVisitor<Long>() {
+        @Override
+        public Long visit(BsonValue.LongBsonValue value) {
+            return value.getValue();
+        }
+
+        @Override
+        public Long visit(BsonValue.DoubleBsonValue value) {
+            return (long) value.getValue();
+        }
+
         @Override
         public Long visit(BsonValue.BigDecimalBsonValue value) {
             return value.getValue().longValue();
@@ -27,6 +68,16 @@ abstract class ClassCastExceptionBsonValueVisitor<T> implements BsonValue.Visito
     };
 
     static final BsonValue.Visitor<Double> doubleVisitor = new ClassCastExceptionBsonValueVisitor<Double>() {
+        @Override
+        public Double visit(BsonValue.LongBsonValue value) {
+            return (double) value.getValue();
+        }
+
+        @Override
+        public Double visit(BsonValue.DoubleBsonValue value) {
+            return value.getValue();
+        }
+
         @Override
         public Double visit(BsonValue.BigDecimalBsonValue value) {
             return value.getValue().doubleValue();
@@ -34,6 +85,16 @@ abstract class ClassCastExceptionBsonValueVisitor<T> implements BsonValue.Visito
     };
 
     static final BsonValue.Visitor<Float> floatVisitor = new ClassCastExceptionBsonValueVisitor<Float>() {
+        @Override
+        public Float visit(BsonValue.LongBsonValue value) {
+            return (float) value.getValue();
+        }
+
+        @Override
+        public Float visit(BsonValue.DoubleBsonValue value) {
+            return (float) value.getValue();
+        }
+
         @Override
         public Float visit(BsonValue.BigDecimalBsonValue value) {
             return value.getValue().floatValue();
@@ -91,6 +152,21 @@ abstract class ClassCastExceptionBsonValueVisitor<T> implements BsonValue.Visito
         throw unexpected(value);
     }
 
+    @Override
+    public T visit(BsonValue.LongBsonValue value) {
+        throw unexpected(value);
+    }
+
+    @Override
+    public T visit(BsonValue.DoubleBsonValue value) {
+        throw unexpected(value);
+    }
+
+    @Override
+    public T visit(BsonValue.InstantBsonValue value) {
+        throw unexpected(value);
+    }
+
     private ClassCastException unexpected(BsonValue bsonValue) {
         return new ClassCastException("Unexpected " + bsonValue.getClass().getSimpleName());
     }
@@ -0,0 +1,111 @@
+package io.mewbase.bson;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A BsonObject that is a view over the BSON encoded bytes of a document.
+ * <p>
+ * Reading a single field scans the bytes for that field alone, skipping over the others, so a
+ * filter that only looks at one or two fields never pays for decoding the whole document.
+ * The full Map of entries is only decoded when it is needed, for example by a put, an iteration
+ * or an equality check, after which this behaves exactly as any other BsonObject.
+ * <p>
+ * The bytes must not be changed for the lifetime of the view.
+ * <p>
+ * A view may be read from several threads at once, as happens when one event is handed to many
+ * subscriptions. The lazy state is guarded by the view itself and the full Map is decoded only
+ * once and safely published. Changing a view is no more thread safe than changing any other
+ * BsonObject.
+ */
+final class LazyBsonObject extends BsonObject {
+
+    // the encoded document, which is no longer read once the entries have been decoded into the map
+    private final ByteBuffer bytes;
+
+    // nested objects and arrays handed out before decoding, so any changes made to them are kept
+    private Map<String, BsonValue> containers = null;
+
+    // null until the entries have been decoded, and never changed back
+    private volatile Map<String, BsonValue> map = null;
+
+    LazyBsonObject(ByteBuffer bytes) {
+        super(null);
+        this.bytes = bytes;
+    }
+
+    @Override
+    public boolean isNull(String key) {
+        if (map != null) return super.isNull(key);
+        return lookup(key).isNull();
+    }
+
+    @Override
+    public boolean isAbsent(String key) {
+        return !containsKey(key);
+    }
+
+    @Override
+    public BsonValue getBsonValue(String key) {
+        Objects.requireNonNull(key);
+        if (map != null) return super.getBsonValue(key);
+        final BsonValue result = lookup(key);
+        return result == null ? BsonValue.nullValue() : result;
+    }
+
+    @Override
+    public boolean containsKey(String key) {
+        Objects.requireNonNull(key);
+        if (map != null) return super.containsKey(key);
+        return lookup(key) != null;
+    }
+
+    @Override
+    public BsonObject copy() {
+        // the bytes are never changed so an untouched view can share them
+        final ByteBuffer encoded = encodedBytes();
+        return encoded == null ? super.copy() : new LazyBsonObject(encoded);
+    }
+
+    @Override
+    Map<String, BsonValue> getMap() {
+        final Map<String, BsonValue> decoded = map;
+        return decoded != null ? decoded : decode();
+    }
+
+    /**
+     * The encoded bytes of this document, provided that they still represent it.
+     *
+     * @return the bytes or null if the document may have been changed since it was read.
+     */
+    synchronized ByteBuffer encodedBytes() {
+        return (map != null || containers != null) ? null : bytes.duplicate();
+    }
+
+    private synchronized Map<String, BsonValue> decode() {
+        if (map == null) {
+            final Map<String, BsonValue> decoded = BsonDecoder.lazyFields(bytes);
+            if (containers != null) decoded.putAll(containers);
+            containers = null;
+            map = decoded;
+        }
+        return map;
+    }
+
+    private synchronized BsonValue lookup(String key) {
+        // another thread may have decoded the entries since the caller looked
+        if (map != null) return map.get(key);
+        if (containers != null && containers.containsKey(key)) {
+            return containers.get(key);
+        }
+        final BsonValue value = BsonDecoder.lazyValue(bytes, key);
+        if (value instanceof BsonValue.BsonObjectBsonValue || value instanceof BsonValue.BsonArrayBsonValue) {
+            if (containers == null) containers = new HashMap<>();
+            containers.put(key, value);
+        }
+        return value;
+    }
+
+}
@@ -1,10 +1,13 @@
 package io.mewbase.cqrs;
 
+import io.mewbase.binders.FieldFilter;
 import io.mewbase.binders.KeyVal;
 import io.mewbase.bson.BsonObject;
+import io.mewbase.bson.BsonValue;
 
 
 import java.util.function.BiPredicate;
+import java.util.function.Function;
 
 
 
@@ -19,5 +22,33 @@ public interface QueryBuilder {
 
     QueryBuilder filteredBy(BiPredicate<BsonObject, KeyVal<String,BsonObject>> documentFilter);
 
+    /**
+     * Scan the binder in parallel when the query is executed, see Binder.getDocumentsInParallel.
+     * The results of the query are then a parallel stream in no particular order. For a query that
+     * looks up or matches its documents the filter is applied in parallel to the documents found.
+     */
+    QueryBuilder inParallel();
+
+    /**
+     * Look up the documents in which a field equals the value taken from the context that the query is
+     * executed with, through the binder's index on the field if it has one, see Binder.createIndex.
+     * The filter is then applied to the documents that are found. A value that is null in the context
+     * matches no documents.
+     */
+    QueryBuilder whereEquals(String fieldName, Function<BsonObject, BsonValue> value);
+
+    /**
+     * As whereEquals for the documents in which the field is between from and to inclusive, where a
+     * bound that is null in the context leaves that end of the range open.
+     */
+    QueryBuilder whereBetween(String fieldName, Function<BsonObject, BsonValue> from, Function<BsonObject, BsonValue> to);
+
+    /**
+     * Match the documents against field conditions built from the context that the query is executed with.
+     * Unlike filteredBy the conditions can be applied in the store, see Binder.getDocumentsMatching,
+     * and the filter is then applied to the documents that match.
+     */
+    QueryBuilder matching(Function<BsonObject, FieldFilter> fieldFilter);
+
     Query create();
 }
@@ -1,9 +1,11 @@
 package io.mewbase.cqrs.impl;
 
 import io.mewbase.binders.Binder;
+import io.mewbase.binders.FieldFilter;
 import io.mewbase.binders.KeyVal;
 
 import io.mewbase.bson.BsonObject;
+import io.mewbase.bson.BsonValue;
 
 import io.mewbase.cqrs.Query;
 import io.mewbase.cqrs.QueryBuilder;
@@ -11,6 +13,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.function.BiPredicate;
+import java.util.function.Function;
 
 
 /**
@@ -25,6 +28,11 @@ public class QueryBuilderImpl implements QueryBuilder {
     private String queryName;
     private String binderName;
     private BiPredicate<BsonObject, KeyVal<String,BsonObject>> queryFilter;
+    private boolean parallel = false;
+    private String lookupField;
+    private Function<BsonObject, BsonValue> lookupFrom;
+    private Function<BsonObject, BsonValue> lookupTo;
+    private Function<BsonObject, FieldFilter> fieldFilter;
 
 
     private final BiPredicate<BsonObject, KeyVal<String,BsonObject>> DEFAULT_QUERY_FILTER = (ctx,kv) -> true;
@@ -55,6 +63,37 @@ public class QueryBuilderImpl implements QueryBuilder {
 
 
 
+    @Override
+    public QueryBuilder inParallel() {
+        this.parallel = true;
+        return this;
+    }
+
+    @Override
+    public QueryBuilder whereEquals(String fieldName, Function<BsonObject, BsonValue> value) {
+        // a missing value is a null value, which no document is looked up by, rather than an open range
+        final Function<BsonObject, BsonValue> equalTo = ctx -> {
+            final BsonValue equal = value.apply(ctx);
+            return equal == null ? BsonValue.nullValue() : equal;
+        };
+        return whereBetween(fieldName, equalTo, equalTo);
+    }
+
+    @Override
+    public QueryBuilder whereBetween(String fieldName, Function<BsonObject, BsonValue> from, Function<BsonObject, BsonValue> to) {
+        this.lookupField = fieldName;
+        this.lookupFrom = from;
+        this.lookupTo = to;
+        return this;
+    }
+
+    @Override
+    public QueryBuilder matching(Function<BsonObject, FieldFilter> fieldFilter) {
+        this.fieldFilter = fieldFilter;
+        return this;
+    }
+
+
     @Override
     public Query create() {
         if (queryName == null) {
@@ -63,9 +102,12 @@ public class QueryBuilderImpl implements QueryBuilder {
         if (binderName == null) {
             throw new IllegalStateException("Please specify a binder name");
         }
+        if (lookupField != null && (lookupFrom == null || lookupTo == null)) {
+            throw new IllegalStateException("Please specify the values to look up");
+        }
 
         Binder binder = queryManager.getStore().get(binderName).get();
-        Query query = new QueryImpl(queryName,binder,queryFilter);
+        Query query = new QueryImpl(queryName,binder,queryFilter,parallel,lookupField,lookupFrom,lookupTo,fieldFilter);
         queryManager.registerQuery(query);
         return query;
     }
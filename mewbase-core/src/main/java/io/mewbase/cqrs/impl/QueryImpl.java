@@ -2,11 +2,14 @@ package io.mewbase.cqrs.impl;
 
 
 import io.mewbase.binders.Binder;
+import io.mewbase.binders.FieldFilter;
 import io.mewbase.binders.KeyVal;
 import io.mewbase.bson.BsonObject;
+import io.mewbase.bson.BsonValue;
 import io.mewbase.cqrs.Query;
 
 import java.util.function.BiPredicate;
+import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.Stream;
 
@@ -19,13 +22,41 @@ public class QueryImpl implements Query {
     private final String name;
     private final Binder binder;
     private final BiPredicate<BsonObject,KeyVal<String, BsonObject>> queryFilter;
+    private final boolean parallel;
+    private final String lookupField;
+    private final Function<BsonObject, BsonValue> lookupFrom;
+    private final Function<BsonObject, BsonValue> lookupTo;
+    private final Function<BsonObject, FieldFilter> fieldFilter;
 
     QueryImpl(String name,
               Binder binder,
               BiPredicate<BsonObject, KeyVal<String, BsonObject>> queryFilter) {
+        this(name, binder, queryFilter, false);
+    }
+
+    QueryImpl(String name,
+              Binder binder,
+              BiPredicate<BsonObject, KeyVal<String, BsonObject>> queryFilter,
+              boolean parallel) {
+        this(name, binder, queryFilter, parallel, null, null, null, null);
+    }
+
+    QueryImpl(String name,
+              Binder binder,
+              BiPredicate<BsonObject, KeyVal<String, BsonObject>> queryFilter,
+              boolean parallel,
+              String lookupField,
+              Function<BsonObject, BsonValue> lookupFrom,
+              Function<BsonObject, BsonValue> lookupTo,
+              Function<BsonObject, FieldFilter> fieldFilter) {
         this.name = name;
         this.binder = binder;
         this.queryFilter = queryFilter;
+        this.parallel = parallel;
+        this.lookupField = lookupField;
+        this.lookupFrom = lookupFrom;
+        this.lookupTo = lookupTo;
+        this.fieldFilter = fieldFilter;
     }
 
     @Override
@@ -44,7 +75,21 @@ public class QueryImpl implements Query {
     @Override
     public Stream<KeyVal<String, BsonObject>> execute(BsonObject context) {
         Predicate<KeyVal<String, BsonObject>> docFilter = (kv) -> queryFilter.test(context,kv);
-        return binder.getDocuments(docFilter);
+        if (lookupField != null) {
+            Stream<KeyVal<String, BsonObject>> found =
+                    binder.getDocumentsInRange(lookupField, lookupFrom.apply(context), lookupTo.apply(context));
+            if (fieldFilter != null) found = found.filter(fieldFilter.apply(context));
+            return inParallel(found).filter(docFilter);
+        }
+        if (fieldFilter != null) {
+            return inParallel(binder.getDocumentsMatching(fieldFilter.apply(context))).filter(docFilter);
+        }
+        return parallel ? binder.getDocumentsInParallel(docFilter) : binder.getDocuments(docFilter);
+    }
+
+    // the documents that are looked up or matched are read by the binder, so only the filter runs in parallel
+    private Stream<KeyVal<String, BsonObject>> inParallel(Stream<KeyVal<String, BsonObject>> found) {
+        return parallel ? found.parallel() : found;
     }
 
 }
@@ -0,0 +1,25 @@
+package io.mewbase.eventsource;
+
+import java.util.Collections;
+import java.util.List;
+
+
+/**
+ * An EventHandler that is handed the events of a subscription in batches rather than one at a time,
+ * so that it can amortise the cost of any I/O that it does across the batch.
+ *
+ * A batch holds whatever events were waiting to be dispatched when it was taken, up to the batch size
+ * configured at mewbase.event.dispatcher.batch.size, in the order that they arrived. A subscription
+ * waits for the handler to return before it dispatches the next batch.
+ */
+@FunctionalInterface
+public interface BatchEventHandler extends EventHandler {
+
+    void onEvents(List<Event> evts);
+
+    @Override
+    default void onEvent(Event evt) {
+        onEvents(Collections.singletonList(evt));
+    }
+
+}
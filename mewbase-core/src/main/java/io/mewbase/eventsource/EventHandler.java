@@ -10,6 +10,10 @@ package io.mewbase.eventsource;
  * to post the event to a reactive stream for example that processes the event on another thread(s).
  * I.e. the EventHandler should not block or hold the event dispatcher thread(s) for undue periods.
  *
+ * As a handler may still block, for example to wait on a binder, each subscription's handler runs on
+ * threads that can block without holding up other subscriptions. A handler that never blocks can be
+ * marked with nonBlocking so that it shares the bounded pool of dispatch threads instead.
+ *
  * EventHandler is functional interface hence from Java 8 the EventHandler can be defined using
  * lambda expression ```(argument) -> (body)``` syntax in place.
  */
@@ -18,4 +22,28 @@ public interface EventHandler {
 
     void onEvent(Event evt);
 
+    /**
+     * @return false only if the handler never blocks its thread.
+     */
+    default boolean mayBlock() {
+        return true;
+    }
+
+    /**
+     * Mark a handler that never blocks its thread, such as one that only updates a counter.
+     */
+    static EventHandler nonBlocking(final EventHandler handler) {
+        return new EventHandler() {
+            @Override
+            public void onEvent(Event evt) {
+                handler.onEvent(evt);
+            }
+
+            @Override
+            public boolean mayBlock() {
+                return false;
+            }
+        };
+    }
+
 }
@@ -8,6 +8,7 @@ import io.mewbase.eventsource.impl.file.FileEventSource;
 import io.mewbase.util.CanFactoryFrom;
 
 import java.time.Instant;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 
 
@@ -86,6 +87,16 @@ public interface EventSource extends AutoCloseable {
      */
     CompletableFuture<Subscription> subscribeAll(String channelName, EventHandler eventHandler);
 
+    /**
+     * Look up the number of the most recent event in a named channel without subscribing to it.
+     *
+     * @param channelName
+     * @return the event number, or -1 if the channel is empty, or nothing if this source cannot look it up.
+     */
+    default Optional<Long> mostRecentEventNumber(String channelName) {
+        return Optional.empty();
+    }
+
     /**
      * Close the connection to this EventSource forcing closer of any currently running subscriptions
      *
@@ -0,0 +1,48 @@
+package io.mewbase.eventsource.impl;
+
+import io.mewbase.eventsource.Event;
+
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+
+
+/**
+ * An EventBuffer backed by a LinkedBlockingQueue.
+ */
+final class BlockingEventBuffer implements EventBuffer {
+
+    private final LinkedBlockingQueue<Event> queue;
+
+    private volatile boolean closed = false;
+
+    BlockingEventBuffer(final int capacity) {
+        queue = new LinkedBlockingQueue<>(capacity);
+    }
+
+    @Override
+    public void put(final Event event) throws InterruptedException {
+        if (!closed) queue.put(event);
+    }
+
+    @Override
+    public boolean offer(final Event event) {
+        return closed || queue.offer(event);
+    }
+
+    @Override
+    public int drainTo(final List<Event> events, final int max) {
+        return queue.drainTo(events, max);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return queue.isEmpty();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        queue.clear();
+    }
+
+}
@@ -0,0 +1,50 @@
+package io.mewbase.eventsource.impl;
+
+import io.mewbase.eventsource.Event;
+
+import java.util.List;
+
+
+/**
+ * The buffer between the thread that reads the events of a subscription and the dispatcher that hands
+ * them to the subscription's handler. There is only ever one thread putting events into a buffer and
+ * one thread taking them out.
+ */
+interface EventBuffer {
+
+    String BLOCKING = "blocking";
+    String RING = "ring";
+
+    static EventBuffer create(final String type, final int capacity) {
+        switch (type) {
+            case BLOCKING: return new BlockingEventBuffer(capacity);
+            case RING: return new RingEventBuffer(capacity);
+            default: throw new IllegalArgumentException("Unknown event dispatcher buffer type " + type);
+        }
+    }
+
+    /**
+     * Add an event, waiting while the buffer is full. Once the buffer is closed this returns immediately.
+     */
+    void put(Event event) throws InterruptedException;
+
+    /**
+     * Add an event if there is room for it. Once the buffer is closed the event is dropped.
+     * @return false if the buffer is full.
+     */
+    boolean offer(Event event);
+
+    /**
+     * Move up to max of the buffered events into the list.
+     * @return the number of events moved.
+     */
+    int drainTo(List<Event> events, int max);
+
+    boolean isEmpty();
+
+    /**
+     * Drop the buffered events and release a put that is waiting for room.
+     */
+    void close();
+
+}
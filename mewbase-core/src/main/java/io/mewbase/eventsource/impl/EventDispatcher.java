@@ -1,12 +1,19 @@
 package io.mewbase.eventsource.impl;
 
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+import io.mewbase.eventsource.BatchEventHandler;
 import io.mewbase.eventsource.Event;
 import io.mewbase.eventsource.EventHandler;
+import io.mewbase.util.ExecutionModel;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Function;
 
 
@@ -14,34 +21,60 @@ import java.util.function.Function;
  * EventDispatcher factors out the common element of receiving various types of EventSource specific event types and
  * 1) Transforming them into standard "Event" types and
  * 2) Calling the EventHandler given
+ *
+ * Dispatchers do not own a thread. Whenever a dispatcher has events queued it runs on a thread of the
+ * ExecutionModel, so that an idle subscription does not hold a thread. Handlers that may block, which is
+ * any handler not marked otherwise, run on the blocking threads so that they can only ever hold up
+ * their own subscription. Handlers marked as never blocking share the bounded dispatch threads.
+ *
+ * Events are taken from the buffer in batches. A BatchEventHandler is handed each batch whole,
+ * other handlers are handed the events of the batch one at a time. The size and type of the buffer
+ * and the batch size are configured under mewbase.event.dispatcher.
+ *
+ * If the handler throws, the dispatcher stops and drops the events still queued. Its onFailure
+ * callback then runs so that the owner can close the subscription.
  */
 public class EventDispatcher<T> {
 
     private final static Logger logger = LoggerFactory.getLogger(EventDispatcher.class);
 
+    // the most batches a dispatcher handles before giving up its pool thread to the other dispatchers
+    private final static int MAX_BATCHES_PER_RUN = 16;
+
     private final Function<T, Event> evtTransformer;
     private final EventHandler evtHandler;
+    private final Executor executor;
+    private final Runnable onFailure;
 
-    private final LinkedBlockingQueue<Event> boundedBuffer = new LinkedBlockingQueue<>(16);
+    private final EventBuffer boundedBuffer;
+    private final int batchSize;
 
-    private final Future dispFut;
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
 
-    private Boolean closing = false;
+    private volatile boolean closing = false;
 
     public EventDispatcher(Function<T, Event> evtTransformer, EventHandler evtHandler) {
+        this(evtTransformer, evtHandler, ConfigFactory.load());
+    }
+
+    public EventDispatcher(Function<T, Event> evtTransformer, EventHandler evtHandler, Config cfg) {
+        this(evtTransformer, evtHandler, cfg, () -> { });
+    }
+
+    public EventDispatcher(Function<T, Event> evtTransformer, EventHandler evtHandler, Config cfg, Runnable onFailure) {
+        this(evtTransformer, evtHandler, cfg, evtHandler.mayBlock() ?
+                ExecutionModel.instance().blocking() : ExecutionModel.instance().dispatch(), onFailure);
+    }
+
+    public EventDispatcher(Function<T, Event> evtTransformer, EventHandler evtHandler, Config cfg,
+                           Executor executor, Runnable onFailure) {
         this.evtTransformer = evtTransformer;
         this.evtHandler = evtHandler;
-
-        dispFut = Executors.newSingleThreadExecutor().submit( () -> {
-            while (!closing ) {
-                try {
-                    evtHandler.onEvent(boundedBuffer.take());
-                } catch (InterruptedException exp) {
-                    closing = true;
-                }
-            }
-            logger.info("Event dispatcher stopped.");
-        });
+        this.executor = executor;
+        this.onFailure = onFailure;
+        this.boundedBuffer = EventBuffer.create(cfg.getString("mewbase.event.dispatcher.buffer.type"),
+                cfg.getInt("mewbase.event.dispatcher.buffer.size"));
+        this.batchSize = Math.max(1, cfg.getInt("mewbase.event.dispatcher.batch.size"));
     }
 
     /**
@@ -49,11 +82,70 @@ public class EventDispatcher<T> {
      * backlog is cleared
      */
     public void dispatch(T specificRecord) throws InterruptedException {
+        if (closing) return;
         boundedBuffer.put(evtTransformer.apply(specificRecord));
+        schedule();
+    }
+
+    /**
+     * Queue the event if there is room for it without blocking the calling thread.
+     * @return false if the backlog is full and the event has not been queued.
+     */
+    public boolean offer(T specificRecord) {
+        if (closing) return true;
+        if (!boundedBuffer.offer(evtTransformer.apply(specificRecord))) return false;
+        schedule();
+        return true;
     }
 
     public void stop() {
-        dispFut.cancel(true);
+        closing = true;
+        // also releases a dispatch blocked on the full buffer
+        boundedBuffer.close();
+        logger.info("Event dispatcher stopped.");
+    }
+
+
+    private void schedule() {
+        if (!closing && scheduled.compareAndSet(false, true)) {
+            executor.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        try {
+            int batches = 0;
+            List<Event> batch = new ArrayList<>();
+            // a new list for each batch as the handler may hold on to it
+            while (!closing && batches < MAX_BATCHES_PER_RUN && boundedBuffer.drainTo(batch, batchSize) > 0) {
+                handle(batch);
+                batch = new ArrayList<>();
+                batches++;
+            }
+        } finally {
+            scheduled.set(false);
+            // pick up events queued after the last drain, or left by giving up the thread
+            if (!boundedBuffer.isEmpty()) schedule();
+        }
+    }
+
+    private void handle(final List<Event> batch) {
+        long eventNumber = batch.get(0).getEventNumber();
+        try {
+            if (evtHandler instanceof BatchEventHandler) {
+                ((BatchEventHandler) evtHandler).onEvents(batch);
+            } else {
+                for (Event event : batch) {
+                    if (closing) return;
+                    eventNumber = event.getEventNumber();
+                    evtHandler.onEvent(event);
+                }
+            }
+        } catch (RuntimeException exp) {
+            logger.error("Event handler failed for event " + eventNumber + " - stopping the subscription", exp);
+            stop();
+            onFailure.run();
+        }
     }
 
 }
@@ -1,5 +1,6 @@
 package io.mewbase.eventsource.impl;
 
+import io.mewbase.eventsource.BatchEventHandler;
 import io.mewbase.eventsource.Event;
 import io.mewbase.eventsource.EventHandler;
 import io.micrometer.core.instrument.Counter;
@@ -17,7 +18,7 @@ import java.util.List;
  * 2) Implement security on a call by call basis possibly wrt Counters and other instrumentation
  */
 
-public class EventHandlerShim implements EventHandler {
+public class EventHandlerShim implements BatchEventHandler {
 
     private static final String METRICS_NAME = "mewbase.event.source.event";
 
@@ -44,4 +45,19 @@ public class EventHandlerShim implements EventHandler {
         impl.onEvent(evt);
     }
 
+    @Override
+    public void onEvents(List<Event> evts) {
+        eventCounter.increment(evts.size());
+        if (impl instanceof BatchEventHandler) {
+            ((BatchEventHandler) impl).onEvents(evts);
+        } else {
+            evts.forEach(impl::onEvent);
+        }
+    }
+
+    @Override
+    public boolean mayBlock() {
+        return impl.mayBlock();
+    }
+
 }
@@ -1,5 +1,6 @@
 package io.mewbase.eventsource.impl;
 
+import java.nio.ByteBuffer;
 import java.util.zip.CRC32;
 import java.util.zip.Checksum;
 
@@ -12,4 +13,10 @@ public interface EventUtils {
         return crc.getValue();
     }
 
+    static long checksum(ByteBuffer evt) {
+        CRC32 crc = new CRC32();
+        crc.update(evt.duplicate());
+        return crc.getValue();
+    }
+
 }
@@ -3,13 +3,13 @@ package io.mewbase.eventsource.impl;
 import io.mewbase.bson.BsonObject;
 import io.mewbase.eventsource.EventSink;
 import io.mewbase.eventsource.MultiEventSink;
+import io.mewbase.util.ExecutionModel;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -19,7 +19,7 @@ public class MultiEventSinkImpl implements MultiEventSink {
     private final static Logger logger = LoggerFactory.getLogger(MultiEventSinkImpl.class);
 
     final Set<EventSink> sinks;
-    final ExecutorService exec = Executors.newWorkStealingPool();
+    final Executor exec = ExecutionModel.instance().blocking();
 
     public MultiEventSinkImpl(Set<EventSink> sinks) {
         this.sinks = sinks;
@@ -48,7 +48,7 @@ public class MultiEventSinkImpl implements MultiEventSink {
                     .map(sink -> sink.publishAsync(channelName,event) )
                     .map( futOfLong -> futOfLong.join() )
                     .collect(Collectors.toList())
-                    .stream() );
+                    .stream(), exec);
         return fut;
     }
 
@@ -0,0 +1,86 @@
+package io.mewbase.eventsource.impl;
+
+import io.mewbase.eventsource.Event;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+
+/**
+ * A lock free, single producer and single consumer, EventBuffer held in a ring of slots.
+ *
+ * The producer and consumer only ever share the head and tail sequences so neither takes a lock.
+ * A producer that finds the ring full parks briefly until the consumer has made room.
+ */
+final class RingEventBuffer implements EventBuffer {
+
+    private static final long FULL_PARK_NANOS = 50_000;
+
+    private final Event[] slots;
+    private final int mask;
+
+    // the sequence of the next event to be taken, only written by the consumer
+    private final AtomicLong head = new AtomicLong();
+    // the sequence of the next event to be put, only written by the producer
+    private final AtomicLong tail = new AtomicLong();
+
+    private volatile boolean closed = false;
+
+    RingEventBuffer(final int capacity) {
+        // round up to a power of two so that a sequence maps to a slot with a mask
+        final int size = Integer.highestOneBit(Math.max(2, capacity) * 2 - 1);
+        slots = new Event[size];
+        mask = size - 1;
+    }
+
+    @Override
+    public void put(final Event event) throws InterruptedException {
+        final long sequence = tail.get();
+        while (sequence - head.get() >= slots.length) {
+            if (closed) return;
+            if (Thread.interrupted()) throw new InterruptedException();
+            LockSupport.parkNanos(FULL_PARK_NANOS);
+        }
+        if (closed) return;
+        slots[(int) sequence & mask] = event;
+        // publishes the slot to the consumer
+        tail.lazySet(sequence + 1);
+    }
+
+    @Override
+    public boolean offer(final Event event) {
+        final long sequence = tail.get();
+        if (closed) return true;
+        if (sequence - head.get() >= slots.length) return false;
+        slots[(int) sequence & mask] = event;
+        tail.lazySet(sequence + 1);
+        return true;
+    }
+
+    @Override
+    public int drainTo(final List<Event> events, final int max) {
+        final long first = head.get();
+        final int count = (int) Math.min(max, tail.get() - first);
+        for (int i = 0; i < count; i++) {
+            final int slot = (int) (first + i) & mask;
+            events.add(slots[slot]);
+            slots[slot] = null;
+        }
+        // hands the slots back to the producer
+        head.lazySet(first + count);
+        return count;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return head.get() == tail.get();
+    }
+
+    @Override
+    public void close() {
+        // the slots are left to the consumer, which stops taking events once its dispatcher is stopped
+        closed = true;
+    }
+
+}
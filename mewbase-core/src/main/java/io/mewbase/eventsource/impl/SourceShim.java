@@ -9,6 +9,7 @@ import io.micrometer.core.instrument.Metrics;
 
 
 import java.time.Instant;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 
 
@@ -64,6 +65,11 @@ public class SourceShim implements EventSource {
         return impl.subscribeAll(channelName, new EventHandlerShim(channelName, eventHandler));
     }
 
+    @Override
+    public Optional<Long> mostRecentEventNumber(String channelName) {
+        return impl.mostRecentEventNumber(channelName);
+    }
+
     @Override
     public void close() {
         impl.close();
@@ -24,9 +24,17 @@ public class FileEvent implements Event {
         this.eventBuf = eventBuf;
     }
 
+    /**
+     * A copy of the event with a view of its own over the same bytes, for handing to another subscriber
+     * so that each decodes the event independently.
+     */
+    FileEvent duplicate() {
+        return new FileEvent(eventNumber, epochMillis, crc32, eventBuf.duplicate());
+    }
+
     @Override
     public BsonObject getBson() {
-        if (event == null) event = BsonCodec.bsonBytesToBsonObject(eventBuf.array());
+        if (event == null) event = BsonCodec.bsonBytesToLazyBsonObject(eventBuf.nioBuffer());
         return event;
     }
 
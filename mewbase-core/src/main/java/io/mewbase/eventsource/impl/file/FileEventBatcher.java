@@ -0,0 +1,144 @@
+package io.mewbase.eventsource.impl.file;
+
+import io.mewbase.bson.BsonCodec;
+import io.mewbase.bson.BsonObject;
+import io.mewbase.util.ExecutionModel;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Queues the events published asynchronously to a channel and writes them to the channel in groups,
+ * so that a burst of events shares a single sync to disk rather than paying for one each.
+ *
+ * A group is written as soon as it reaches the max batch size, or once the first event in the group
+ * has waited for the linger time, whichever comes first. All of the futures in a group are completed
+ * together once the group has been written.
+ *
+ * Each event is encoded as it is published, so that the writer only ever sees bytes and later changes
+ * made by the publisher to the BsonObject cannot reach the channel.
+ *
+ * Only a segmented channel writes a group with a single sync. A channel that writes a file per event
+ * still syncs each file as it is written, so batching saves it almost nothing.
+ */
+final class FileEventBatcher implements AutoCloseable {
+
+    private final static Logger logger = LoggerFactory.getLogger(FileEventBatcher.class);
+
+    // how often an idle writer checks that it has not been closed
+    private final static long IDLE_POLL_MILLIS = 100;
+
+    private final FileEventChannel channel;
+    private final int maxBatchSize;
+    private final long lingerNanos;
+
+    // wakes a writer that is idle or lingering so that it sees it has been closed
+    private final static PendingEvent CLOSE = new PendingEvent(null);
+
+    private final BlockingQueue<PendingEvent> queue = new LinkedBlockingQueue<>();
+    private final Future writer;
+
+    private volatile boolean closing = false;
+
+
+    FileEventBatcher(final FileEventChannel channel, final int maxBatchSize, final long lingerNanos) {
+        this.channel = channel;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.lingerNanos = Math.max(0, lingerNanos);
+        // the writer waits for events so it runs as a blocking task
+        writer = ExecutionModel.instance().blocking().submit(this::writeBatches);
+    }
+
+
+    CompletableFuture<Long> publish(final BsonObject event) {
+        if (closing) {
+            final CompletableFuture<Long> closed = new CompletableFuture<>();
+            closed.completeExceptionally(new IllegalStateException("File Event Batcher is closed"));
+            return closed;
+        }
+        final PendingEvent pending = new PendingEvent(BsonCodec.bsonObjectToBsonBytes(event));
+        queue.add(pending);
+        return pending.future;
+    }
+
+
+    /**
+     * Stop accepting events and wait for those already queued to be written.
+     */
+    @Override
+    public void close() {
+        closing = true;
+        queue.add(CLOSE);
+        try {
+            writer.get(10, TimeUnit.SECONDS);
+        } catch (InterruptedException exp) {
+            Thread.currentThread().interrupt();
+        } catch (Exception exp) {
+            logger.error("Error waiting for File Event Batcher to write its queued events", exp);
+        }
+    }
+
+
+    private void writeBatches() {
+        final List<PendingEvent> batch = new ArrayList<>(maxBatchSize);
+        try {
+            while (!closing || !queue.isEmpty()) {
+                final PendingEvent first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null || first == CLOSE) continue;
+                batch.add(first);
+                final long deadline = System.nanoTime() + lingerNanos;
+                while (batch.size() < maxBatchSize) {
+                    // take anything that is already waiting and then linger for the rest of the group
+                    PendingEvent next = queue.poll();
+                    if (next == null && !closing) {
+                        final long remaining = deadline - System.nanoTime();
+                        if (remaining <= 0) break;
+                        next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    }
+                    if (next == null || next == CLOSE) break;
+                    batch.add(next);
+                }
+                write(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException exp) {
+            batch.addAll(queue);
+            batch.remove(CLOSE);
+            batch.forEach(pending -> pending.future.completeExceptionally(exp));
+        }
+    }
+
+    private void write(final List<PendingEvent> batch) {
+        final List<byte[]> bsons = new ArrayList<>(batch.size());
+        batch.forEach(pending -> bsons.add(pending.bson));
+        try {
+            final List<Long> eventNumbers = channel.publishAllEncoded(bsons);
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).future.complete(eventNumbers.get(i));
+            }
+        } catch (Exception exp) {
+            logger.error("Error attempting to write a batch of " + batch.size() + " events to File Event Channel", exp);
+            batch.forEach(pending -> pending.future.completeExceptionally(exp));
+        }
+    }
+
+
+    private static final class PendingEvent {
+        final byte[] bson;
+        final CompletableFuture<Long> future = new CompletableFuture<>();
+
+        PendingEvent(final byte[] bson) {
+            this.bson = bson;
+        }
+    }
+
+}
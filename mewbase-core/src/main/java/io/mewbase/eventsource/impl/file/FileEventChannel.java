@@ -1,69 +1,54 @@
 package io.mewbase.eventsource.impl.file;
 
+import io.mewbase.bson.BsonCodec;
 import io.mewbase.bson.BsonObject;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
+import java.io.Closeable;
 import java.io.IOException;
-import java.nio.file.FileAlreadyExistsException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-
-
-import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.locks.ReentrantLock;
-
-import static java.nio.file.StandardOpenOption.*;
-
-
-public class FileEventChannel  {
-
-    private final static Logger logger = LoggerFactory.getLogger(FileEventChannel.class);
-
-    private final Path channelPath;
-    private final ReentrantLock lock = new ReentrantLock();
-    private final AtomicLong nextEventNumber;
-
-
-    public FileEventChannel(final Path channelPath) {
-
-        this.channelPath = channelPath;
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * The writing end of a file based event channel.
+ */
+public interface FileEventChannel extends Closeable {
+
+    /**
+     * Write the event to the end of the channel
+     *
+     * @return the event number assigned to the event
+     */
+    default long publish(final BsonObject event) throws IOException {
+        return publishEncoded(BsonCodec.bsonObjectToBsonBytes(event));
+    }
 
-        try {
-            // create the directory if it doesnt exist
-            Files.createDirectories(channelPath);
-            nextEventNumber = new AtomicLong(FileEventUtils.nextEventNumberFromPath(channelPath));
-            logger.info("Created File Event Channel at path " + channelPath);
-        } catch (Exception exp) {
-            logger.error("Error creating File Event Channel", exp);
-            throw new RuntimeException(exp);
+    /**
+     * Write an event that has already been encoded as BSON to the end of the channel
+     *
+     * @return the event number assigned to the event
+     */
+    long publishEncoded(final byte[] bson) throws IOException;
+
+    /**
+     * Write the encoded events, in order, to the end of the channel. Channels that can should make the
+     * whole group durable at once rather than event by event.
+     *
+     * @return the event numbers assigned to each of the events
+     */
+    default List<Long> publishAllEncoded(final List<byte[]> bsons) throws IOException {
+        final List<Long> eventNumbers = new ArrayList<>(bsons.size());
+        for (byte[] bson : bsons) {
+            eventNumbers.add(publishEncoded(bson));
         }
+        return eventNumbers;
     }
 
-
-    public long publish(final BsonObject event) throws IOException {
-        try {
-            // stop racing across threads and use the file create lock across processes
-            lock.lock();
-            final long assignedEventNumber = nextEventNumber.getAndIncrement();
-            Path fullPath = channelPath.resolve(FileEventUtils.pathFromEventNumber(assignedEventNumber));
-            Files.write(fullPath, FileEventUtils.eventToByteArray(event),
-                    CREATE_NEW, // throws exception if another process has just created this file.
-                    WRITE,      // going to write into the file
-                    SYNC        // write contents and meta data on sync
-                    );
-            lock.unlock(); // we have the file set aside so write and close.
-
-            return assignedEventNumber;
-        } catch (FileAlreadyExistsException exp) {
-            // just recurse and increment file number again
-            return publish(event);
-        } catch (Exception exp) {
-            lock.unlock();
-            logger.error("Error attempting publishSync event to File Event Channel", exp);
-            throw exp;
-        }
+    /**
+     * Release any files that the channel holds open. Nothing can be published to the channel once it is closed.
+     */
+    @Override
+    default void close() throws IOException {
     }
 
 }
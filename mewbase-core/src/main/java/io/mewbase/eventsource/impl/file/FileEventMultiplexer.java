@@ -0,0 +1,171 @@
+package io.mewbase.eventsource.impl.file;
+
+import io.mewbase.util.ExecutionModel;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+
+/**
+ * Shares a single reader that tails a channel between all of the subscriptions to the channel.
+ *
+ * The tail reader hands each event it reads to every live subscription. A subscription that does not
+ * start at the tail, whether behind or ahead of it, reads the channel with a reader of its own and then
+ * joins the live subscriptions once it has reached the tail. The tail reader stops once the last
+ * subscription has been closed.
+ *
+ * Each subscription is handed a FileEvent of its own over the shared bytes, so that handlers on
+ * different subscriptions never decode the same event object at once.
+ *
+ * The tail reader never waits for a subscription. A live subscription whose dispatcher is full falls back
+ * to a reader of its own, so a slow subscription only holds back itself, and events are handed over
+ * outside the multiplexer's lock, so handlers may subscribe to and close subscriptions on the same channel.
+ *
+ * If the tail reader fails the multiplexer stops and closes all of its subscriptions. A failed reader
+ * of a single subscription closes only that subscription.
+ */
+final class FileEventMultiplexer {
+
+    private final static Logger logger = LoggerFactory.getLogger(FileEventMultiplexer.class);
+
+    // readers block while they tail a channel so they cannot share a bounded pool
+    private final static ExecutorService readers = ExecutionModel.instance().blocking();
+
+    private final Path channelPath;
+    private final Supplier<FileEventReader> readerFactory;
+    private final Consumer<FileEventMultiplexer> onStopped;
+
+    private final List<FileEventSubscription> live = new ArrayList<>();
+    // the subscriptions that are reading the channel on their own and their readers
+    private final Map<FileEventSubscription, Future> readingAlone = new HashMap<>();
+
+    // the number of the next event that the tail reader will read
+    private long position;
+    private Future tail = null;
+    private boolean stopped = false;
+
+
+    FileEventMultiplexer(final Path channelPath, final Supplier<FileEventReader> readerFactory,
+                         final Consumer<FileEventMultiplexer> onStopped) {
+        this.channelPath = channelPath;
+        this.readerFactory = readerFactory;
+        this.onStopped = onStopped;
+    }
+
+
+    /**
+     * @return false if the multiplexer has already stopped and a new one is needed for the channel.
+     */
+    synchronized boolean join(final FileEventSubscription subscription) {
+        if (stopped) return false;
+        if (tail == null) {
+            position = subscription.nextEventNumber();
+            live.add(subscription);
+            tail = readers.submit(this::readTail);
+            logger.info("Started reading channel " + channelPath.getFileName());
+        } else if (subscription.nextEventNumber() == position) {
+            live.add(subscription);
+        } else {
+            readAlone(subscription);
+        }
+        return true;
+    }
+
+    synchronized void leave(final FileEventSubscription subscription) {
+        live.remove(subscription);
+        final Future reader = readingAlone.remove(subscription);
+        if (reader != null) reader.cancel(true);
+        if (live.isEmpty() && readingAlone.isEmpty() && !stopped) {
+            stopped = true;
+            tail.cancel(true);
+            onStopped.accept(this);
+        }
+    }
+
+
+    private void readTail() {
+        try (FileEventReader reader = readerFactory.get()) {
+            while (!Thread.currentThread().isInterrupted()) {
+                final FileEvent event = reader.read(currentPosition());
+                final List<FileEventSubscription> subscriptions;
+                synchronized (this) {
+                    subscriptions = new ArrayList<>(live);
+                    // subscriptions that join from now on start after this event
+                    position = event.getEventNumber() + 1;
+                }
+                for (FileEventSubscription subscription : subscriptions) {
+                    if (!subscription.offer(event.duplicate())) fallBehind(subscription);
+                }
+            }
+        } catch (InterruptedException | ClosedByInterruptException exp) {
+            // the last subscription has left
+        } catch (Exception exp) {
+            logger.error("Error in event reader - closing subscriptions", exp);
+            stopAndClose();
+        }
+        logger.info("Stopped reading channel " + channelPath.getFileName());
+    }
+
+    private synchronized void fallBehind(final FileEventSubscription subscription) {
+        // unless it has just left, the subscription reads on from the event that it had no room for
+        if (live.remove(subscription)) readAlone(subscription);
+    }
+
+    private void readAlone(final FileEventSubscription subscription) {
+        readingAlone.put(subscription, readers.submit(() -> readAloneUntilAtTail(subscription)));
+    }
+
+    private void stopAndClose() {
+        final List<FileEventSubscription> subscriptions;
+        synchronized (this) {
+            if (stopped) return;
+            stopped = true;
+            subscriptions = new ArrayList<>(live);
+            subscriptions.addAll(readingAlone.keySet());
+            readingAlone.values().forEach(reader -> reader.cancel(true));
+            live.clear();
+            readingAlone.clear();
+            // subscriptions made from now on start a new multiplexer
+            onStopped.accept(this);
+        }
+        // the multiplexer has already let go of them so closing them does not come back to it
+        subscriptions.forEach(FileEventSubscription::close);
+    }
+
+    private void readAloneUntilAtTail(final FileEventSubscription subscription) {
+        try (FileEventReader reader = readerFactory.get()) {
+            while (true) {
+                synchronized (this) {
+                    if (!readingAlone.containsKey(subscription)) return;
+                    if (subscription.nextEventNumber() == position) {
+                        readingAlone.remove(subscription);
+                        live.add(subscription);
+                        return;
+                    }
+                }
+                subscription.deliver(reader.read(subscription.nextEventNumber()));
+            }
+        } catch (InterruptedException | ClosedByInterruptException exp) {
+            // the subscription has been closed
+        } catch (Exception exp) {
+            logger.error("Error in subscription event reader - closing subscription", exp);
+            subscription.close();
+        }
+    }
+
+    private synchronized long currentPosition() {
+        return position;
+    }
+
+}
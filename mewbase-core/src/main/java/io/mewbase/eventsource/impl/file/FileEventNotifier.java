@@ -0,0 +1,81 @@
+package io.mewbase.eventsource.impl.file;
+
+import java.nio.file.Path;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Wakes the readers of a file based channel as soon as a channel in the same process has written to it,
+ * so that tailing a channel costs neither latency nor CPU while there is nothing new to read.
+ *
+ * A writer in another process cannot notify the readers so while they wait they still look for new
+ * events, backing off from MIN_WAIT to MAX_WAIT the longer the channel stays idle.
+ */
+final class FileEventNotifier {
+
+    private static final ConcurrentMap<Path, FileEventNotifier> notifiers = new ConcurrentHashMap<>();
+
+    static final long MIN_WAIT_NANOS = TimeUnit.MICROSECONDS.toNanos(500);
+    static final long MAX_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    // bumped every time that events are written to the channel
+    private long version = 0;
+
+
+    private FileEventNotifier() {
+    }
+
+    static FileEventNotifier forChannel(final Path channelPath) {
+        return notifiers.computeIfAbsent(channelPath.toAbsolutePath().normalize(), path -> new FileEventNotifier());
+    }
+
+
+    /**
+     * Called by a writer once events are written to the channel.
+     */
+    synchronized void published() {
+        version++;
+        notifyAll();
+    }
+
+    /**
+     * The version to pass to await, which must be taken before looking for the next event so that
+     * an event written in between is never missed.
+     */
+    synchronized long version() {
+        return version;
+    }
+
+    /**
+     * Wait until the channel has been written to since the version was taken or the wait has timed out.
+     */
+    synchronized void await(final long seenVersion, final long timeoutNanos) throws InterruptedException {
+        final long deadline = System.nanoTime() + timeoutNanos;
+        long remaining = timeoutNanos;
+        while (version == seenVersion && remaining > 0) {
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+            remaining = deadline - System.nanoTime();
+        }
+    }
+
+
+    /**
+     * The wait of a single reader, which backs off while the channel is idle.
+     */
+    static final class Backoff {
+        private long waitNanos = MIN_WAIT_NANOS;
+
+        long next() {
+            final long current = waitNanos;
+            waitNanos = Math.min(MAX_WAIT_NANOS, waitNanos * 2);
+            return current;
+        }
+
+        void reset() {
+            waitNanos = MIN_WAIT_NANOS;
+        }
+    }
+
+}
@@ -0,0 +1,17 @@
+package io.mewbase.eventsource.impl.file;
+
+import java.io.Closeable;
+
+
+/**
+ * Reads the events of a file based channel on behalf of a single FileEventSubscription.
+ */
+interface FileEventReader extends Closeable {
+
+    /**
+     * Block until the event with the given number, or if that is no longer in the channel the first
+     * event after it, has been written and return it. Events are expected to be read in order.
+     */
+    FileEvent read(long eventNumber) throws Exception;
+
+}
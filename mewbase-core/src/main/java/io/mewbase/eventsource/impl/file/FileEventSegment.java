@@ -0,0 +1,354 @@
+package io.mewbase.eventsource.impl.file;
+
+import io.mewbase.eventsource.impl.EventUtils;
+import io.netty.buffer.Unpooled;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.nio.file.StandardOpenOption.*;
+
+
+/**
+ * A segment is a single, pre-allocated, log file holding a contiguous run of the events in a channel.
+ * The segment file is named after the number of the first event that it holds and each event is framed as
+ *
+ *   int length | long epochMillis | long crc32 | length bytes of BSON
+ *
+ * Unwritten space at the end of the segment is zero filled so a length of zero marks the end of the log.
+ * An event is only complete when its crc32 matches its BSON, which means that readers can tail a
+ * segment while it is being written and never see a partially written event.
+ *
+ * Alongside each segment is a sparse index of (event number, file position) pairs so that a reader can
+ * quickly find an event in the middle of a segment without scanning from its start.
+ *
+ * Segments opened for reading are memory mapped, and the events read from them are slices of the
+ * mapping, so that replaying a channel neither makes a system call nor copies the BSON per event.
+ */
+final class FileEventSegment implements Closeable {
+
+    static final String LOG_SUFFIX = ".log";
+    static final String INDEX_SUFFIX = ".idx";
+
+    static final int RECORD_HEADER_SIZE = 4 + 8 + 8;
+    static final int INDEX_ENTRY_SIZE = 8 + 8;
+
+    private static final int CLEAR_CHUNK_SIZE = 64 * 1024;
+
+    final long firstEventNumber;
+
+    private final FileChannel log;
+    private final FileChannel index;
+    // the whole of the log when opened for reading, otherwise null
+    private final ByteBuffer mapped;
+
+    // only used when writing
+    private final int indexInterval;
+    private long writePosition = 0;
+    private long nextEventNumber;
+
+    private FileEventSegment(long firstEventNumber, FileChannel log, FileChannel index,
+                             ByteBuffer mapped, int indexInterval) {
+        this.firstEventNumber = firstEventNumber;
+        this.nextEventNumber = firstEventNumber;
+        this.log = log;
+        this.index = index;
+        this.mapped = mapped;
+        this.indexInterval = indexInterval;
+    }
+
+    static Path logPath(final Path channelPath, final long firstEventNumber) {
+        return channelPath.resolve(String.format("%016d", firstEventNumber) + LOG_SUFFIX);
+    }
+
+    static Path indexPath(final Path channelPath, final long firstEventNumber) {
+        return channelPath.resolve(String.format("%016d", firstEventNumber) + INDEX_SUFFIX);
+    }
+
+    /**
+     * Create a new, empty, segment of the given size to be appended to.
+     */
+    static FileEventSegment create(final Path channelPath, final long firstEventNumber,
+                                   final long size, final int indexInterval) throws IOException {
+        final FileChannel log = FileChannel.open(logPath(channelPath, firstEventNumber), CREATE_NEW, READ, WRITE);
+        // pre-allocate the segment so that appends never have to extend the file
+        log.write(ByteBuffer.allocate(1), size - 1);
+        final FileChannel index = FileChannel.open(indexPath(channelPath, firstEventNumber), CREATE, READ, WRITE, TRUNCATE_EXISTING);
+        return new FileEventSegment(firstEventNumber, log, index, null, indexInterval);
+    }
+
+    /**
+     * Open an existing segment to be appended to, finding the end of the events that are complete
+     * and rebuilding the sparse index, as the process that last wrote the segment may have stopped at any point.
+     */
+    static FileEventSegment recover(final Path channelPath, final long firstEventNumber, final int indexInterval) throws IOException {
+        final FileChannel log = FileChannel.open(logPath(channelPath, firstEventNumber), READ, WRITE);
+        final FileChannel index = FileChannel.open(indexPath(channelPath, firstEventNumber), CREATE, READ, WRITE);
+        index.truncate(0);
+        final FileEventSegment segment = new FileEventSegment(firstEventNumber, log, index, null, indexInterval);
+        int length;
+        while ((length = segment.completeRecordLength(segment.writePosition)) > 0) {
+            segment.indexEvent(segment.nextEventNumber, segment.writePosition);
+            segment.writePosition += RECORD_HEADER_SIZE + length;
+            segment.nextEventNumber++;
+        }
+        segment.clearTail();
+        return segment;
+    }
+
+    /**
+     * Open an existing segment to be read. As segments are pre-allocated the mapping covers every event
+     * that will ever be appended to the segment.
+     */
+    static FileEventSegment open(final Path channelPath, final long firstEventNumber) throws IOException {
+        final FileChannel log = FileChannel.open(logPath(channelPath, firstEventNumber), READ);
+        final Path indexPath = indexPath(channelPath, firstEventNumber);
+        final FileChannel index = Files.exists(indexPath) ? FileChannel.open(indexPath, READ) : null;
+        // a segment too large to map in one go is read through the channel instead
+        final MappedByteBuffer mapped = log.size() <= Integer.MAX_VALUE ?
+                log.map(FileChannel.MapMode.READ_ONLY, 0, log.size()) : null;
+        return new FileEventSegment(firstEventNumber, log, index, mapped, 0);
+    }
+
+
+    long nextEventNumber() {
+        return nextEventNumber;
+    }
+
+    /**
+     * Append an event to the end of the segment, provided that there is room for it.
+     * The event is not guaranteed to be on disk until the segment is forced.
+     *
+     * @return the number of the appended event or -1 if the segment is full.
+     */
+    long append(final long epochMillis, final byte[] bson) throws IOException {
+        final int recordSize = RECORD_HEADER_SIZE + bson.length;
+        if (writePosition + recordSize > log.size()) return -1;
+
+        final ByteBuffer record = ByteBuffer.allocate(recordSize);
+        record.putInt(bson.length);
+        record.putLong(epochMillis);
+        record.putLong(EventUtils.checksum(bson));
+        record.put(bson);
+        ((java.nio.Buffer)record).flip();
+        writeFully(log, record, writePosition);
+
+        indexEvent(nextEventNumber, writePosition);
+        writePosition += recordSize;
+        return nextEventNumber++;
+    }
+
+    void force() throws IOException {
+        log.force(false);
+    }
+
+    /**
+     * Find the position of the given event, or of the end of the log if the segment does not (yet) hold
+     * that event, by starting from the closest preceding index entry and hopping over the events that follow it.
+     *
+     * @return the position and event number to start reading from.
+     */
+    long[] seek(final long eventNumber) throws IOException {
+        long position = 0;
+        long current = firstEventNumber;
+        for (long[] entry : readIndex()) {
+            if (entry[0] > eventNumber) break;
+            current = entry[0];
+            position = entry[1];
+        }
+        int length;
+        while (current < eventNumber && (length = completeRecordLength(position)) > 0) {
+            position += RECORD_HEADER_SIZE + length;
+            current++;
+        }
+        return new long[] { position, current };
+    }
+
+    /**
+     * Find the first event later than the given time by a binary search of the sparse index, using the
+     * timestamps of the indexed events, and then hopping over the events that follow the entry found.
+     *
+     * @return the number of the first event later than the time or, if there is none, the number that the
+     * next event appended to the segment would have.
+     */
+    long eventNumberAfter(final long epochMillis) throws IOException {
+        final List<long[]> entries = readIndex();
+        long position = 0;
+        long current = firstEventNumber;
+        int low = 0;
+        int high = entries.size() - 1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            final long entryMillis = readEpochMillis(entries.get(mid)[1]);
+            if (entryMillis >= 0 && entryMillis <= epochMillis) {
+                current = entries.get(mid)[0];
+                position = entries.get(mid)[1];
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        int length;
+        while ((length = completeRecordLength(position)) > 0) {
+            if (readEpochMillis(position) > epochMillis) return current;
+            position += RECORD_HEADER_SIZE + length;
+            current++;
+        }
+        return current;
+    }
+
+    /**
+     * Read the event at the given position if it has been completely written.
+     *
+     * @return the event or null if there is no complete event at the position.
+     */
+    FileEvent readEvent(final long position, final long eventNumber) throws IOException {
+        final ByteBuffer header = readHeader(position);
+        if (header == null) return null;
+        final int length = header.getInt();
+        final long epochMillis = header.getLong();
+        final long crc32 = header.getLong();
+        final ByteBuffer bson = readBson(position, length);
+        if (bson == null || EventUtils.checksum(bson) != crc32) return null;
+        return new FileEvent(eventNumber, epochMillis, crc32, Unpooled.wrappedBuffer(bson));
+    }
+
+    /**
+     * Read the timestamp of the event at the given position.
+     *
+     * @return the epoch millis or -1 if there is no complete event at the position.
+     */
+    long readEpochMillis(final long position) throws IOException {
+        final ByteBuffer header = readHeader(position);
+        if (header == null || completeRecordLength(position) == 0) return -1;
+        return header.getLong(4);
+    }
+
+    /**
+     * @return the length of the BSON in the complete event at the position or 0 if there is none.
+     */
+    int completeRecordLength(final long position) throws IOException {
+        final ByteBuffer header = readHeader(position);
+        if (header == null) return 0;
+        final int length = header.getInt();
+        header.getLong();
+        final long crc32 = header.getLong();
+        final ByteBuffer bson = readBson(position, length);
+        return (bson != null && EventUtils.checksum(bson) == crc32) ? length : 0;
+    }
+
+    static int recordSize(final FileEvent event) {
+        return RECORD_HEADER_SIZE + event.eventBuf.readableBytes();
+    }
+
+    @Override
+    public void close() throws IOException {
+        log.close();
+        if (index != null) index.close();
+    }
+
+
+    private ByteBuffer readHeader(final long position) throws IOException {
+        if (position + RECORD_HEADER_SIZE > size()) return null;
+        final ByteBuffer header;
+        if (mapped != null) {
+            header = slice((int) position, RECORD_HEADER_SIZE);
+        } else {
+            header = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+            readFully(log, header, position);
+        }
+        return header.getInt(0) > 0 ? header : null;
+    }
+
+    private ByteBuffer readBson(final long position, final int length) throws IOException {
+        final long start = position + RECORD_HEADER_SIZE;
+        if (start + length > size()) return null;
+        if (mapped != null) return slice((int) start, length);
+        final ByteBuffer bson = ByteBuffer.allocate(length);
+        readFully(log, bson, start);
+        return bson;
+    }
+
+    private long size() throws IOException {
+        return mapped != null ? mapped.capacity() : log.size();
+    }
+
+    private ByteBuffer slice(final int position, final int length) {
+        final ByteBuffer slice = mapped.duplicate();
+        ((java.nio.Buffer)slice).limit(position + length).position(position);
+        return slice.slice();
+    }
+
+    /**
+     * Zero any partially written event, and anything that follows it, at the end of the log so that
+     * it can never be mistaken for an event once appending starts again.
+     */
+    private void clearTail() throws IOException {
+        final ByteBuffer chunk = ByteBuffer.allocate(CLEAR_CHUNK_SIZE);
+        long position = writePosition;
+        while (position < log.size()) {
+            ((java.nio.Buffer)chunk).clear().limit((int) Math.min(CLEAR_CHUNK_SIZE, log.size() - position));
+            readFully(log, chunk, position);
+            if (isZeroFilled(chunk)) break;
+            final ByteBuffer zeros = ByteBuffer.allocate(chunk.limit());
+            writeFully(log, zeros, position);
+            position += zeros.capacity();
+        }
+        log.force(false);
+    }
+
+    private static boolean isZeroFilled(final ByteBuffer buffer) {
+        for (int i = 0; i < buffer.limit(); i++) {
+            if (buffer.get(i) != 0) return false;
+        }
+        return true;
+    }
+
+    private void indexEvent(final long eventNumber, final long position) throws IOException {
+        if (indexInterval > 0 && (eventNumber - firstEventNumber) % indexInterval == 0) {
+            final ByteBuffer entry = ByteBuffer.allocate(INDEX_ENTRY_SIZE);
+            entry.putLong(eventNumber);
+            entry.putLong(position);
+            ((java.nio.Buffer)entry).flip();
+            writeFully(index, entry, index.size());
+        }
+    }
+
+    private List<long[]> readIndex() throws IOException {
+        final List<long[]> entries = new ArrayList<>();
+        if (index == null) return entries;
+        // the index may be being appended to so only read whole entries
+        final long size = index.size() - (index.size() % INDEX_ENTRY_SIZE);
+        final ByteBuffer buffer = ByteBuffer.allocate((int) size);
+        readFully(index, buffer, 0);
+        while (buffer.remaining() >= INDEX_ENTRY_SIZE) {
+            entries.add(new long[] { buffer.getLong(), buffer.getLong() });
+        }
+        return entries;
+    }
+
+    private static void readFully(final FileChannel channel, final ByteBuffer buffer, final long position) throws IOException {
+        long offset = position;
+        while (buffer.hasRemaining()) {
+            final int read = channel.read(buffer, offset);
+            if (read < 0) throw new IOException("Unexpected end of segment at " + offset);
+            offset += read;
+        }
+        ((java.nio.Buffer)buffer).flip();
+    }
+
+    private static void writeFully(final FileChannel channel, final ByteBuffer buffer, final long position) throws IOException {
+        long offset = position;
+        while (buffer.hasRemaining()) {
+            offset += channel.write(buffer, offset);
+        }
+    }
+
+}
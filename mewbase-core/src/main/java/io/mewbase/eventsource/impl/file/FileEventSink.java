@@ -13,17 +13,26 @@ import org.slf4j.LoggerFactory;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 
-import java.util.TreeMap;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 
 
 public class FileEventSink implements EventSink {
 
     private final static Logger logger = LoggerFactory.getLogger(FileEventSink.class);
 
-    private final TreeMap<String,FileEventChannel> channels = new TreeMap<>();
+    private final ConcurrentMap<String,FileEventChannel> channels = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String,FileEventBatcher> batchers = new ConcurrentHashMap<>();
 
     private final Path baseDir;
+    private final boolean segmented;
+    private final long segmentSize;
+    private final int segmentIndexInterval;
+    private final long timeIndexIntervalMillis;
+    private final int batchSize;
+    private final long batchLingerNanos;
 
     public FileEventSink() {
         this( ConfigFactory.load() );
@@ -31,15 +40,20 @@ public class FileEventSink implements EventSink {
 
     public FileEventSink(Config cfg) {
         baseDir = Paths.get(cfg.getString("mewbase.event.sink.file.basedir"));
+        segmented = cfg.getBoolean("mewbase.event.sink.file.segmented");
+        segmentSize = cfg.getBytes("mewbase.event.sink.file.segment.size");
+        segmentIndexInterval = cfg.getInt("mewbase.event.sink.file.segment.index.interval");
+        timeIndexIntervalMillis = cfg.getDuration("mewbase.event.sink.file.time.index.interval", TimeUnit.MILLISECONDS);
+        batchSize = cfg.getInt("mewbase.event.sink.file.batch.size");
+        batchLingerNanos = cfg.getDuration("mewbase.event.sink.file.batch.linger", TimeUnit.NANOSECONDS);
         logger.info("Created File Event Sink connection with base directory " + baseDir);
     }
 
 
     @Override
     public Long publishSync(String channelName, BsonObject event) {
-        FileEventChannel channel = channels.computeIfAbsent(channelName,
-                    key -> new FileEventChannel(baseDir.resolve(key)));
         try {
+            FileEventChannel channel = channels.computeIfAbsent(channelName, this::openChannel);
             return channel.publish(event);
         } catch (Exception exp) {
             logger.error("Error attempting publishSync event to FileEventSink", exp);
@@ -49,14 +63,32 @@ public class FileEventSink implements EventSink {
 
     @Override
     public CompletableFuture<Long> publishAsync(final String channelName, final BsonObject event) {
-        // Todo current impl needs work to write async
-        CompletableFuture<Long> fut = CompletableFuture.completedFuture(publishSync(channelName,event));
-        return fut;
+        // events are queued and written to the channel in groups, see FileEventBatcher
+        final FileEventBatcher batcher = batchers.computeIfAbsent(channelName,
+                key -> new FileEventBatcher(channels.computeIfAbsent(key, this::openChannel), batchSize, batchLingerNanos));
+        return batcher.publish(event);
+    }
+
+    private FileEventChannel openChannel(final String channelName) {
+        final Path channelPath = baseDir.resolve(channelName);
+        return segmented ?
+                new SegmentedFileEventChannel(channelPath, segmentSize, segmentIndexInterval) :
+                new FilePerEventChannel(channelPath, timeIndexIntervalMillis);
     }
 
     @Override
     public void close() {
-       // nothing to see here
+        // write out any events still waiting in a batch
+        batchers.values().forEach(FileEventBatcher::close);
+        batchers.clear();
+        channels.values().forEach( channel -> {
+            try {
+                channel.close();
+            } catch (Exception exp) {
+                logger.error("Error closing File Event Channel", exp);
+            }
+        });
+        channels.clear();
     }
 
 }
@@ -10,15 +10,18 @@ import io.mewbase.util.FallibleFuture;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.Instant;
+import java.util.Optional;
 
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import static io.mewbase.eventsource.impl.file.FileEventUtils.ensureChannelExists;
-import static io.mewbase.eventsource.impl.file.FileEventUtils.eventNumberAfterInstant;
-import static io.mewbase.eventsource.impl.file.FileEventUtils.nextEventNumberFromPath;
 import static java.lang.Long.max;
 
 
@@ -27,7 +30,12 @@ public class FileEventSource implements EventSource, FallibleFuture
 
     private final static Logger logger = LoggerFactory.getLogger(FileEventSource.class);
 
+    private final Config cfg;
     private final Path baseDir;
+    private final boolean segmented;
+
+    // all of the subscriptions to a channel share the multiplexer's reader
+    private final ConcurrentMap<Path, FileEventMultiplexer> multiplexers = new ConcurrentHashMap<>();
 
 
     public FileEventSource() {
@@ -35,7 +43,9 @@ public class FileEventSource implements EventSource, FallibleFuture
     }
 
     public FileEventSource(Config cfg) {
+        this.cfg = cfg;
         baseDir = Paths.get(cfg.getString("mewbase.event.source.file.basedir"));
+        segmented = cfg.getBoolean("mewbase.event.source.file.segmented");
         logger.info("Created File Event Source connection with base directory " + baseDir);
     }
 
@@ -44,8 +54,8 @@ public class FileEventSource implements EventSource, FallibleFuture
     public CompletableFuture<Subscription> subscribe(String channelName, EventHandler eventHandler) {
         Path channelPath = ensureChannelExists(baseDir,channelName);
             try {
-                long next = nextEventNumberFromPath(channelPath);
-                return new FileEventSubscription(channelPath, next, eventHandler).initialisingFuture;
+                long next = nextEventNumber(channelPath);
+                return subscription(channelPath, next, eventHandler);
             } catch (Exception exp) {
                 return FallibleFuture.failedFuture(exp);
             }
@@ -56,9 +66,9 @@ public class FileEventSource implements EventSource, FallibleFuture
     public CompletableFuture<Subscription>  subscribeFromMostRecent(String channelName, EventHandler eventHandler) {
         Path channelPath = ensureChannelExists(baseDir,channelName);
         try {
-            long next = nextEventNumberFromPath(channelPath);
+            long next = nextEventNumber(channelPath);
             long currentEventNumber = max(0L, next - 1);
-            return new FileEventSubscription(channelPath, currentEventNumber, eventHandler).initialisingFuture;
+            return subscription(channelPath, currentEventNumber, eventHandler);
         } catch (Exception exp) {
             return FallibleFuture.failedFuture(exp);
         }
@@ -69,7 +79,7 @@ public class FileEventSource implements EventSource, FallibleFuture
         try {
             final long startEvent = max(startInclusive,0L);
             Path channelPath = ensureChannelExists(baseDir,channelName);
-            return new FileEventSubscription(channelPath, startEvent, eventHandler).initialisingFuture;
+            return subscription(channelPath, startEvent, eventHandler);
         } catch (Exception exp) {
             return FallibleFuture.failedFuture(exp);
         }
@@ -80,7 +90,7 @@ public class FileEventSource implements EventSource, FallibleFuture
         try {
             Path channelPath = ensureChannelExists(baseDir,channelName);
             long eventNumber = eventNumberAfterInstant(channelPath, startInstant);
-            return new FileEventSubscription(channelPath,eventNumber, eventHandler).initialisingFuture;
+            return subscription(channelPath, eventNumber, eventHandler);
         } catch (Exception exp) {
             return FallibleFuture.failedFuture(exp);
         }
@@ -90,12 +100,62 @@ public class FileEventSource implements EventSource, FallibleFuture
     public CompletableFuture<Subscription> subscribeAll(String channelName, EventHandler eventHandler) {
         try {
             Path channelPath = ensureChannelExists(baseDir,channelName);
-            return new FileEventSubscription(channelPath,0L, eventHandler).initialisingFuture;
+            return subscription(channelPath, 0L, eventHandler);
         } catch (Exception exp) {
             return FallibleFuture.failedFuture(exp);
         }
     }
 
+    @Override
+    public Optional<Long> mostRecentEventNumber(String channelName) {
+        try {
+            return Optional.of(nextEventNumber(ensureChannelExists(baseDir, channelName)) - 1);
+        } catch (IOException exp) {
+            throw new UncheckedIOException(exp);
+        }
+    }
+
+    /*
+    A channel is read as segmented if the source is configured that way or if a segmented
+    sink has already written to the channel.
+     */
+    private boolean isSegmented(final Path channelPath) throws IOException {
+        return segmented || FileEventUtils.isSegmented(channelPath);
+    }
+
+    private long nextEventNumber(final Path channelPath) throws IOException {
+        return isSegmented(channelPath) ?
+                FileEventUtils.nextEventNumberFromSegments(channelPath) :
+                FileEventUtils.nextEventNumberFromPath(channelPath);
+    }
+
+    private long eventNumberAfterInstant(final Path channelPath, final Instant startInstant) throws Exception {
+        return isSegmented(channelPath) ?
+                FileEventUtils.eventNumberAfterInstantInSegments(channelPath, startInstant) :
+                FileEventUtils.eventNumberAfterInstant(channelPath, startInstant);
+    }
+
+    private CompletableFuture<Subscription> subscription(final Path channelPath, final long firstEventNumber,
+                                                         final EventHandler eventHandler) throws IOException {
+        final boolean segmentedChannel = isSegmented(channelPath);
+        while (true) {
+            final FileEventMultiplexer multiplexer = multiplexers.computeIfAbsent(channelPath,
+                    path -> multiplexer(path, segmentedChannel));
+            final FileEventSubscription subscription =
+                    new FileEventSubscription(channelPath, multiplexer, firstEventNumber, eventHandler, cfg);
+            if (multiplexer.join(subscription)) {
+                subscription.initialisingFuture.complete(subscription);
+                return subscription.initialisingFuture;
+            }
+        }
+    }
+
+    private FileEventMultiplexer multiplexer(final Path channelPath, final boolean segmentedChannel) {
+        return new FileEventMultiplexer(channelPath,
+                () -> segmentedChannel ? new SegmentedFileEventReader(channelPath) : new FilePerEventReader(channelPath),
+                stopped -> multiplexers.remove(channelPath, stopped));
+    }
+
     @Override
     public void close() {
        // Todo - Shut down stream
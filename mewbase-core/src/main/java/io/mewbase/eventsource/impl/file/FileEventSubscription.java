@@ -1,6 +1,7 @@
 package io.mewbase.eventsource.impl.file;
 
 
+import com.typesafe.config.Config;
 import io.mewbase.eventsource.EventHandler;
 import io.mewbase.eventsource.Subscription;
 import io.mewbase.eventsource.impl.EventDispatcher;
@@ -8,77 +9,74 @@ import io.mewbase.eventsource.impl.EventDispatcher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.File;
-import java.nio.channels.ClosedByInterruptException;
-import java.nio.file.*;
-import java.util.concurrent.*;
-
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
 
 
+/**
+ * A subscription to a file based channel. The events are read by the FileEventMultiplexer that is
+ * shared by all of the subscriptions to the channel and handed to this subscription's dispatcher.
+ */
 public class FileEventSubscription implements Subscription {
 
     private final static Logger logger = LoggerFactory.getLogger(FileEventSubscription.class);
 
-    private final Future reader;
-
     private final EventDispatcher<FileEvent> dispatcher;
 
     private final Path channelPath;
 
+    private final FileEventMultiplexer multiplexer;
+
+    // the number of the next event that this subscription is waiting for
+    private volatile long nextEventNumber;
+
     public final CompletableFuture<Subscription>initialisingFuture = new CompletableFuture<>();
 
-    private Boolean closing = false;
 
-    public FileEventSubscription(final Path channelPath, final long firstEventNumber, final EventHandler eventHandler) {
+    FileEventSubscription(final Path channelPath, final FileEventMultiplexer multiplexer,
+                          final long firstEventNumber, final EventHandler eventHandler, final Config cfg) {
 
         this.channelPath = channelPath;
+        this.multiplexer = multiplexer;
+        this.nextEventNumber = firstEventNumber;
 
-        // a FileEvent is an Event hence i -> i is identity.
-        this.dispatcher = new EventDispatcher<>( i -> i, eventHandler );
-
-        reader = Executors.newSingleThreadExecutor().submit( () -> {
-            long targetEvent = firstEventNumber;
-            initialisingFuture.complete(FileEventSubscription.this);
-            while (!closing) {
-                try {
-                    FileEvent evt = waitForEvent(targetEvent);
-                    dispatcher.dispatch(evt);
-                    targetEvent++;
-                } catch (InterruptedException exp ) {
-                    closing = true;
-                } catch (ClosedByInterruptException exp ) {
-                    closing = true;
-                } catch (Exception exp ) {
-                    logger.error("Error in event reader - closing subscription",exp);
-                    closing = true;
-                }
-            }
-            logger.info("Subscription closed for channel "+ channelPath.getFileName());
-        });
+        // a FileEvent is an Event hence i -> i is identity, and a failed handler closes the subscription.
+        this.dispatcher = new EventDispatcher<>( i -> i, eventHandler, cfg, this::close );
     }
 
 
-    @Override
-    public void close()  {
-        reader.cancel(true);
-        // drain and stop the dispatcher.
-        dispatcher.stop();
+    long nextEventNumber() {
+        return nextEventNumber;
     }
 
-
-    // This will sleep only the reading thread
-    // originally did this with a java.nio.WatchService but it was more complex and
-    // did not allow fine grain control of the watchWindow.
-    private final int WATCH_WINDOW_MILLIS = 3;
-    private FileEvent waitForEvent(final long eventNumber) throws Exception {
-        Path eventFilePath = channelPath.resolve(FileEventUtils.pathFromEventNumber(eventNumber));
-        File eventFile = eventFilePath.toFile();
-        logger.debug("Waiting for event " + eventNumber);
-        while (! (eventFile.exists() && eventFile.length() > 0) ) {
-            Thread.sleep( WATCH_WINDOW_MILLIS);
+    /**
+     * Dispatch the event unless this subscription starts after it.
+     */
+    void deliver(final FileEvent evt) throws InterruptedException {
+        if (evt.getEventNumber() >= nextEventNumber) {
+            dispatcher.dispatch(evt);
+            nextEventNumber = evt.getEventNumber() + 1;
         }
-        logger.debug("Got Event " + eventNumber);
-        return FileEventUtils.fileToEvent( eventFilePath.toFile() );
     }
 
-}
\ No newline at end of file
+    /**
+     * As for deliver but without waiting for room in the dispatcher.
+     * @return false if the dispatcher is full and the event has not been delivered.
+     */
+    boolean offer(final FileEvent evt) {
+        if (evt.getEventNumber() < nextEventNumber) return true;
+        if (!dispatcher.offer(evt)) return false;
+        nextEventNumber = evt.getEventNumber() + 1;
+        return true;
+    }
+
+
+    @Override
+    public void close()  {
+        // stop the dispatcher first as the subscription's own reader may be blocked dispatching to it.
+        dispatcher.stop();
+        multiplexer.leave(this);
+        logger.info("Subscription closed for channel "+ channelPath.getFileName());
+    }
+
+}
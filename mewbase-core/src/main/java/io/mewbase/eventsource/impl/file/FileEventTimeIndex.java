@@ -0,0 +1,191 @@
+package io.mewbase.eventsource.impl.file;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Stream;
+
+import static java.nio.file.StandardOpenOption.*;
+
+
+/**
+ * A sparse, persisted, index of a channel written a file per event. Each entry holds the number and
+ * timestamp of the first event written in an interval of time, so that
+ *
+ *   - the next event number can be found by probing for event files from the last entry and
+ *   - the first event after an instant can be found by a binary search of the entries
+ *     followed by a short scan of the events in the interval,
+ *
+ * rather than by listing and reading the whole of the channel.
+ *
+ * The entries are fixed size records kept in event number order, so readers search the file in place
+ * and only ever read a handful of records. Writers append under a lock on the index file, and drop
+ * an entry that would be out of order because another process has indexed a later event.
+ *
+ * The writing FilePerEventChannel appends to the index and rebuilds it if it is missing. Readers
+ * fall back to scanning the channel when there is no index.
+ */
+final class FileEventTimeIndex implements Closeable {
+
+    private final static Logger logger = LoggerFactory.getLogger(FileEventTimeIndex.class);
+
+    static final String INDEX_FILE_NAME = "time.idx";
+    static final int ENTRY_SIZE = 8 + 8;
+
+    // a file lock is held by the whole process, so writers in the same process also take this lock first
+    private final static ConcurrentMap<Path, Object> writeLocks = new ConcurrentHashMap<>();
+
+    private final FileChannel index;
+    private final Object writeLock;
+    private final long intervalMillis;
+    private long lastEntryMillis = Long.MIN_VALUE;
+
+
+    private FileEventTimeIndex(final FileChannel index, final Object writeLock, final long intervalMillis) {
+        this.index = index;
+        this.writeLock = writeLock;
+        this.intervalMillis = intervalMillis;
+    }
+
+    static Path indexPath(final Path channelPath) {
+        return channelPath.resolve(INDEX_FILE_NAME);
+    }
+
+    /**
+     * Open the index of a channel for appending, building it from the events in the channel if it is missing.
+     */
+    static FileEventTimeIndex open(final Path channelPath, final long intervalMillis) throws IOException {
+        final Path indexPath = indexPath(channelPath);
+        final boolean rebuild = !Files.exists(indexPath);
+        final Object writeLock = writeLocks.computeIfAbsent(indexPath.toAbsolutePath().normalize(), path -> new Object());
+        final FileEventTimeIndex timeIndex =
+                new FileEventTimeIndex(FileChannel.open(indexPath, CREATE, READ, WRITE), writeLock, intervalMillis);
+        if (rebuild) {
+            timeIndex.rebuild(channelPath);
+        } else {
+            final long entries = timeIndex.index.size() / ENTRY_SIZE;
+            if (entries > 0) timeIndex.lastEntryMillis = readEntry(timeIndex.index, entries - 1)[1];
+        }
+        return timeIndex;
+    }
+
+    /**
+     * Record that an event has been written, adding an entry if it is the first event in a new interval.
+     */
+    void record(final long eventNumber, final long epochMillis) throws IOException {
+        if (lastEntryMillis != Long.MIN_VALUE && epochMillis < lastEntryMillis + intervalMillis) return;
+        synchronized (writeLock) {
+            try (FileLock ignored = index.lock()) {
+                // drop the remains of an append that a process did not finish
+                final long entries = index.size() / ENTRY_SIZE;
+                if (index.size() > entries * ENTRY_SIZE) index.truncate(entries * ENTRY_SIZE);
+                if (entries > 0) {
+                    // another process may have added entries since this one last looked
+                    final long[] last = readEntry(index, entries - 1);
+                    lastEntryMillis = Math.max(lastEntryMillis, last[1]);
+                    if (last[0] >= eventNumber || epochMillis < lastEntryMillis + intervalMillis) return;
+                }
+                final ByteBuffer entry = ByteBuffer.allocate(ENTRY_SIZE);
+                entry.putLong(eventNumber);
+                entry.putLong(epochMillis);
+                ((java.nio.Buffer)entry).flip();
+                long position = entries * ENTRY_SIZE;
+                while (entry.hasRemaining()) position += index.write(entry, position);
+                lastEntryMillis = epochMillis;
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        index.close();
+    }
+
+
+    /**
+     * @return the number of whole entries in the index of a channel, which is zero if there is no index.
+     */
+    static long entryCount(final Path channelPath) throws IOException {
+        final Path indexPath = indexPath(channelPath);
+        return Files.exists(indexPath) ? Files.size(indexPath) / ENTRY_SIZE : 0;
+    }
+
+    /**
+     * @return the number of the event in the last entry of the index of a channel, or -1 if the index is empty.
+     */
+    static long lastEventNumber(final Path channelPath) throws IOException {
+        final Path indexPath = indexPath(channelPath);
+        if (!Files.exists(indexPath)) return -1;
+        try (FileChannel index = FileChannel.open(indexPath, READ)) {
+            // the index may be being appended to so only read whole entries
+            final long entries = index.size() / ENTRY_SIZE;
+            return entries == 0 ? -1 : readEntry(index, entries - 1)[0];
+        }
+    }
+
+    /**
+     * @return the number of the last event in the index at or before the given time, the number of the first
+     * event in the index if they are all later, or -1 if the index is empty.
+     */
+    static long eventNumberAtOrBefore(final Path channelPath, final long epochMillis) throws IOException {
+        final Path indexPath = indexPath(channelPath);
+        if (!Files.exists(indexPath)) return -1;
+        try (FileChannel index = FileChannel.open(indexPath, READ)) {
+            final long entries = index.size() / ENTRY_SIZE;
+            if (entries == 0) return -1;
+            long low = 0;
+            long high = entries - 1;
+            while (low < high) {
+                final long mid = (low + high + 1) >>> 1;
+                if (readEntry(index, mid)[1] <= epochMillis) low = mid; else high = mid - 1;
+            }
+            return readEntry(index, low)[0];
+        }
+    }
+
+
+    /**
+     * @return the (event number, epoch millis) of the entry at the given position in the index.
+     */
+    private static long[] readEntry(final FileChannel index, final long entry) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(ENTRY_SIZE);
+        long position = entry * ENTRY_SIZE;
+        while (buffer.hasRemaining()) {
+            final int read = index.read(buffer, position);
+            if (read < 0) throw new IOException("Time index entry " + entry + " is incomplete");
+            position += read;
+        }
+        ((java.nio.Buffer)buffer).flip();
+        return new long[] { buffer.getLong(), buffer.getLong() };
+    }
+
+
+    private void rebuild(final Path channelPath) throws IOException {
+        final long[] eventNumbers;
+        try (Stream<Path> files = Files.list(channelPath)) {
+            eventNumbers = files
+                    .map(f -> f.getFileName().toString())
+                    .filter(name -> name.chars().allMatch(Character::isDigit))
+                    .mapToLong(Long::parseLong)
+                    .sorted()
+                    .toArray();
+        }
+        for (long eventNumber : eventNumbers) {
+            final Path eventPath = channelPath.resolve(FileEventUtils.pathFromEventNumber(eventNumber));
+            if (Files.size(eventPath) > 0) record(eventNumber, FileEventUtils.fileToEpochMillis(eventPath.toFile()));
+        }
+        if (eventNumbers.length > 0) {
+            logger.info("Rebuilt time index for " + eventNumbers.length + " events in channel " + channelPath);
+        }
+    }
+
+}
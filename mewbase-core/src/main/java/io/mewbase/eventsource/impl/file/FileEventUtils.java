@@ -17,6 +17,7 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.Instant;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
 
 
 public interface FileEventUtils {
@@ -31,13 +32,29 @@ public interface FileEventUtils {
         return Long.parseLong(path.getFileName().toString());
     }
 
+    /**
+     * Return the event number of the next event to be created in the channel.
+     *
+     * If the channel has a time index this probes for the files that follow the last event in the index,
+     * otherwise it looks at all of the files in the channel.
+     * @param channelPath
+     * @return theNextValidEventNumber
+     */
+    static long nextEventNumberFromPath(final Path channelPath) throws IOException {
+        final long lastIndexed = FileEventTimeIndex.lastEventNumber(channelPath);
+        if (lastIndexed >= 0 && eventFileExists(channelPath, lastIndexed)) {
+            return nextEventNumberAfter(channelPath, lastIndexed);
+        }
+        return nextEventNumberFromListing(channelPath);
+    }
+
     /**
      * Look at all the files in the channel and return the event number of the next one
      * to be created.
      * @param channelPath
      * @return theNextValidEventNumber
      */
-    static long nextEventNumberFromPath(final Path channelPath) throws IOException {
+    static long nextEventNumberFromListing(final Path channelPath) throws IOException {
         AtomicLong currentlyMostRecent = new AtomicLong();
         return Files.list(channelPath)
                     //.filter(f -> Files.isRegularFile(f))
@@ -56,26 +73,68 @@ public interface FileEventUtils {
                     .orElse(-1) + 1l;   //
     }
 
+    /**
+     * Given that the event file exists find the first missing event file after it, by doubling the
+     * distance probed and then a binary search, so in O(log n) file checks.
+     */
+    static long nextEventNumberAfter(final Path channelPath, final long existingEventNumber) {
+        long present = existingEventNumber;
+        long step = 1;
+        while (eventFileExists(channelPath, present + step)) {
+            present += step;
+            step *= 2;
+        }
+        long missing = present + step;
+        while (missing - present > 1) {
+            final long mid = present + (missing - present) / 2;
+            if (eventFileExists(channelPath, mid)) present = mid; else missing = mid;
+        }
+        return missing;
+    }
+
+    static boolean eventFileExists(final Path channelPath, final long eventNumber) {
+        return Files.exists(channelPath.resolve(pathFromEventNumber(eventNumber)));
+    }
+
 
     /**
      * Given that a instant is in the past find the first event that is subsequent to that instant,
      * this may be the first event in the stream.
      * If the event in the future return the nextValid event number as above.
+     *
+     * If the channel has a time index only the events in the interval of the index that holds the
+     * instant are read, otherwise every event written around or after the instant is.
      * @param channelPath
      * @param startInstant
      * @return the first eventNumber subsequent to the point in time.
      * @throws IOException
      */
     static long eventNumberAfterInstant(final Path channelPath, final Instant startInstant) throws Exception {
+        final long startEpochMillis = startInstant.toEpochMilli();
+        final long fromEventNumber = FileEventTimeIndex.eventNumberAtOrBefore(channelPath, startEpochMillis);
+        if (fromEventNumber < 0 || !eventFileExists(channelPath, fromEventNumber)) {
+            return eventNumberAfterInstantFromListing(channelPath, startInstant);
+        }
+        long eventNumber = fromEventNumber;
+        while (eventFileExists(channelPath, eventNumber)) {
+            final File eventFile = channelPath.resolve(pathFromEventNumber(eventNumber)).toFile();
+            if (fileToEpochMillis(eventFile) > startEpochMillis) return eventNumber;
+            eventNumber++;
+        }
+        return eventNumber;
+    }
+
+    static long eventNumberAfterInstantFromListing(final Path channelPath, final Instant startInstant) throws Exception {
         long startEpochMillis = startInstant.toEpochMilli();
         long startEpochSecs = startEpochMillis - 1001l;
         return Files.list(channelPath)
                 .filter(f -> Files.isRegularFile(f)
+                            && f.toFile().getName().chars().allMatch(Character::isDigit)
                             && f.toFile().lastModified() > startEpochSecs
                             && FileEventUtils.fileToEpochMillis(f.toFile()) > startEpochMillis)
                 .mapToLong(f -> Long.parseLong(f.toFile().getName()))
                 .min()
-                .orElse(nextEventNumberFromPath(channelPath));
+                .orElse(nextEventNumberFromListing(channelPath));
     }
 
 
@@ -95,22 +154,82 @@ public interface FileEventUtils {
 
 
     static byte[] eventToByteArray(final BsonObject event) {
+        return eventToByteArray(event, Instant.now().toEpochMilli());
+    }
+
+    static byte[] eventToByteArray(final BsonObject event, final long epochMillis) {
+        return eventToByteArray(BsonCodec.bsonObjectToBsonBytes(event), epochMillis);
+    }
+
+    static byte[] eventToByteArray(final byte[] bytes, final long epochMillis) {
         ByteBuf headedBuf = Unpooled.buffer();
-        final byte [] bytes = BsonCodec.bsonObjectToBsonBytes(event);
-        headedBuf.writeLong(Instant.now().toEpochMilli());
+        headedBuf.writeLong(epochMillis);
         headedBuf.writeLong(EventUtils.checksum(bytes));
         headedBuf.writeBytes(bytes);
         return headedBuf.array();
     }
 
 
+    /**
+     * The numbers of the first events in each of the segments of a segmented channel, in order.
+     */
+    static long[] segmentNumbersFromPath(final Path channelPath) throws IOException {
+        if (!Files.isDirectory(channelPath)) return new long[0];
+        try (Stream<Path> files = Files.list(channelPath)) {
+            return files
+                    .map(f -> f.getFileName().toString())
+                    .filter(name -> name.endsWith(FileEventSegment.LOG_SUFFIX))
+                    .mapToLong(name -> Long.parseLong(name.substring(0, name.length() - FileEventSegment.LOG_SUFFIX.length())))
+                    .sorted()
+                    .toArray();
+        }
+    }
+
+    static boolean isSegmented(final Path channelPath) throws IOException {
+        return segmentNumbersFromPath(channelPath).length > 0;
+    }
+
+    /**
+     * As for nextEventNumberFromPath but for a segmented channel.
+     */
+    static long nextEventNumberFromSegments(final Path channelPath) throws IOException {
+        final long[] segmentNumbers = segmentNumbersFromPath(channelPath);
+        if (segmentNumbers.length == 0) return nextEventNumberFromPath(channelPath);
+        try (FileEventSegment segment = FileEventSegment.open(channelPath, segmentNumbers[segmentNumbers.length - 1])) {
+            return segment.seek(Long.MAX_VALUE)[1];
+        }
+    }
+
+    /**
+     * As for eventNumberAfterInstant but for a segmented channel.
+     */
+    static long eventNumberAfterInstantInSegments(final Path channelPath, final Instant startInstant) throws IOException {
+        final long startEpochMillis = startInstant.toEpochMilli();
+        final long[] segmentNumbers = segmentNumbersFromPath(channelPath);
+        for (int i = 0; i < segmentNumbers.length; i++) {
+            // skip the whole segment if the first event in the next one is still too early
+            if (i + 1 < segmentNumbers.length) {
+                try (FileEventSegment next = FileEventSegment.open(channelPath, segmentNumbers[i + 1])) {
+                    final long nextEpochMillis = next.readEpochMillis(0);
+                    if (nextEpochMillis >= 0 && nextEpochMillis <= startEpochMillis) continue;
+                }
+            }
+            // if none of the events in this segment are later it is the first event of the next segment
+            try (FileEventSegment segment = FileEventSegment.open(channelPath, segmentNumbers[i])) {
+                return segment.eventNumberAfter(startEpochMillis);
+            }
+        }
+        return nextEventNumberFromSegments(channelPath);
+    }
+
+
     static FileEvent fileToEvent(File file) throws Exception {
         final long eventNumber = FileEventUtils.eventNumberFromPath(file.toPath());
         final ByteBuf headedBuf = Unpooled.wrappedBuffer(Files.readAllBytes(file.toPath()));
         final long epochMillis = headedBuf.readLong();
         final long crc32 = headedBuf.readLong();
-        final ByteBuf eventBuf = Unpooled.buffer(headedBuf.readableBytes());
-        headedBuf.readBytes(eventBuf);
+        // the rest of the file is the event so share it rather than copy it
+        final ByteBuf eventBuf = headedBuf.readSlice(headedBuf.readableBytes());
         return new FileEvent(eventNumber,epochMillis,crc32,eventBuf);
         }
 
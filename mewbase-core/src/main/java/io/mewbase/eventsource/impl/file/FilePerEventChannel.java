@@ -0,0 +1,108 @@
+package io.mewbase.eventsource.impl.file;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static java.nio.file.StandardOpenOption.*;
+
+
+/**
+ * A channel that writes each event to a file of its own, named after the event number. Events cannot be
+ * written a file per event to a channel that already holds events written in segments.
+ */
+public class FilePerEventChannel implements FileEventChannel {
+
+    private final static Logger logger = LoggerFactory.getLogger(FilePerEventChannel.class);
+
+    // the default interval between the entries in the time index
+    public static final long DEFAULT_TIME_INDEX_INTERVAL_MILLIS = 1000;
+
+    private final Path channelPath;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final AtomicLong nextEventNumber;
+    private final FileEventTimeIndex timeIndex;
+    private final FileEventNotifier notifier;
+
+    private boolean closed = false;
+
+
+    public FilePerEventChannel(final Path channelPath) {
+        this(channelPath, DEFAULT_TIME_INDEX_INTERVAL_MILLIS);
+    }
+
+    public FilePerEventChannel(final Path channelPath, final long timeIndexIntervalMillis) {
+
+        this.channelPath = channelPath;
+        this.notifier = FileEventNotifier.forChannel(channelPath);
+
+        try {
+            // create the directory if it doesnt exist
+            Files.createDirectories(channelPath);
+            // the readers of a segmented channel only read its segments so it cannot take events in files
+            if (FileEventUtils.isSegmented(channelPath)) {
+                throw new IllegalStateException("Channel " + channelPath + " already holds events written in segments");
+            }
+            timeIndex = FileEventTimeIndex.open(channelPath, timeIndexIntervalMillis);
+            nextEventNumber = new AtomicLong(FileEventUtils.nextEventNumberFromPath(channelPath));
+            logger.info("Created File Event Channel at path " + channelPath);
+        } catch (Exception exp) {
+            logger.error("Error creating File Event Channel", exp);
+            throw new RuntimeException(exp);
+        }
+    }
+
+
+    @Override
+    public long publishEncoded(final byte[] bson) throws IOException {
+        // stop racing across threads and use the file create lock across processes
+        lock.lock();
+        try {
+            if (closed) throw new ClosedChannelException();
+            final long assignedEventNumber = nextEventNumber.getAndIncrement();
+            final long epochMillis = System.currentTimeMillis();
+            Path fullPath = channelPath.resolve(FileEventUtils.pathFromEventNumber(assignedEventNumber));
+            Files.write(fullPath, FileEventUtils.eventToByteArray(bson, epochMillis),
+                    CREATE_NEW, // throws exception if another process has just created this file.
+                    WRITE,      // going to write into the file
+                    SYNC        // write contents and meta data on sync
+                    );
+            timeIndex.record(assignedEventNumber, epochMillis);
+            notifier.published();
+            return assignedEventNumber;
+        } catch (FileAlreadyExistsException exp) {
+            // just recurse and increment file number again
+            return publishEncoded(bson);
+        } catch (Exception exp) {
+            logger.error("Error attempting publishSync event to File Event Channel", exp);
+            throw exp;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Close the time index, which the channel holds open.
+     */
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (closed) return;
+            closed = true;
+            timeIndex.close();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+}
@@ -0,0 +1,48 @@
+package io.mewbase.eventsource.impl.file;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.nio.file.Path;
+
+
+/**
+ * Reads the events of a channel written by a FilePerEventChannel.
+ */
+final class FilePerEventReader implements FileEventReader {
+
+    private final static Logger logger = LoggerFactory.getLogger(FilePerEventReader.class);
+
+    private final Path channelPath;
+    private final FileEventNotifier notifier;
+    private final FileEventNotifier.Backoff backoff = new FileEventNotifier.Backoff();
+
+    FilePerEventReader(final Path channelPath) {
+        this.channelPath = channelPath;
+        this.notifier = FileEventNotifier.forChannel(channelPath);
+    }
+
+    @Override
+    public FileEvent read(final long eventNumber) throws Exception {
+        Path eventFilePath = channelPath.resolve(FileEventUtils.pathFromEventNumber(eventNumber));
+        File eventFile = eventFilePath.toFile();
+        logger.debug("Waiting for event " + eventNumber);
+        // This will block only the reading thread until woken by a writer in this process
+        // or, for writers in other processes, until the backoff has passed
+        long seen = notifier.version();
+        while (! (eventFile.exists() && eventFile.length() > 0) ) {
+            notifier.await(seen, backoff.next());
+            seen = notifier.version();
+        }
+        backoff.reset();
+        logger.debug("Got Event " + eventNumber);
+        return FileEventUtils.fileToEvent( eventFilePath.toFile() );
+    }
+
+    @Override
+    public void close() {
+        // nothing held open between reads
+    }
+
+}
@@ -0,0 +1,168 @@
+package io.mewbase.eventsource.impl.file;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+
+/**
+ * A channel that appends events to a series of large, pre-allocated, segment files rather than writing
+ * a file per event. The event numbering is the same as for a FilePerEventChannel.
+ *
+ * A segmented channel must only be written by one instance at a time, which holds a lock on the channel
+ * until it is closed, so a second sink on the same path fails to open the channel rather than interleave its
+ * events. Events cannot be appended in segments to a channel that already holds events written a file per event.
+ */
+public class SegmentedFileEventChannel implements FileEventChannel {
+
+    private final static Logger logger = LoggerFactory.getLogger(SegmentedFileEventChannel.class);
+
+    static final String WRITER_LOCK_FILE = "segments.lock";
+
+    private final Path channelPath;
+    private final long segmentSize;
+    private final int indexInterval;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final FileEventNotifier notifier;
+    private final FileChannel writerLockChannel;
+
+    // the segment currently being appended to, or null if it needs to be recovered
+    private FileEventSegment segment = null;
+    private boolean closed = false;
+
+
+    public SegmentedFileEventChannel(final Path channelPath, final long segmentSize, final int indexInterval) {
+        this.channelPath = channelPath;
+        this.segmentSize = segmentSize;
+        this.indexInterval = indexInterval;
+        this.notifier = FileEventNotifier.forChannel(channelPath);
+        try {
+            Files.createDirectories(channelPath);
+            writerLockChannel = FileChannel.open(channelPath.resolve(WRITER_LOCK_FILE), CREATE, WRITE);
+            try {
+                if (tryLock(writerLockChannel) == null) {
+                    throw new IllegalStateException("Segmented File Event Channel " + channelPath + " is already open for writing");
+                }
+                openSegment();
+            } catch (Exception exp) {
+                writerLockChannel.close();
+                throw exp;
+            }
+            logger.info("Created Segmented File Event Channel at path " + channelPath);
+        } catch (Exception exp) {
+            logger.error("Error creating Segmented File Event Channel", exp);
+            throw new RuntimeException(exp);
+        }
+    }
+
+    private static FileLock tryLock(final FileChannel channel) throws IOException {
+        try {
+            return channel.tryLock();
+        } catch (OverlappingFileLockException exp) {
+            // held by another instance in this process
+            return null;
+        }
+    }
+
+
+    @Override
+    public long publishEncoded(final byte[] bson) throws IOException {
+        final List<byte[]> bsons = new ArrayList<>(1);
+        bsons.add(bson);
+        return publishAllEncoded(bsons).get(0);
+    }
+
+    /**
+     * Append all of the events and then sync the segment(s) once for the whole group.
+     */
+    @Override
+    public List<Long> publishAllEncoded(final List<byte[]> bsons) throws IOException {
+        final long epochMillis = System.currentTimeMillis();
+        final List<Long> eventNumbers = new ArrayList<>(bsons.size());
+        lock.lock();
+        try {
+            if (closed) throw new ClosedChannelException();
+            if (segment == null) openSegment();
+            for (byte[] bson : bsons) {
+                long assignedEventNumber = segment.append(epochMillis, bson);
+                if (assignedEventNumber < 0) {
+                    rollSegment(bson.length);
+                    assignedEventNumber = segment.append(epochMillis, bson);
+                }
+                eventNumbers.add(assignedEventNumber);
+            }
+            segment.force();
+            notifier.published();
+            return eventNumbers;
+        } catch (ClosedChannelException exp) {
+            // an interrupt of the publishing thread closes the segment so recover it on the next publish
+            segment = null;
+            logger.error("Segment closed while publishing to Segmented File Event Channel", exp);
+            throw exp;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+
+    /**
+     * Write out the current segment and release the channel to other writers.
+     */
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (closed) return;
+            closed = true;
+            if (segment != null) {
+                segment.force();
+                segment.close();
+                segment = null;
+            }
+        } finally {
+            try {
+                writerLockChannel.close();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+
+    private void openSegment() throws IOException {
+        final long[] segmentNumbers = FileEventUtils.segmentNumbersFromPath(channelPath);
+        if (segmentNumbers.length > 0) {
+            segment = FileEventSegment.recover(channelPath, segmentNumbers[segmentNumbers.length - 1], indexInterval);
+        } else {
+            // the readers of a segmented channel only read its segments so it cannot follow events in files
+            if (FileEventUtils.nextEventNumberFromPath(channelPath) > 0) {
+                throw new IllegalStateException("Channel " + channelPath + " already holds events written a file per event");
+            }
+            segment = FileEventSegment.create(channelPath, 0, segmentSize, indexInterval);
+        }
+    }
+
+    private void rollSegment(final int bsonLength) throws IOException {
+        final long firstEventNumber = segment.nextEventNumber();
+        segment.force();
+        segment.close();
+        // a single event larger than the segment size gets a segment to itself
+        final long size = Math.max(segmentSize, FileEventSegment.RECORD_HEADER_SIZE + bsonLength);
+        segment = FileEventSegment.create(channelPath, firstEventNumber, size, indexInterval);
+        logger.debug("Rolled Segmented File Event Channel " + channelPath + " at event " + firstEventNumber);
+    }
+
+}
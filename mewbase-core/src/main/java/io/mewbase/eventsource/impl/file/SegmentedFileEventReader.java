@@ -0,0 +1,91 @@
+package io.mewbase.eventsource.impl.file;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+
+/**
+ * Reads the events of a channel written by a SegmentedFileEventChannel, tailing the segment being
+ * written and moving on to the next segment once the writer has rolled over to it.
+ */
+final class SegmentedFileEventReader implements FileEventReader {
+
+    private final static Logger logger = LoggerFactory.getLogger(SegmentedFileEventReader.class);
+
+    private final Path channelPath;
+    private final FileEventNotifier notifier;
+    private final FileEventNotifier.Backoff backoff = new FileEventNotifier.Backoff();
+
+    private FileEventSegment segment = null;
+    private long position;
+    private long nextEventNumber;
+
+    SegmentedFileEventReader(final Path channelPath) {
+        this.channelPath = channelPath;
+        this.notifier = FileEventNotifier.forChannel(channelPath);
+    }
+
+    @Override
+    public FileEvent read(final long eventNumber) throws Exception {
+        if (segment == null || eventNumber != nextEventNumber) {
+            seek(eventNumber);
+        }
+        logger.debug("Waiting for event " + eventNumber);
+        while (true) {
+            // As for the FilePerEventReader this blocks only the reading thread
+            final long seen = notifier.version();
+            final FileEvent event = segment.readEvent(position, nextEventNumber);
+            if (event != null) {
+                backoff.reset();
+                position += FileEventSegment.recordSize(event);
+                nextEventNumber++;
+                // the seek may have stopped short if the event had not been written yet
+                if (event.getEventNumber() >= eventNumber) {
+                    logger.debug("Got Event " + event.getEventNumber());
+                    return event;
+                }
+            } else if (nextEventNumber > segment.firstEventNumber
+                    && Files.exists(FileEventSegment.logPath(channelPath, nextEventNumber))) {
+                // the writer has rolled on to a new segment, the current segment's own log never counts
+                segment.close();
+                segment = FileEventSegment.open(channelPath, nextEventNumber);
+                position = 0;
+            } else {
+                notifier.await(seen, backoff.next());
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (segment != null) segment.close();
+        segment = null;
+    }
+
+
+    private void seek(final long eventNumber) throws Exception {
+        close();
+        long seen = notifier.version();
+        long[] segmentNumbers = FileEventUtils.segmentNumbersFromPath(channelPath);
+        while (segmentNumbers.length == 0) {
+            notifier.await(seen, backoff.next());
+            seen = notifier.version();
+            segmentNumbers = FileEventUtils.segmentNumbersFromPath(channelPath);
+        }
+        backoff.reset();
+        // the last segment starting at or before the event, or the first segment if the event precedes them all
+        long firstEventNumber = segmentNumbers[0];
+        for (long segmentNumber : segmentNumbers) {
+            if (segmentNumber <= eventNumber) firstEventNumber = segmentNumber;
+        }
+        segment = FileEventSegment.open(channelPath, firstEventNumber);
+        final long[] found = segment.seek(eventNumber);
+        position = found[0];
+        nextEventNumber = found[1];
+    }
+
+}
@@ -7,6 +7,7 @@ import io.mewbase.eventsource.Subscription;
 import io.mewbase.eventsource.impl.EventDispatcher;
 
 import io.mewbase.eventsource.impl.file.FileEvent;
+import io.mewbase.util.ExecutionModel;
 
 import io.netty.buffer.Unpooled;
 import org.apache.hadoop.hbase.Cell;
@@ -21,7 +22,6 @@ import org.slf4j.LoggerFactory;
 
 import java.nio.channels.ClosedByInterruptException;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 
 
@@ -47,7 +47,7 @@ public class HBaseEventSubscription implements Subscription {
         // a FileEvent is an Event hence i -> i is identity.
         this.dispatcher = new EventDispatcher<>( i -> i, eventHandler );
 
-        reader = Executors.newSingleThreadExecutor().submit( () -> {
+        reader = ExecutionModel.instance().blocking().submit( () -> {
             long targetEvent = firstEventNumber;
             initialisingFuture.complete(HBaseEventSubscription.this);
             while (!closing) {
@@ -5,13 +5,13 @@ import com.typesafe.config.ConfigFactory;
 import io.mewbase.bson.BsonCodec;
 import io.mewbase.bson.BsonObject;
 import io.mewbase.eventsource.EventSink;
+import io.mewbase.util.ExecutionModel;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.lang.reflect.Constructor;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
 
 import javax.jms.*;
 
@@ -25,7 +25,7 @@ public class JmsEventSink implements EventSink {
 
     private final static Logger logger = LoggerFactory.getLogger(JmsEventSink.class);
 
-    private final Executor exec = Executors.newSingleThreadExecutor();
+    private final Executor exec = ExecutionModel.instance().serial();
 
     private Session jmsSession;
 
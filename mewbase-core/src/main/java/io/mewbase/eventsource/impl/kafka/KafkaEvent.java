@@ -26,7 +26,7 @@ public class KafkaEvent implements Event {
 
     @Override
     public BsonObject getBson() {
-        if (event == null) event = BsonCodec.bsonBytesToBsonObject(eventBuf);
+        if (event == null) event = BsonCodec.bsonBytesToLazyBsonObject(eventBuf);
         return event;
     }
 
@@ -3,6 +3,7 @@ package io.mewbase.eventsource.impl.kafka;
 import io.mewbase.eventsource.EventHandler;
 import io.mewbase.eventsource.Subscription;
 import io.mewbase.eventsource.impl.EventDispatcher;
+import io.mewbase.util.ExecutionModel;
 
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
@@ -31,7 +32,7 @@ public class KafkaEventSubscription implements Subscription {
                 (consumerRecord) -> new  KafkaEvent(consumerRecord),
                 handler);
 
-        reader = Executors.newSingleThreadExecutor().submit( () -> {
+        reader = ExecutionModel.instance().blocking().submit( () -> {
             while (!Thread.interrupted()) {
                 try {
                     ConsumerRecords<String, byte[]> records = kafkaConsumer.poll(10);
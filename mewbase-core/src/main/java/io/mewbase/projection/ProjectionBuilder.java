@@ -3,6 +3,7 @@ package io.mewbase.projection;
 import io.mewbase.bson.BsonObject;
 import io.mewbase.eventsource.Event;
 
+import java.time.Duration;
 import java.util.concurrent.CompletableFuture;
 import java.util.function.BiFunction;
 import java.util.function.Function;
@@ -24,5 +25,47 @@ public interface ProjectionBuilder {
 
     ProjectionBuilder as(BiFunction<BsonObject, Event, BsonObject> projectionFunction);
 
+    /**
+     * Project the events in batches of up to maxBatchSize events rather than one at a time.
+     *
+     * The events in a batch are folded over the documents that they project onto in memory, and then
+     * the documents and the number of the last event in the batch are written once for the whole batch.
+     * A batch holds the events that were waiting when it was taken, so batches are large whilst the
+     * projection catches up with its channel and small once it is keeping up.
+     */
+    ProjectionBuilder batched(int maxBatchSize);
+
+    /**
+     * Project the events for different documents in parallel across a number of workers.
+     *
+     * The events for any one document are still projected in order. The state of the projection is the latest
+     * event such that it and all of the events before it have been projected, so after a restart some of the
+     * events may be projected again. A projection may be batched or parallel but not both.
+     */
+    ProjectionBuilder parallel(int workers);
+
+    /**
+     * Hold up to maxDocuments of the most recently used documents of the projection in memory and write
+     * them behind, every flushInterval, rather than read and write each document for every event.
+     *
+     * The state of the projection is written with the documents, so a projection that restarts projects
+     * again the events since the last flush. A cached projection may not also be batched or parallel.
+     */
+    ProjectionBuilder cached(int maxDocuments, Duration flushInterval);
+
+    /**
+     * Snapshot all of the documents of the projection, with the number of the last event projected into
+     * them, every interval. A snapshot is taken between events so the projection pauses while it is taken.
+     * Snapshots cannot be taken of a parallel projection.
+     */
+    ProjectionBuilder snapshotEvery(Duration interval);
+
+    /**
+     * Start the projection by restoring its latest snapshot and replaying only the events since, rather
+     * than carrying on from its last known state. A projection whose state has been lost is always restored
+     * from its latest snapshot, if it has one.
+     */
+    ProjectionBuilder fromSnapshot();
+
     CompletableFuture<Projection> create();
 }
@@ -0,0 +1,164 @@
+package io.mewbase.projection.impl;
+
+
+import io.mewbase.eventsource.Event;
+import io.mewbase.eventsource.EventHandler;
+import io.mewbase.util.ExecutionModel;
+import io.mewbase.util.SerialExecutor;
+import io.micrometer.core.instrument.Counter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+import java.util.function.LongFunction;
+
+
+/**
+ * The event handler of a projection that projects the events for different documents in parallel.
+ *
+ * Events are partitioned across the workers by document id so the events for any one document are
+ * still projected one at a time and in order. As the events complete out of order the state of the
+ * projection is the low-watermark, the number of the latest event such that it and every event before it
+ * have been projected, so a projection that restarts from its state never misses an event although it
+ * may project again some of the events that had completed after the low-watermark.
+ */
+class ParallelProjection implements EventHandler {
+
+    private final static Logger log = LoggerFactory.getLogger(ParallelProjection.class);
+
+    // the most events queued for each worker before the dispatcher waits for the workers to catch up
+    private final static int MAX_QUEUED_PER_WORKER = 256;
+
+    /**
+     * Projects an event onto a document and writes the document to the binder.
+     */
+    interface DocumentProjector {
+        void project(String docID, Event event) throws Exception;
+    }
+
+    private final String projectionName;
+    private final Function<Event, Boolean> eventFilter;
+    private final Function<Event, String> docIDSelector;
+    private final DocumentProjector projector;
+    private final LongFunction<CompletableFuture<Boolean>> stateWriter;
+    private final Counter projectionCounter;
+    private final ProjectionMetrics metrics;
+    private final Runnable onFailure;
+
+    // the workers wait on binder I/O so they run on the blocking threads rather than hold up dispatch
+    private final SerialExecutor[] workers;
+    private final Semaphore queued;
+
+    // the events handed to the workers that have not yet been projected
+    private final TreeSet<Long> inFlight = new TreeSet<>();
+    private long lastHandled = -1;
+    private long lowWatermark = -1;
+    private volatile boolean failed = false;
+
+
+    ParallelProjection(final String projectionName,
+                       final int workerCount,
+                       final Function<Event, Boolean> eventFilter,
+                       final Function<Event, String> docIDSelector,
+                       final DocumentProjector projector,
+                       final LongFunction<CompletableFuture<Boolean>> stateWriter,
+                       final Counter projectionCounter,
+                       final ProjectionMetrics metrics,
+                       final Runnable onFailure) {
+        this.projectionName = projectionName;
+        this.eventFilter = eventFilter;
+        this.docIDSelector = docIDSelector;
+        this.projector = projector;
+        this.stateWriter = stateWriter;
+        this.projectionCounter = projectionCounter;
+        this.metrics = metrics;
+        this.onFailure = onFailure;
+        this.workers = new SerialExecutor[workerCount];
+        for (int i = 0; i < workerCount; i++) workers[i] = ExecutionModel.instance().blockingSerial();
+        this.queued = new Semaphore(workerCount * MAX_QUEUED_PER_WORKER);
+    }
+
+
+    @Override
+    public void onEvent(final Event event) {
+        if (failed) return;
+        final long eventNumber = event.getEventNumber();
+        final String docID;
+        try {
+            if (!eventFilter.apply(event)) {
+                handled(eventNumber);
+                return;
+            }
+            docID = docIDSelector.apply(event);
+        } catch (Exception exp) {
+            log.error("Projection event handler failed", exp);
+            handled(eventNumber);
+            return;
+        }
+        if (docID == null) {
+            log.error("In projection " + projectionName + " document id selector returned null");
+            handled(eventNumber);
+            return;
+        }
+
+        try {
+            queued.acquire();
+        } catch (InterruptedException exp) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        started(eventNumber);
+        workers[Math.floorMod(docID.hashCode(), workers.length)].execute(() -> {
+            try {
+                // once a worker has failed the low-watermark must not pass the failed event
+                if (failed) return;
+                projectionCounter.increment();
+                projector.project(docID, event);
+                final CompletableFuture<Boolean> stateWrite = completed(eventNumber);
+                if (stateWrite != null) ProjectionMetrics.time(metrics.checkpoint, stateWrite::get);
+                metrics.projected(eventNumber);
+            } catch (Exception exp) {
+                log.error("Projection failed to execute - Stopping" +
+                        " Projection:" + projectionName +
+                        " Document ID:" + docID, exp);
+                failed = true;
+                onFailure.run();
+            } finally {
+                queued.release();
+            }
+        });
+    }
+
+    /**
+     * The number of the latest event such that it and every event before it have been projected.
+     */
+    synchronized long lowWatermark() {
+        return lowWatermark;
+    }
+
+
+    private synchronized void handled(final long eventNumber) {
+        lastHandled = eventNumber;
+    }
+
+    private synchronized void started(final long eventNumber) {
+        inFlight.add(eventNumber);
+        lastHandled = eventNumber;
+    }
+
+    /**
+     * Record that an event has been projected and, if the low-watermark has moved, write it as the state.
+     * The state is written whilst holding the lock so that the writes reach the binder in order.
+     */
+    private synchronized CompletableFuture<Boolean> completed(final long eventNumber) {
+        inFlight.remove(eventNumber);
+        final long mark = inFlight.isEmpty() ? lastHandled : inFlight.first() - 1;
+        if (mark <= lowWatermark) return null;
+        lowWatermark = mark;
+        return stateWriter.apply(mark);
+    }
+
+}
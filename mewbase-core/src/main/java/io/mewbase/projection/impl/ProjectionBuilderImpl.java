@@ -6,6 +6,7 @@ import io.mewbase.projection.Projection;
 import io.mewbase.projection.ProjectionBuilder;
 import io.mewbase.util.FallibleFuture;
 
+import java.time.Duration;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.function.BiFunction;
@@ -25,6 +26,12 @@ public class ProjectionBuilderImpl implements ProjectionBuilder, FallibleFuture
     private Function<Event, Boolean> eventFilter = doc -> true;
     private Function<Event, String> docIDSelector;
     private BiFunction<BsonObject, Event, BsonObject> projectionFunction;
+    private int maxBatchSize = 0;
+    private int workers = 0;
+    private int maxCachedDocuments = 0;
+    private Duration flushInterval = null;
+    private Duration snapshotInterval = null;
+    private boolean fromSnapshot = false;
 
 
     ProjectionBuilderImpl(ProjectionManagerImpl factory) {
@@ -68,6 +75,42 @@ public class ProjectionBuilderImpl implements ProjectionBuilder, FallibleFuture
     }
 
 
+    @Override
+    public ProjectionBuilder batched(int maxBatchSize) {
+        this.maxBatchSize = maxBatchSize;
+        return this;
+    }
+
+
+    @Override
+    public ProjectionBuilder parallel(int workers) {
+        this.workers = workers;
+        return this;
+    }
+
+
+    @Override
+    public ProjectionBuilder cached(int maxDocuments, Duration flushInterval) {
+        this.maxCachedDocuments = maxDocuments;
+        this.flushInterval = flushInterval;
+        return this;
+    }
+
+
+    @Override
+    public ProjectionBuilder snapshotEvery(Duration interval) {
+        this.snapshotInterval = interval;
+        return this;
+    }
+
+
+    @Override
+    public ProjectionBuilder fromSnapshot() {
+        this.fromSnapshot = true;
+        return this;
+    }
+
+
     @Override
     public CompletableFuture<Projection> create()  {
 
@@ -89,6 +132,24 @@ public class ProjectionBuilderImpl implements ProjectionBuilder, FallibleFuture
         if (projectionFunction == null) {
             return FallibleFuture.failedFuture(new IllegalStateException("Please specify a projection function"));
         }
+        if (maxBatchSize < 0) {
+            return FallibleFuture.failedFuture(new IllegalStateException("Please specify a positive batch size"));
+        }
+        if (workers < 0) {
+            return FallibleFuture.failedFuture(new IllegalStateException("Please specify a positive number of workers"));
+        }
+        if (maxBatchSize > 0 && workers > 0) {
+            return FallibleFuture.failedFuture(new IllegalStateException("A projection may be batched or parallel but not both"));
+        }
+        if (maxCachedDocuments < 0 || (maxCachedDocuments > 0 && flushInterval == null)) {
+            return FallibleFuture.failedFuture(new IllegalStateException("Please specify a positive cache size and a flush interval"));
+        }
+        if (maxCachedDocuments > 0 && (maxBatchSize > 0 || workers > 0)) {
+            return FallibleFuture.failedFuture(new IllegalStateException("A cached projection may not be batched or parallel"));
+        }
+        if (snapshotInterval != null && workers > 0) {
+            return FallibleFuture.failedFuture(new IllegalStateException("Snapshots cannot be taken of a parallel projection"));
+        }
 
         // Check for name collisions
         if ( factory.isProjection(projectionName) ) {
@@ -103,7 +164,13 @@ public class ProjectionBuilderImpl implements ProjectionBuilder, FallibleFuture
                                         binderName,
                                         eventFilter,
                                         docIDSelector,
-                                        projectionFunction);
+                                        projectionFunction,
+                                        maxBatchSize,
+                                        workers,
+                                        maxCachedDocuments,
+                                        flushInterval,
+                                        snapshotInterval,
+                                        fromSnapshot);
     }
 
 }
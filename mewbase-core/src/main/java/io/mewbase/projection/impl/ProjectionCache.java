@@ -0,0 +1,165 @@
+package io.mewbase.projection.impl;
+
+
+import io.mewbase.binders.Binder;
+import io.mewbase.bson.BsonObject;
+import io.mewbase.util.ExecutionModel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * A write-behind cache of the documents of a projection.
+ *
+ * The documents that the projection has read or written are held in memory, least recently used first,
+ * so that a document projected onto again is not read back from the binder. Written documents are only
+ * marked dirty and are written to the binder when the cache is flushed, which happens
+ *
+ *   - every flush interval,
+ *   - whenever a dirty document would be evicted and
+ *   - when the projection stops.
+ *
+ * The projection is handed a copy of each cached document and the document that it returns is cached in
+ * its place, so a flush never encodes a document whilst it is being changed and a projection that fails
+ * part way through an event leaves the cached documents as they were.
+ *
+ * A flush writes every dirty document and only then the number of the last event projected as the
+ * state of the projection, so the state never runs ahead of the documents in the binder and a projection
+ * that restarts from its state never misses an event.
+ */
+class ProjectionCache {
+
+    private final static Logger log = LoggerFactory.getLogger(ProjectionCache.class);
+
+    // flushes run on one thread shared by all of the cached projections
+    private final static ScheduledExecutorService flusher =
+            Executors.newSingleThreadScheduledExecutor(ExecutionModel.daemonThreadFactory("mewbase-projection-flush"));
+
+    private final String projectionName;
+    private final Binder docBinder;
+    private final Binder stateBinder;
+    private final String eventNumField;
+    private final int maxDocuments;
+    private final ProjectionMetrics metrics;
+
+    private final LinkedHashMap<String, BsonObject> documents = new LinkedHashMap<>(16, 0.75f, true);
+    private final Set<String> dirty = new HashSet<>();
+    private final ScheduledFuture<?> periodicFlush;
+
+    // the last event projected into the cache and the last one written as the state
+    private long lastEventNumber = -1;
+    private long flushedEventNumber = -1;
+    private boolean closed = false;
+
+
+    ProjectionCache(final String projectionName,
+                    final Binder docBinder,
+                    final Binder stateBinder,
+                    final String eventNumField,
+                    final int maxDocuments,
+                    final Duration flushInterval,
+                    final ProjectionMetrics metrics) {
+        this.projectionName = projectionName;
+        this.docBinder = docBinder;
+        this.stateBinder = stateBinder;
+        this.eventNumField = eventNumField;
+        this.maxDocuments = maxDocuments;
+        this.metrics = metrics;
+        final long intervalMillis = Math.max(1, flushInterval.toMillis());
+        this.periodicFlush = flusher.scheduleWithFixedDelay(this::periodicFlush,
+                intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+
+    /**
+     * @return a copy of the document from the cache, or as read from the binder, or a new document if there is none.
+     */
+    synchronized BsonObject get(final String docID) throws Exception {
+        final BsonObject cached = documents.get(docID);
+        if (cached != null) return cached.copy();
+        final BsonObject stored = docBinder.get(docID).get();
+        final BsonObject doc = (stored == null) ? new BsonObject() : stored;
+        documents.put(docID, doc);
+        evict();
+        return doc.copy();
+    }
+
+    /**
+     * Hold the document as projected by the given event until the next flush.
+     */
+    synchronized void put(final String docID, final BsonObject doc, final long eventNumber) throws Exception {
+        documents.put(docID, doc);
+        dirty.add(docID);
+        lastEventNumber = eventNumber;
+        // once closed there will be no more flushes so write straight through
+        if (closed) flush(); else evict();
+    }
+
+    /**
+     * Write the dirty documents and then the state of the projection.
+     */
+    synchronized void flush() throws Exception {
+        if (!dirty.isEmpty()) {
+            final Map<String, BsonObject> writes = new LinkedHashMap<>();
+            for (String docID : dirty) writes.put(docID, documents.get(docID));
+            ProjectionMetrics.time(metrics.put, () -> docBinder.putAll(writes).get());
+            dirty.clear();
+        }
+        if (lastEventNumber > flushedEventNumber) {
+            final BsonObject projStateDoc = new BsonObject().put(eventNumField, lastEventNumber);
+            ProjectionMetrics.time(metrics.checkpoint, () -> stateBinder.put(projectionName, projStateDoc).get());
+            flushedEventNumber = lastEventNumber;
+        }
+    }
+
+    /**
+     * Drop the dirty documents without writing them, after the projection has failed part way through
+     * an event, so that the projection restarts from the last state that was flushed.
+     */
+    synchronized void discard() {
+        documents.keySet().removeAll(dirty);
+        dirty.clear();
+        lastEventNumber = flushedEventNumber;
+    }
+
+    /**
+     * Stop the periodic flushes and flush for the last time.
+     */
+    synchronized void close() {
+        closed = true;
+        periodicFlush.cancel(false);
+        try {
+            flush();
+        } catch (Exception exp) {
+            log.error("Failed to flush the cache of projection " + projectionName, exp);
+        }
+    }
+
+
+    private void evict() throws Exception {
+        if (documents.size() <= maxDocuments) return;
+        final Map.Entry<String, BsonObject> eldest = documents.entrySet().iterator().next();
+        // the state may only move on once every document is written so flush them all
+        if (dirty.contains(eldest.getKey())) flush();
+        documents.remove(eldest.getKey());
+    }
+
+    private synchronized void periodicFlush() {
+        try {
+            flush();
+        } catch (Exception exp) {
+            log.error("Failed to flush the cache of projection " + projectionName, exp);
+        }
+    }
+
+}
@@ -14,10 +14,16 @@ class ProjectionImpl implements Projection {
 
     final String name;
     final Subscription subs;
+    final Runnable onStop;
 
     public ProjectionImpl(String name, Subscription subs) {
+        this(name, subs, () -> {});
+    }
+
+    public ProjectionImpl(String name, Subscription subs, Runnable onStop) {
         this.name = name;
         this.subs = subs;
+        this.onStop = onStop;
         log.info("Projection " + name + " created.");
     }
 
@@ -31,6 +37,7 @@ class ProjectionImpl implements Projection {
     @Override
     public void stop() {
         subs.close();
+        onStop.run();
         log.info("Projection " + name + " closing down.");
     }
 
@@ -4,6 +4,7 @@ package io.mewbase.projection.impl;
 import io.mewbase.binders.Binder;
 import io.mewbase.binders.BinderStore;
 import io.mewbase.bson.BsonObject;
+import io.mewbase.eventsource.BatchEventHandler;
 import io.mewbase.eventsource.Event;
 import io.mewbase.eventsource.EventHandler;
 import io.mewbase.eventsource.EventSource;
@@ -18,7 +19,10 @@ import io.micrometer.core.instrument.Tag;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -65,6 +69,12 @@ public class ProjectionManagerImpl implements ProjectionManager, FallibleFuture
      * @param eventFilter
      * @param docIDSelector
      * @param projectionFunction
+     * @param maxBatchSize the most events to project in a batch or 0 to project each event on its own
+     * @param workers the number of workers to project in parallel or 0 to project on the dispatcher
+     * @param maxCachedDocuments the most documents to cache and write behind or 0 to not cache them
+     * @param flushInterval how often to write the cached documents
+     * @param snapshotInterval how often to snapshot the documents or null to not take snapshots
+     * @param fromSnapshot start from the latest snapshot rather than the last known state
      * @return
      */
     CompletableFuture<Projection> createProjection(final String projectionName,
@@ -72,11 +82,28 @@ public class ProjectionManagerImpl implements ProjectionManager, FallibleFuture
                                 final String binderName,
                                 final Function<Event, Boolean> eventFilter,
                                 final Function<Event, String> docIDSelector,
-                                final BiFunction<BsonObject, Event, BsonObject> projectionFunction) {
+                                final BiFunction<BsonObject, Event, BsonObject> projectionFunction,
+                                final int maxBatchSize,
+                                final int workers,
+                                final int maxCachedDocuments,
+                                final Duration flushInterval,
+                                final Duration snapshotInterval,
+                                final boolean fromSnapshot) {
 
         // instrument this projection
         List<Tag> tag = Arrays.asList(Tag.of("name", projectionName));
         Counter projectionCounter = Metrics.counter( METRICS_NAME, tag );
+        final ProjectionMetrics metrics = ProjectionMetrics.forProjection(projectionName);
+
+        final ProjectionCache cache;
+        final ProjectionSnapshots snapshots;
+        try {
+            cache = (maxCachedDocuments > 0) ? new ProjectionCache(projectionName, store.open(binderName),
+                    stateBinder, EVENT_NUM_FIELD, maxCachedDocuments, flushInterval, metrics) : null;
+            snapshots = new ProjectionSnapshots(store, projectionName, EVENT_NUM_FIELD, snapshotInterval);
+        } catch (Exception exp) {
+            return FallibleFuture.failedFuture(exp);
+        }
 
         EventHandler eventHandler =  (Event event) -> {
             try {
@@ -86,13 +113,25 @@ public class ProjectionManagerImpl implements ProjectionManager, FallibleFuture
                         log.error("In projection " + projectionName + " document id selector returned null");
                     } else {
                         try {
+                            // the documents must not change while a snapshot of them is being copied
+                            snapshots.awaitPending();
                             projectionCounter.increment();
-                            executeProjection(projectionName, binderName, docID, projectionFunction, event);
+                            if (cache != null) {
+                                executeCachedProjection(cache, docID, projectionFunction, event, metrics);
+                            } else {
+                                executeProjection(projectionName, binderName, docID, projectionFunction, event, metrics);
+                            }
+                            metrics.projected(event.getEventNumber());
+                            if (snapshots.due()) {
+                                if (cache != null) cache.flush();
+                                takeSnapshot(snapshots, projectionName, binderName, event.getEventNumber());
+                            }
                         } catch (Exception exp) {
                             log.error("Projection failed to execute - Stopping" +
                                     " Projection:" + projectionName +
                                     " Binder:" + binderName +
                                     " Document ID:" + docID, exp);
+                            if (cache != null) cache.discard();
                             projections.get(projectionName).stop();
                         }
                     }
@@ -102,33 +141,87 @@ public class ProjectionManagerImpl implements ProjectionManager, FallibleFuture
             }
         };
 
+        BatchEventHandler batchEventHandler = (List<Event> events) -> {
+            for (int from = 0; from < events.size(); from += maxBatchSize) {
+                final List<Event> batch = events.subList(from, Math.min(events.size(), from + maxBatchSize));
+                snapshots.awaitPending();
+                try {
+                    executeProjectionBatch(projectionName, binderName, eventFilter, docIDSelector,
+                            projectionFunction, projectionCounter, metrics, batch);
+                } catch (Exception exp) {
+                    log.error("Projection failed to execute batch - Stopping" +
+                            " Projection:" + projectionName +
+                            " Binder:" + binderName +
+                            " Events:" + batch.get(0).getEventNumber() + " to " +
+                            batch.get(batch.size() - 1).getEventNumber(), exp);
+                    projections.get(projectionName).stop();
+                    return;
+                }
+                if (snapshots.due()) {
+                    takeSnapshot(snapshots, projectionName, binderName, batch.get(batch.size() - 1).getEventNumber());
+                }
+            }
+        };
+
+        final EventHandler handler;
+        if (workers > 0) {
+            handler = new ParallelProjection(projectionName, workers, eventFilter, docIDSelector,
+                    (docID, event) -> projectDocument(binderName, docID, projectionFunction, event, metrics),
+                    eventNumber -> stateBinder.put(projectionName, new BsonObject().put(EVENT_NUM_FIELD, eventNumber)),
+                    projectionCounter,
+                    metrics,
+                    () -> projections.get(projectionName).stop());
+        } else {
+            handler = maxBatchSize > 0 ? batchEventHandler : eventHandler;
+        }
 
-        final CompletableFuture<Subscription> subs = subscribeFromLastKnownEvent(projectionName,channelName,eventHandler);
+        final CompletableFuture<Subscription> subs =
+                subscribeFromLastKnownEvent(projectionName, channelName, binderName, snapshots, fromSnapshot,
+                        metrics, handler);
+        final CompletableFuture<Subscription> head = trackHead(channelName, metrics);
+        final Runnable onStop = () -> {
+            head.thenAccept(Subscription::close);
+            // let a snapshot that has been started finish
+            snapshots.awaitPending();
+            if (cache != null) cache.close();
+        };
+        subs.whenComplete( (subscription, exp) -> { if (exp != null) onStop.run(); } );
         return subs.thenApply( subscription -> {
-            final ProjectionImpl proj = new ProjectionImpl(projectionName,subscription);
+            final ProjectionImpl proj = new ProjectionImpl(projectionName, subscription, onStop);
             projections.put(projectionName,proj);
             return proj;
         });
     }
 
 
+    /**
+     * Measure the lag of the projection against the most recent event in the channel. If the source can look
+     * that up it is looked up whenever the lag is read, as a subscription would only see events as fast as
+     * the channel's reader hands them out, otherwise the most recent event is followed by a subscription.
+     */
+    private CompletableFuture<Subscription> trackHead(String channelName, ProjectionMetrics metrics) {
+        if (source.mostRecentEventNumber(channelName).isPresent()) {
+            metrics.headFrom(() -> source.mostRecentEventNumber(channelName).orElse(-1L));
+            return CompletableFuture.completedFuture(() -> { });
+        }
+        return source.subscribeFromMostRecent(channelName,
+                EventHandler.nonBlocking(event -> metrics.head(event.getEventNumber())));
+    }
+
+
     private BsonObject executeProjection(String projectionName,
                                      String binderName,
                                      String docID,
                                      BiFunction<BsonObject, Event, BsonObject> projectionFunction,
-                                     Event event ) throws Exception {
+                                     Event event,
+                                     ProjectionMetrics metrics) throws Exception {
 
         // as sequential for reasons of preserving sanity
-        final Binder docBinder = store.open(binderName);
-        final BsonObject inputDoc = docBinder.get(docID).get();
-        final BsonObject validDoc = (inputDoc == null) ? new BsonObject() : inputDoc;
-        final BsonObject outputDoc = projectionFunction.apply(validDoc, event);
-        final BsonObject projStateDoc = new BsonObject().put(EVENT_NUM_FIELD, event.getEventNumber());
-
         // if doc binder fails then the state fails
-        docBinder.put(docID, outputDoc).get();
+        final BsonObject outputDoc = projectDocument(binderName, docID, projectionFunction, event, metrics);
+        final BsonObject projStateDoc = new BsonObject().put(EVENT_NUM_FIELD, event.getEventNumber());
         try {
-            stateBinder.put(projectionName, projStateDoc).get();
+            ProjectionMetrics.time(metrics.checkpoint, () -> stateBinder.put(projectionName, projStateDoc).get());
         } catch (Exception exp) {
             // Doc succeeded and state failed
             log.error("State Write failed possible sync error",  exp);
@@ -138,6 +231,98 @@ public class ProjectionManagerImpl implements ProjectionManager, FallibleFuture
     }
 
 
+    private void takeSnapshot(ProjectionSnapshots snapshots, String projectionName, String binderName, long eventNumber) {
+        // the snapshot is copied off this thread and, if it fails, the previous snapshot still stands
+        snapshots.take(store.open(binderName), eventNumber).whenComplete( (done, exp) -> {
+            if (exp != null) log.error("Failed to take a snapshot of projection " + projectionName, exp);
+        });
+    }
+
+
+    private BsonObject executeCachedProjection(ProjectionCache cache,
+                                               String docID,
+                                               BiFunction<BsonObject, Event, BsonObject> projectionFunction,
+                                               Event event,
+                                               ProjectionMetrics metrics) throws Exception {
+        final BsonObject inputDoc = ProjectionMetrics.time(metrics.get, () -> cache.get(docID));
+        final BsonObject outputDoc = ProjectionMetrics.time(metrics.project, () -> projectionFunction.apply(inputDoc, event));
+        cache.put(docID, outputDoc, event.getEventNumber());
+        return outputDoc;
+    }
+
+
+    private BsonObject projectDocument(String binderName,
+                                       String docID,
+                                       BiFunction<BsonObject, Event, BsonObject> projectionFunction,
+                                       Event event,
+                                       ProjectionMetrics metrics) throws Exception {
+        final Binder docBinder = store.open(binderName);
+        final BsonObject inputDoc = ProjectionMetrics.time(metrics.get, () -> docBinder.get(docID).get());
+        final BsonObject validDoc = (inputDoc == null) ? new BsonObject() : inputDoc;
+        final BsonObject outputDoc = ProjectionMetrics.time(metrics.project, () -> projectionFunction.apply(validDoc, event));
+        ProjectionMetrics.time(metrics.put, () -> docBinder.put(docID, outputDoc).get());
+        return outputDoc;
+    }
+
+
+    /**
+     * Fold a batch of events over a working set of the documents that they project onto, reading each
+     * document at most once, and then write the documents followed by the state once for the whole batch.
+     */
+    private void executeProjectionBatch(String projectionName,
+                                        String binderName,
+                                        Function<Event, Boolean> eventFilter,
+                                        Function<Event, String> docIDSelector,
+                                        BiFunction<BsonObject, Event, BsonObject> projectionFunction,
+                                        Counter projectionCounter,
+                                        ProjectionMetrics metrics,
+                                        List<Event> events) throws Exception {
+
+        final Binder docBinder = store.open(binderName);
+        metrics.batchSize.record(events.size());
+
+        // the events to project by their document ids
+        final List<Event> toProject = new ArrayList<>(events.size());
+        final List<String> docIDs = new ArrayList<>(events.size());
+        for (Event event : events) {
+            if (!eventFilter.apply(event)) continue;
+            final String docID = docIDSelector.apply(event);
+            if (docID == null) {
+                log.error("In projection " + projectionName + " document id selector returned null");
+                continue;
+            }
+            toProject.add(event);
+            docIDs.add(docID);
+        }
+
+        // in the order that the documents were first projected onto
+        final Map<String, BsonObject> workingSet = new LinkedHashMap<>();
+        final Map<String, BsonObject> stored = ProjectionMetrics.time(metrics.get, () -> docBinder.getAll(docIDs).get());
+        for (int i = 0; i < toProject.size(); i++) {
+            final Event event = toProject.get(i);
+            final String docID = docIDs.get(i);
+            projectionCounter.increment();
+            BsonObject workingDoc = workingSet.get(docID);
+            if (workingDoc == null) workingDoc = stored.getOrDefault(docID, new BsonObject());
+            final BsonObject inputDoc = workingDoc;
+            workingSet.put(docID, ProjectionMetrics.time(metrics.project, () -> projectionFunction.apply(inputDoc, event)));
+        }
+
+        // if any doc write fails then the state is not written
+        ProjectionMetrics.time(metrics.put, () -> docBinder.putAll(workingSet).get());
+
+        final long lastEventNumber = events.get(events.size() - 1).getEventNumber();
+        final BsonObject projStateDoc = new BsonObject().put(EVENT_NUM_FIELD, lastEventNumber);
+        try {
+            ProjectionMetrics.time(metrics.checkpoint, () -> stateBinder.put(projectionName, projStateDoc).get());
+        } catch (Exception exp) {
+            // Docs succeeded and state failed
+            log.error("State Write failed possible sync error",  exp);
+            throw exp;
+        }
+        metrics.projected(lastEventNumber, toProject.size());
+    }
+
     @Override
     public boolean isProjection(String projectionName) {
         return projections.keySet().contains(projectionName);
@@ -152,13 +337,30 @@ public class ProjectionManagerImpl implements ProjectionManager, FallibleFuture
     public void stopAll() { projections.forEach( (name, proj) -> proj.stop() ); }
 
 
-    private CompletableFuture<Subscription> subscribeFromLastKnownEvent(String projectionName, String channelName, EventHandler eventHandler) {
+    private CompletableFuture<Subscription> subscribeFromLastKnownEvent(String projectionName,
+                                                                        String channelName,
+                                                                        String binderName,
+                                                                        ProjectionSnapshots snapshots,
+                                                                        boolean fromSnapshot,
+                                                                        ProjectionMetrics metrics,
+                                                                        EventHandler eventHandler) {
         try {
-            final BsonObject stateDoc = stateBinder.get(projectionName).get();
+            BsonObject stateDoc = stateBinder.get(projectionName).get();
+            // rebuild from the latest snapshot if asked to or if the state has been lost
+            if (fromSnapshot || stateDoc == null) {
+                final Long snapshotEventNumber = snapshots.restore(store.open(binderName));
+                if (snapshotEventNumber != null) {
+                    stateDoc = new BsonObject().put(EVENT_NUM_FIELD, snapshotEventNumber);
+                    stateBinder.put(projectionName, stateDoc).get();
+                } else if (fromSnapshot) {
+                    log.warn("Projection " + projectionName + " has no snapshot to start from");
+                }
+            }
             if (stateDoc == null) {
                 log.info("Projection " + projectionName + " subscribing from start of channel " + channelName);
                 return source.subscribeAll(channelName, eventHandler);
             } else {
+                metrics.resumedAfter(stateDoc.getLong(EVENT_NUM_FIELD));
                 Long nextEvent = stateDoc.getLong(EVENT_NUM_FIELD) + 1;
                 log.info("Projection " + projectionName + " subscribing from event number " + nextEvent);
                 return source.subscribeFromEventNumber(channelName, nextEvent, eventHandler);
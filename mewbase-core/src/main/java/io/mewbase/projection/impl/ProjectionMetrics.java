@@ -0,0 +1,169 @@
+package io.mewbase.projection.impl;
+
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+
+/**
+ * The meters of a projection, all tagged with the name of the projection, which are published through
+ * the MetricsRegistry and so the REST /metrics route.
+ *
+ *   mewbase.projection.phase       - timers for each phase of projecting an event, tagged get, project, put
+ *                                    and checkpoint.
+ *   mewbase.projection.lag         - the number of events in the channel that have not yet been projected.
+ *   mewbase.projection.throughput  - the events projected per second over the last second or so.
+ *   mewbase.projection.batch.size  - the number of events in each batch of a batched projection.
+ *
+ * Gauges are only held weakly by the meter registry, so there is one set of meters for each projection name
+ * which is reset whenever a projection of that name is created.
+ */
+final class ProjectionMetrics {
+
+    static final String PHASE_METRICS_NAME = ProjectionManagerImpl.METRICS_NAME + ".phase";
+    static final String LAG_METRICS_NAME = ProjectionManagerImpl.METRICS_NAME + ".lag";
+    static final String THROUGHPUT_METRICS_NAME = ProjectionManagerImpl.METRICS_NAME + ".throughput";
+    static final String BATCH_SIZE_METRICS_NAME = ProjectionManagerImpl.METRICS_NAME + ".batch.size";
+
+    private static final ConcurrentMap<String, ProjectionMetrics> metrics = new ConcurrentHashMap<>();
+
+    private static final long THROUGHPUT_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    final Timer get;
+    final Timer project;
+    final Timer put;
+    final Timer checkpoint;
+    final DistributionSummary batchSize;
+
+    // the numbers of the most recent event in the channel and the last event projected
+    private volatile long headEventNumber = -1;
+    private volatile long lastProjected = -1;
+    // looks up the most recent event in the channel, if the channel's source can
+    private volatile LongSupplier headLookup = null;
+
+    private long windowStartNanos = System.nanoTime();
+    private long windowEvents = 0;
+    private double eventsPerSecond = 0;
+
+
+    private ProjectionMetrics(final String projectionName) {
+        final List<Tag> tag = Arrays.asList(Tag.of("name", projectionName));
+        get = phaseTimer(projectionName, "get");
+        project = phaseTimer(projectionName, "project");
+        put = phaseTimer(projectionName, "put");
+        checkpoint = phaseTimer(projectionName, "checkpoint");
+        batchSize = Metrics.summary(BATCH_SIZE_METRICS_NAME, tag);
+        Metrics.gauge(LAG_METRICS_NAME, tag, this, ProjectionMetrics::lag);
+        Metrics.gauge(THROUGHPUT_METRICS_NAME, tag, this, ProjectionMetrics::throughput);
+    }
+
+    /**
+     * The meters for the named projection, reset ready for a new projection of that name.
+     */
+    static ProjectionMetrics forProjection(final String projectionName) {
+        final ProjectionMetrics projectionMetrics = metrics.computeIfAbsent(projectionName, ProjectionMetrics::new);
+        projectionMetrics.reset();
+        return projectionMetrics;
+    }
+
+
+    static <T> T time(final Timer timer, final Callable<T> phase) throws Exception {
+        final long start = System.nanoTime();
+        try {
+            return phase.call();
+        } finally {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Record that an event has been seen in the channel.
+     */
+    void head(final long eventNumber) {
+        if (eventNumber > headEventNumber) headEventNumber = eventNumber;
+    }
+
+    /**
+     * Look up the most recent event in the channel whenever the lag is read rather than wait to be told of it.
+     */
+    void headFrom(final LongSupplier lookup) {
+        headLookup = lookup;
+    }
+
+    /**
+     * Record the last event projected before the projection was started.
+     */
+    void resumedAfter(final long eventNumber) {
+        lastProjected = eventNumber;
+        head(eventNumber);
+    }
+
+    /**
+     * Record that an event has been projected.
+     */
+    void projected(final long eventNumber) {
+        projected(eventNumber, 1);
+    }
+
+    /**
+     * Record that a number of events up to and including the given event have been projected.
+     */
+    synchronized void projected(final long eventNumber, final int events) {
+        if (eventNumber > lastProjected) lastProjected = eventNumber;
+        // the projection has seen the event so the channel holds at least as many
+        head(eventNumber);
+        windowEvents += events;
+        rollWindow(System.nanoTime());
+    }
+
+    double lag() {
+        final LongSupplier lookup = headLookup;
+        if (lookup != null) {
+            try {
+                head(lookup.getAsLong());
+            } catch (RuntimeException exp) {
+                // the lag is as of the last head that was found
+            }
+        }
+        final long head = headEventNumber;
+        return (head < 0) ? 0 : Math.max(0, head - lastProjected);
+    }
+
+    synchronized double throughput() {
+        rollWindow(System.nanoTime());
+        return eventsPerSecond;
+    }
+
+
+    private void rollWindow(final long now) {
+        final long elapsed = now - windowStartNanos;
+        if (elapsed < THROUGHPUT_WINDOW_NANOS) return;
+        eventsPerSecond = windowEvents * (double) TimeUnit.SECONDS.toNanos(1) / elapsed;
+        windowEvents = 0;
+        windowStartNanos = now;
+    }
+
+    private synchronized void reset() {
+        headEventNumber = -1;
+        headLookup = null;
+        lastProjected = -1;
+        windowStartNanos = System.nanoTime();
+        windowEvents = 0;
+        eventsPerSecond = 0;
+    }
+
+    private static Timer phaseTimer(final String projectionName, final String phase) {
+        return Metrics.timer(PHASE_METRICS_NAME, Arrays.asList(Tag.of("name", projectionName), Tag.of("phase", phase)));
+    }
+
+}
@@ -0,0 +1,164 @@
+package io.mewbase.projection.impl;
+
+
+import io.mewbase.binders.Binder;
+import io.mewbase.binders.BinderStore;
+import io.mewbase.binders.KeyVal;
+import io.mewbase.bson.BsonObject;
+import io.mewbase.util.ExecutionModel;
+import io.mewbase.util.SerialExecutor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+
+/**
+ * Snapshots of the documents of a projection, each with the number of the last event projected into it,
+ * so that a projection can be rebuilt by restoring its latest snapshot and replaying the events since.
+ *
+ * A projection has two snapshot binders which are written in turn. The record of the latest snapshot
+ * in SNAPSHOT_BINDER_NAME is only moved to a snapshot binder once it has been written in full, so a
+ * snapshot that fails part way through leaves the previous snapshot intact.
+ *
+ * A snapshot is started by the thread that projects the events, between events, and copied on a blocking
+ * thread of its own. The projection waits for the copy to finish before it changes the documents again, so
+ * that the documents and the event number agree. The handler is therefore only free of the copy until its
+ * next event, which waits if the copy has not yet finished.
+ *
+ * The snapshot binder and the slot binders are internal binders, so they are not cached, indexed or listed
+ * with the others.
+ */
+class ProjectionSnapshots {
+
+    private final static Logger log = LoggerFactory.getLogger(ProjectionSnapshots.class);
+
+    static final String SNAPSHOT_BINDER_NAME = BinderStore.internalBinderPrefix + "proj_snapshot";
+    static final String SLOT_BINDER_PREFIX = BinderStore.internalBinderPrefix + "proj_snapshot_";
+    static final String SLOT_FIELD = "slot";
+
+    private final BinderStore store;
+    private final String projectionName;
+    private final String eventNumField;
+    private final long intervalNanos;
+    private final Binder snapshotBinder;
+    private final SerialExecutor copier = ExecutionModel.instance().blockingSerial();
+
+    private volatile long lastSnapshotNanos = System.nanoTime();
+    // the snapshot being copied, if any
+    private volatile CompletableFuture<Void> pending = CompletableFuture.completedFuture(null);
+
+
+    /**
+     * @param interval how often to take a snapshot or null to never take one
+     */
+    ProjectionSnapshots(final BinderStore store,
+                        final String projectionName,
+                        final String eventNumField,
+                        final Duration interval) {
+        this.store = store;
+        this.projectionName = projectionName;
+        this.eventNumField = eventNumField;
+        this.intervalNanos = (interval == null) ? Long.MAX_VALUE : interval.toNanos();
+        this.snapshotBinder = store.open(SNAPSHOT_BINDER_NAME);
+    }
+
+
+    /**
+     * @return true if the interval has passed since the last snapshot was taken.
+     */
+    boolean due() {
+        return intervalNanos != Long.MAX_VALUE && System.nanoTime() - lastSnapshotNanos >= intervalNanos;
+    }
+
+    /**
+     * Start to snapshot the documents of the projection as they stand after the given event. The documents
+     * must not be changed until the snapshot has completed, see awaitPending.
+     *
+     * @return a future that completes once the snapshot has been written.
+     */
+    CompletableFuture<Void> take(final Binder docBinder, final long eventNumber) {
+        lastSnapshotNanos = System.nanoTime();
+        pending = CompletableFuture.runAsync(() -> {
+            try {
+                write(docBinder, eventNumber);
+            } catch (Exception exp) {
+                throw new CompletionException(exp);
+            }
+        }, copier);
+        return pending;
+    }
+
+    /**
+     * Wait for the snapshot being taken, if any, to finish. A failed snapshot is left to the caller of take to report.
+     */
+    void awaitPending() {
+        try {
+            pending.join();
+        } catch (CompletionException exp) {
+            // the previous snapshot still stands
+        }
+    }
+
+    private void write(final Binder docBinder, final long eventNumber) throws Exception {
+        final BsonObject latest = snapshotBinder.get(projectionName).get();
+        final int slot = (latest == null) ? 0 : 1 - latest.getInteger(SLOT_FIELD);
+        final Binder slotBinder = store.open(slotBinderName(slot));
+
+        copy(docBinder, slotBinder);
+        snapshotBinder.put(projectionName, new BsonObject()
+                .put(eventNumField, eventNumber)
+                .put(SLOT_FIELD, slot)).get();
+        log.info("Projection " + projectionName + " snapshot taken at event number " + eventNumber);
+    }
+
+    /**
+     * Replace the documents of the projection with those of the latest snapshot.
+     *
+     * @return the number of the last event projected into the snapshot or null if there is no snapshot.
+     */
+    Long restore(final Binder docBinder) throws Exception {
+        final BsonObject latest = snapshotBinder.get(projectionName).get();
+        if (latest == null) return null;
+        copy(store.open(slotBinderName(latest.getInteger(SLOT_FIELD))), docBinder);
+        final Long eventNumber = latest.getLong(eventNumField);
+        log.info("Projection " + projectionName + " restored from snapshot at event number " + eventNumber);
+        return eventNumber;
+    }
+
+
+    String slotBinderName(final int slot) {
+        return SLOT_BINDER_PREFIX + projectionName + "_" + slot;
+    }
+
+    /**
+     * Make the documents of the target binder the same as those of the source binder.
+     */
+    private static void copy(final Binder source, final Binder target) throws Exception {
+        final Set<String> copied = new HashSet<>();
+        final List<CompletableFuture<Boolean>> writes = new ArrayList<>();
+        try (Stream<KeyVal<String, BsonObject>> documents = source.getDocuments()) {
+            documents.forEach( kv -> {
+                copied.add(kv.getKey());
+                writes.add(target.put(kv.getKey(), kv.getValue()));
+            });
+        }
+        final List<String> stale;
+        try (Stream<KeyVal<String, BsonObject>> documents = target.getDocuments()) {
+            stale = documents.map(KeyVal::getKey)
+                    .filter(id -> !copied.contains(id))
+                    .collect(Collectors.toList());
+        }
+        for (String id : stale) writes.add(target.delete(id));
+        CompletableFuture.allOf(writes.toArray(new CompletableFuture[0])).get();
+    }
+
+}
@@ -0,0 +1,144 @@
+package io.mewbase.util;
+
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+/**
+ * The threads that run binders, subscriptions and event dispatch, shared by everything in the JVM
+ * so that the number of threads does not grow with the number of binders and subscriptions.
+ *
+ * The model is configured under mewbase.execution
+ *
+ *   pooled  - event handlers that never block run on one bounded pool and binder I/O on another, each sized
+ *             by its pool size or one thread per processor when 0. Handlers that may block, and tasks that
+ *             block for long periods such as tailing a channel, run on a pool that grows as needed.
+ *   virtual - every task runs on a virtual thread of its own. This needs a JDK with virtual threads and
+ *             falls back to pooled on an older JDK.
+ *
+ * Work that must happen in order, such as the writes to a binder, runs on a serial executor which
+ * runs its tasks one at a time, in order, on the I/O threads.
+ */
+public final class ExecutionModel {
+
+    private final static Logger logger = LoggerFactory.getLogger(ExecutionModel.class);
+
+    public static final String POOLED = "pooled";
+    public static final String VIRTUAL = "virtual";
+
+    private static volatile ExecutionModel instance = null;
+
+    private final String model;
+    private final ExecutorService dispatch;
+    private final ExecutorService io;
+    private final ExecutorService blocking;
+
+
+    private ExecutionModel(final Config cfg) {
+        final String configured = cfg.getString("mewbase.execution.model");
+        final ExecutorService virtual = VIRTUAL.equals(configured) ? virtualThreadExecutor() : null;
+        if (virtual != null) {
+            model = VIRTUAL;
+            dispatch = virtual;
+            io = virtual;
+            blocking = virtual;
+        } else {
+            if (!POOLED.equals(configured)) {
+                logger.warn("Execution model " + configured + " is not available - using " + POOLED);
+            }
+            model = POOLED;
+            dispatch = Executors.newFixedThreadPool(poolSize(cfg, "mewbase.execution.pool.dispatch"),
+                    daemonThreadFactory("mewbase-dispatch"));
+            io = Executors.newFixedThreadPool(poolSize(cfg, "mewbase.execution.pool.io"),
+                    daemonThreadFactory("mewbase-io"));
+            blocking = Executors.newCachedThreadPool(daemonThreadFactory("mewbase-blocking"));
+        }
+        logger.info("Using the " + model + " execution model");
+    }
+
+    /**
+     * The execution model configured by the current config, created on first use.
+     */
+    public static ExecutionModel instance() {
+        if (instance == null) {
+            synchronized (ExecutionModel.class) {
+                if (instance == null) instance = new ExecutionModel(ConfigFactory.load());
+            }
+        }
+        return instance;
+    }
+
+
+    public String model() {
+        return model;
+    }
+
+    /**
+     * For dispatching events to handlers that never block.
+     */
+    public Executor dispatch() {
+        return dispatch;
+    }
+
+    /**
+     * For binder and other I/O, which must never wait on a dispatch task.
+     */
+    public Executor io() {
+        return io;
+    }
+
+    /**
+     * For tasks that may block for a long time, such as the readers that tail a channel.
+     */
+    public ExecutorService blocking() {
+        return blocking;
+    }
+
+    /**
+     * A new executor that runs its tasks one at a time, in the order that they were submitted, on the I/O threads.
+     */
+    public SerialExecutor serial() {
+        return new SerialExecutor(io);
+    }
+
+    /**
+     * A new executor that runs its tasks one at a time, in the order that they were submitted, on the threads
+     * for blocking tasks. For work that waits on binder I/O but must not hold up the dispatch threads.
+     */
+    public SerialExecutor blockingSerial() {
+        return new SerialExecutor(blocking);
+    }
+
+
+    public static ThreadFactory daemonThreadFactory(final String prefix) {
+        final AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            final Thread thread = new Thread(runnable, prefix + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static int poolSize(final Config cfg, final String path) {
+        final int size = cfg.getInt(path);
+        return size > 0 ? size : Math.max(2, Runtime.getRuntime().availableProcessors());
+    }
+
+    // Executors.newVirtualThreadPerTaskExecutor is looked up reflectively so as to still build for Java 8
+    private static ExecutorService virtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (Exception exp) {
+            return null;
+        }
+    }
+
+}
@@ -0,0 +1,84 @@
+package io.mewbase.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+
+/**
+ * Runs its tasks one at a time, in the order that they were submitted, on an underlying executor that
+ * may be shared. This gives the same guarantees as a single thread executor without holding a thread
+ * while there is nothing to run.
+ */
+public final class SerialExecutor implements Executor {
+
+    private final static Logger logger = LoggerFactory.getLogger(SerialExecutor.class);
+
+    // the most tasks run before giving up the underlying thread to other work
+    private final static int MAX_TASKS_PER_RUN = 64;
+
+    private final Executor executor;
+    private final Queue<Runnable> tasks = new ArrayDeque<>();
+
+    private boolean running = false;
+    private boolean shutdown = false;
+    // the thread running a task of this executor, if any
+    private volatile Thread runner = null;
+
+    SerialExecutor(final Executor executor) {
+        this.executor = executor;
+    }
+
+    @Override
+    public synchronized void execute(final Runnable task) {
+        if (shutdown) throw new RejectedExecutionException("Serial executor has been shut down");
+        tasks.add(task);
+        if (!running) {
+            running = true;
+            executor.execute(this::runTasks);
+        }
+    }
+
+    /**
+     * @return true if called from a task of this executor, which must never wait on a later task.
+     */
+    public boolean isRunningTask() {
+        return runner == Thread.currentThread();
+    }
+
+    /**
+     * Stop accepting tasks. Tasks already submitted still run.
+     */
+    public synchronized void shutdown() {
+        shutdown = true;
+    }
+
+    private void runTasks() {
+        for (int run = 0; run < MAX_TASKS_PER_RUN; run++) {
+            final Runnable task = next();
+            if (task == null) return;
+            try {
+                task.run();
+            } catch (RuntimeException exp) {
+                logger.error("Task failed in serial executor", exp);
+            }
+        }
+        // still running so carry on with the rest of the tasks after any other work
+        synchronized (this) {
+            runner = null;
+        }
+        executor.execute(this::runTasks);
+    }
+
+    private synchronized Runnable next() {
+        final Runnable task = tasks.poll();
+        if (task == null) running = false;
+        runner = (task == null) ? null : Thread.currentThread();
+        return task;
+    }
+
+}
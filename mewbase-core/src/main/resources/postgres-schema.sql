@@ -9,7 +9,12 @@ CREATE TABLE mewbase_binder_data(
     id BIGSERIAL PRIMARY KEY,
     binder_id BIGINT REFERENCES mewbase_binder(id) ON DELETE RESTRICT,
     key TEXT,
-    data bytea
+    data bytea,
+    doc JSONB
 );
 
 CREATE UNIQUE INDEX mewbase_binder_data_unique_binder_key ON mewbase_binder_data(binder_id, key);
+
+CREATE INDEX mewbase_binder_data_doc ON mewbase_binder_data USING GIN (doc jsonb_path_ops);
+
+CREATE INDEX mewbase_binder_data_no_doc ON mewbase_binder_data(binder_id, key) WHERE doc IS NULL;
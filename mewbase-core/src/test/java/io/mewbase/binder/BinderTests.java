@@ -9,6 +9,7 @@ import io.mewbase.binder.session.TempDirectoryTestBinderStoreSessionSupplier;
 import io.mewbase.binders.BinderStore;
 import io.mewbase.binders.KeyVal;
 
+import io.mewbase.binders.impl.DocumentPages;
 import io.mewbase.binders.impl.StreamableBinder;
 import io.mewbase.bson.BsonObject;
 import io.mewbase.binders.Binder;
@@ -29,9 +30,13 @@ import org.junit.runner.RunWith;
 import org.junit.runners.Parameterized;
 
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
 
 
@@ -370,6 +375,104 @@ public class BinderTests extends MewbaseTestBase {
     }
 
 
+    @Test
+    public void testGetDocumentsAcrossPages() throws Exception {
+        final String testBinderName = new Object(){}.getClass().getEnclosingMethod().getName();
+
+        singleStoreTest(store -> {
+            Binder binder = store.open(testBinderName);
+
+            // more than fit in a few pages
+            final int MANY_DOCS = DocumentPages.PAGE_SIZE * 2 + 7;
+            final List<CompletableFuture<Boolean>> puts = IntStream.range(0, MANY_DOCS)
+                    .mapToObj(i -> binder.put(String.valueOf(i), createObject().put("id", i)))
+                    .collect(Collectors.toList());
+            CompletableFuture.allOf(puts.toArray(new CompletableFuture[0])).get();
+
+            try (Stream<KeyVal<String, BsonObject>> docs = binder.getDocuments()) {
+                final Set<String> ids = docs.map(KeyVal::getKey).collect(toSet());
+                assertEquals(MANY_DOCS, ids.size());
+            }
+
+            // a stream that is not consumed to the end can be closed
+            try (Stream<KeyVal<String, BsonObject>> docs = binder.getDocuments()) {
+                assertEquals(5, docs.limit(5).count());
+            }
+
+            try (Stream<KeyVal<String, BsonObject>> docs = binder.getDocuments(kv -> kv.getValue().getInteger("id") % 2 == 0)) {
+                assertEquals((MANY_DOCS + 1) / 2, docs.count());
+            }
+        });
+    }
+
+
+    @Test
+    public void testPutAllAndGetAll() throws Exception {
+        final String testBinderName = new Object(){}.getClass().getEnclosingMethod().getName();
+
+        singleStoreTest(store -> {
+            Binder binder = store.open(testBinderName);
+            binder.put("Doc1", createObject().put("version", 0)).get();
+
+            final Map<String, BsonObject> docs = new LinkedHashMap<>();
+            IntStream.range(0, 50).forEach( i -> docs.put("Doc" + i, createObject().put("version", 1).put("id", i)) );
+            assertTrue(binder.putAll(docs).get());
+            assertEquals(Integer.valueOf(1), binder.get("Doc1").get().getInteger("version"));
+
+            final List<String> ids = Arrays.asList("Doc7", "Missing", "Doc3", "Doc49");
+            final Map<String, BsonObject> found = binder.getAll(ids).get();
+            assertEquals(Arrays.asList("Doc7", "Doc3", "Doc49"), new ArrayList<>(found.keySet()));
+            assertEquals(Integer.valueOf(49), found.get("Doc49").getInteger("id"));
+            assertTrue(binder.getAll(new ArrayList<>()).get().isEmpty());
+        });
+    }
+
+
+    @Test
+    public void testIndexedLookups() throws Exception {
+        final String testBinderName = new Object(){}.getClass().getEnclosingMethod().getName();
+
+        singleStoreTest(store -> {
+            Binder binder = store.open(testBinderName);
+
+            final int DOCS = 100;
+            final List<CompletableFuture<Boolean>> puts = IntStream.range(0, DOCS)
+                    .mapToObj(i -> binder.put("Doc" + i, createObject().put("customerId", "C" + (i % 10)).put("amount", i)))
+                    .collect(Collectors.toList());
+            CompletableFuture.allOf(puts.toArray(new CompletableFuture[0])).get();
+
+            assertFalse(binder.isIndexed("customerId"));
+            final CompletableFuture<Boolean> building = binder.createIndex("customerId");
+            // creating the index again waits for the same build
+            assertTrue(binder.createIndex("customerId").get());
+            assertTrue(binder.isIndexed("customerId"));
+            assertTrue(building.get());
+            assertTrue(binder.createIndex("amount").get());
+
+            final Function<String, Set<String>> customer = id ->
+                    binder.getDocumentsInRange("customerId", BsonValue.of(id), BsonValue.of(id)).map(KeyVal::getKey).collect(toSet());
+            assertEquals(10, customer.apply("C3").size());
+            assertTrue(customer.apply("C3").contains("Doc13"));
+
+            // numbers are looked up by value whatever their type
+            final Set<String> range = binder.getDocumentsInRange("amount", BsonValue.of(10), BsonValue.of(19.0D))
+                    .map(KeyVal::getKey).collect(toSet());
+            assertEquals(IntStream.range(10, 20).mapToObj(i -> "Doc" + i).collect(toSet()), range);
+            assertEquals(5, binder.getDocumentsInRange("amount", BsonValue.of(95L), null).count());
+
+            // the indexes follow puts and deletes
+            binder.put("Doc13", createObject().put("customerId", "C4").put("amount", 13)).get();
+            binder.delete("Doc23").get();
+            assertEquals(8, customer.apply("C3").size());
+            assertFalse(customer.apply("C3").contains("Doc13"));
+            assertTrue(customer.apply("C4").contains("Doc13"));
+
+            // unindexed fields are scanned
+            assertEquals(0, binder.getDocumentsInRange("missing", BsonValue.of(1), BsonValue.of(2)).count());
+        });
+    }
+
+
     @Test
     public void testGetWithFilter() throws Exception {
         final String testBinderName = new Object(){}.getClass().getEnclosingMethod().getName();
@@ -0,0 +1,218 @@
+package io.mewbase.binder;
+
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+import io.mewbase.MewbaseTestBase;
+import io.mewbase.binders.Binder;
+import io.mewbase.binders.BinderStore;
+import io.mewbase.binders.KeyVal;
+import io.mewbase.binders.impl.CachingBinder;
+import io.mewbase.bson.BsonObject;
+import io.mewbase.eventsource.EventSink;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+
+import static org.junit.Assert.*;
+
+
+public class CachingBinderTest extends MewbaseTestBase {
+
+    private BinderStore store = null;
+
+    @Before
+    public void before() throws Exception {
+        Metrics.addRegistry(new SimpleMeterRegistry());
+        final Config cfg = ConfigFactory.parseString(
+                "mewbase.binders.cache.binders.\"cached.binder\".size = 1 KiB").withFallback(createConfig());
+        store = BinderStore.instance(cfg);
+    }
+
+
+    @Test
+    public void testCacheIsConfiguredPerBinder() throws Exception {
+        assertTrue(store.open("cached.binder") instanceof CachingBinder);
+        assertFalse(store.open("uncached") instanceof CachingBinder);
+        // the same cache each time the binder is opened
+        assertSame(store.open("cached.binder"), store.open("cached.binder"));
+    }
+
+
+    @Test
+    public void testGetsHitTheCache() throws Exception {
+        final Binder binder = store.open("cached.binder");
+        final Counter hits = Metrics.globalRegistry.find("mewbase.binder.cache.hit").tag("name", "cached.binder").counter();
+        final Counter misses = Metrics.globalRegistry.find("mewbase.binder.cache.miss").tag("name", "cached.binder").counter();
+        final double hitsBefore = hits.count();
+        final double missesBefore = misses.count();
+
+        assertNull(binder.get("doc").get());
+        binder.put("doc", new BsonObject().put("version", 1)).get();
+        assertEquals(new Integer(1), binder.get("doc").get().getInteger("version"));
+        assertEquals(new Integer(1), binder.get("doc").get().getInteger("version"));
+
+        assertEquals(1.0, misses.count() - missesBefore, 0.0);
+        assertEquals(2.0, hits.count() - hitsBefore, 0.0);
+    }
+
+
+    @Test
+    public void testWritesInvalidateTheCache() throws Exception {
+        final Binder binder = store.open("cached.binder");
+        final BsonObject doc = new BsonObject().put("version", 1);
+        binder.put("doc", doc).get();
+        // changing the document after the put does not change the cached document
+        doc.put("version", 99);
+        assertEquals(new Integer(1), binder.get("doc").get().getInteger("version"));
+
+        binder.put("doc", new BsonObject().put("version", 2)).get();
+        assertEquals(new Integer(2), binder.get("doc").get().getInteger("version"));
+
+        binder.delete("doc").get();
+        assertNull(binder.get("doc").get());
+    }
+
+
+    @Test
+    public void testLeastRecentlyUsedDocumentsAreEvicted() throws Exception {
+        final Binder binder = store.open("cached.binder");
+        final String padding = new String(new char[200]).replace('\0', 'x');
+        for (int i = 0; i < 10; i++) {
+            binder.put("doc" + i, new BsonObject().put("padding", padding)).get();
+        }
+        final Counter evictions = Metrics.globalRegistry.find("mewbase.binder.cache.eviction")
+                .tag("name", "cached.binder").counter();
+        assertTrue(evictions.count() > 0);
+
+        // evicted documents are still read from the binder
+        for (int i = 0; i < 10; i++) {
+            assertEquals(padding, binder.get("doc" + i).get().getString("padding"));
+        }
+    }
+
+
+    @Test
+    public void testBulkWritesAndReadsUseTheCache() throws Exception {
+        final Binder binder = store.open("cached.binder");
+        final Counter hits = Metrics.globalRegistry.find("mewbase.binder.cache.hit").tag("name", "cached.binder").counter();
+        final Map<String, BsonObject> docs = new LinkedHashMap<>();
+        for (int i = 0; i < 3; i++) docs.put("bulk" + i, new BsonObject().put("version", i));
+        binder.putAll(docs).get();
+
+        final double hitsBefore = hits.count();
+        final Map<String, BsonObject> read = binder.getAll(Arrays.asList("bulk0", "bulk1", "missing", "bulk2")).get();
+        assertEquals(Arrays.asList("bulk0", "bulk1", "bulk2"), new ArrayList<>(read.keySet()));
+        assertEquals(new Integer(2), read.get("bulk2").getInteger("version"));
+        assertEquals(hitsBefore + 3, hits.count(), 0.0);
+    }
+
+
+    @Test
+    public void testOnlyWritesToTheSameDocumentStopItBeingCached() throws Exception {
+        final Binder uncached = store.open("uncached");
+        uncached.put("doc", new BsonObject().put("version", 1)).get();
+        uncached.put("overwritten", new BsonObject().put("version", 1)).get();
+
+        // reads of the binder wait on the gate once they have read the document
+        final GatedBinder gated = new GatedBinder(uncached);
+        final CachingBinder binder = new CachingBinder(gated, 1024);
+        final Counter hits = Metrics.globalRegistry.find("mewbase.binder.cache.hit").tag("name", "uncached").counter();
+
+        // a write to another document whilst the read is outstanding
+        final CompletableFuture<BsonObject> read = binder.get("doc");
+        binder.put("other", new BsonObject().put("version", 2)).get();
+        gated.open();
+        assertEquals(new Integer(1), read.get().getInteger("version"));
+        final double hitsBefore = hits.count();
+        assertEquals(new Integer(1), binder.get("doc").get().getInteger("version"));
+        assertEquals(hitsBefore + 1, hits.count(), 0.0);
+
+        // a write to the same document whilst the read is outstanding
+        gated.close();
+        final CompletableFuture<BsonObject> overlapped = binder.get("overwritten");
+        binder.put("overwritten", new BsonObject().put("version", 2)).get();
+        gated.open();
+        assertEquals(new Integer(1), overlapped.get().getInteger("version"));
+        assertEquals(new Integer(2), binder.get("overwritten").get().getInteger("version"));
+    }
+
+
+    /**
+     * A binder whose reads are held until it is opened.
+     */
+    private static final class GatedBinder implements Binder {
+
+        private final Binder impl;
+        private volatile CompletableFuture<Void> gate = new CompletableFuture<>();
+
+        GatedBinder(Binder impl) {
+            this.impl = impl;
+        }
+
+        void open() {
+            gate.complete(null);
+        }
+
+        void close() {
+            gate = new CompletableFuture<>();
+        }
+
+        @Override
+        public String getName() {
+            return impl.getName();
+        }
+
+        @Override
+        public CompletableFuture<BsonObject> get(String id) {
+            final BsonObject doc = impl.get(id).join();
+            return gate.thenApply( v -> doc );
+        }
+
+        @Override
+        public CompletableFuture<Boolean> put(String id, BsonObject doc) {
+            return impl.put(id, doc);
+        }
+
+        @Override
+        public CompletableFuture<Boolean> delete(String id) {
+            return impl.delete(id);
+        }
+
+        @Override
+        public Long countDocuments() {
+            return impl.countDocuments();
+        }
+
+        @Override
+        public Stream<KeyVal<String, BsonObject>> getDocuments() {
+            return impl.getDocuments();
+        }
+
+        @Override
+        public Stream<KeyVal<String, BsonObject>> getDocuments(Predicate<KeyVal<String, BsonObject>> filter) {
+            return impl.getDocuments(filter);
+        }
+
+        @Override
+        public Boolean setStreaming(EventSink sink, String channel) {
+            return impl.setStreaming(sink, channel);
+        }
+
+        @Override
+        public Boolean isStreaming() {
+            return impl.isStreaming();
+        }
+    }
+
+}
@@ -0,0 +1,49 @@
+package io.mewbase.binders.impl;
+
+import io.mewbase.binders.KeyVal;
+import io.mewbase.bson.BsonObject;
+import io.mewbase.util.ExecutionModel;
+import io.mewbase.util.SerialExecutor;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+
+
+public class DocumentPagesTest {
+
+    @Test
+    public void testStreamConsumedOnItsOwnExecutor() throws Exception {
+        final SerialExecutor executor = ExecutionModel.instance().serial();
+        final int documents = DocumentPages.PAGE_SIZE + 10;
+        final DocumentPages.PageReader reader = lastKey -> {
+            final int from = (lastKey == null) ? 0 : Integer.parseInt(lastKey) + 1;
+            final List<KeyVal<String, BsonObject>> page = new ArrayList<>();
+            for (int i = from; i < Math.min(documents, from + DocumentPages.PAGE_SIZE); i++) {
+                page.add(KeyVal.create(String.valueOf(i), new BsonObject().put("id", i)));
+            }
+            return page;
+        };
+
+        // as for a callback on a write to the binder, which must not wait on the executor for the pages
+        final CompletableFuture<Long> count = new CompletableFuture<>();
+        executor.execute(() -> {
+            try (Stream<KeyVal<String, BsonObject>> docs = DocumentPages.stream(reader, executor, () -> { })) {
+                count.complete(docs.count());
+            }
+        });
+        assertEquals(documents, (long) count.get(10, TimeUnit.SECONDS));
+
+        // and from any other thread the pages are still read on the executor
+        try (Stream<KeyVal<String, BsonObject>> docs = DocumentPages.stream(reader, executor, () -> { })) {
+            assertEquals(documents, docs.count());
+        }
+    }
+
+}
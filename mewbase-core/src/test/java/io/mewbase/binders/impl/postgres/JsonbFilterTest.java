@@ -0,0 +1,50 @@
+package io.mewbase.binders.impl.postgres;
+
+import io.mewbase.binders.FieldFilter;
+import io.mewbase.bson.BsonValue;
+
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+
+public class JsonbFilterTest {
+
+    @Test
+    public void testCompilesConditions() throws Exception {
+        final FieldFilter filter = FieldFilter.eq("customerId", BsonValue.of("C1"))
+                .and(FieldFilter.gte("amount", BsonValue.of(100)))
+                .and(FieldFilter.lt("name", BsonValue.of("M")))
+                .and(FieldFilter.eq("missing", BsonValue.nullValue()))
+                .and(FieldFilter.gt("flag", BsonValue.of(false)));
+
+        final JsonbFilter jsonbFilter = JsonbFilter.compile(filter);
+        assertEquals(" AND doc @> ?::jsonb" +
+                " AND (jsonb_typeof(doc -> ?) = 'number' AND (doc ->> ?)::numeric >= ?)" +
+                " AND (jsonb_typeof(doc -> ?) = 'string' AND (doc ->> ?) COLLATE \"C\" < ?)", jsonbFilter.where());
+
+        final Map<Integer, Object> parameters = new HashMap<>();
+        final PreparedStatement statement = (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class[] { PreparedStatement.class }, (proxy, method, args) -> {
+                    if (method.getName().equals("setObject")) parameters.put((Integer) args[0], args[1]);
+                    return null;
+                });
+        assertEquals(9, jsonbFilter.setParameters(statement, 2));
+        assertEquals("{\"customerId\":\"C1\"}", parameters.get(2));
+        assertEquals("amount", parameters.get(3));
+        assertEquals(0, new BigDecimal(100).compareTo((BigDecimal) parameters.get(5)));
+        assertEquals("M", parameters.get(8));
+    }
+
+    @Test
+    public void testNothingToCompile() throws Exception {
+        assertEquals("", JsonbFilter.compile(FieldFilter.gt("flag", BsonValue.of(false))).where());
+    }
+
+}
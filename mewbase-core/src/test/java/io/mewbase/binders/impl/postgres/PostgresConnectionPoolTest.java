@@ -0,0 +1,116 @@
+package io.mewbase.binders.impl.postgres;
+
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+
+public class PostgresConnectionPoolTest {
+
+    private final List<Connection> built = new ArrayList<>();
+    private final AtomicBoolean valid = new AtomicBoolean(true);
+    private final AtomicInteger prepared = new AtomicInteger();
+
+    private Connection connection() {
+        final Connection connection = (Connection) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class[] { Connection.class }, (proxy, method, args) -> {
+                    if (method.getName().equals("isValid")) return valid.get();
+                    if (method.getName().equals("prepareStatement")) return statement();
+                    if (method.getName().equals("hashCode")) return System.identityHashCode(proxy);
+                    if (method.getName().equals("equals")) return proxy == args[0];
+                    return null;
+                });
+        built.add(connection);
+        return connection;
+    }
+
+    private PreparedStatement statement() {
+        prepared.incrementAndGet();
+        return (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class[] { PreparedStatement.class }, (proxy, method, args) ->
+                        method.getName().equals("isClosed") ? false : null);
+    }
+
+    @Test
+    public void testRunsWorkConcurrently() throws Exception {
+        final PostgresConnectionPool pool = PostgresConnectionPool.create(2, (uri, user, password) -> connection(), "uri", "user", "password");
+        assertEquals(2, pool.size());
+
+        // both pieces of work hold a connection at once
+        final CountDownLatch bothRunning = new CountDownLatch(2);
+        final List<CompletableFuture<Connection>> work = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            work.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    return pool.withConnection(connection -> {
+                        bothRunning.countDown();
+                        try {
+                            assertTrue(bothRunning.await(10, TimeUnit.SECONDS));
+                        } catch (InterruptedException exp) {
+                            throw new SQLException(exp);
+                        }
+                        return connection;
+                    });
+                } catch (SQLException exp) {
+                    throw new RuntimeException(exp);
+                }
+            }));
+        }
+        assertNotSame(work.get(0).get(10, TimeUnit.SECONDS), work.get(1).get(10, TimeUnit.SECONDS));
+        pool.close();
+    }
+
+    @Test
+    public void testReplacesBrokenConnection() throws Exception {
+        final PostgresConnectionPool pool = PostgresConnectionPool.create(1, (uri, user, password) -> connection(), "uri", "user", "password");
+        final Connection first = pool.withConnection(connection -> connection);
+
+        // failed work on a valid connection keeps it
+        try {
+            pool.withConnection(connection -> { throw new SQLException("failed"); });
+            fail("Work should have failed");
+        } catch (SQLException exp) { }
+        assertSame(first, pool.withConnection(connection -> connection));
+
+        valid.set(false);
+        try {
+            pool.withConnection(connection -> { throw new SQLException("broken"); });
+            fail("Work should have failed");
+        } catch (SQLException exp) { }
+        assertNotSame(first, pool.withConnection(connection -> connection));
+        assertEquals(2, built.size());
+        pool.close();
+    }
+
+    @Test
+    public void testKeepsPreparedStatements() throws Exception {
+        final PostgresConnectionPool pool = PostgresConnectionPool.create(1, (uri, user, password) -> connection(), "uri", "user", "password");
+        final PreparedStatement statement = pool.withConnection(connection -> pool.prepared(connection, "SELECT 1"));
+        assertSame(statement, pool.withConnection(connection -> pool.prepared(connection, "SELECT 1")));
+        assertNotSame(statement, pool.withConnection(connection -> pool.prepared(connection, "SELECT 2")));
+        assertEquals(2, prepared.get());
+
+        // the statements of a broken connection are not kept
+        valid.set(false);
+        try {
+            pool.withConnection(connection -> { throw new SQLException("broken"); });
+            fail("Work should have failed");
+        } catch (SQLException exp) { }
+        assertNotSame(statement, pool.withConnection(connection -> pool.prepared(connection, "SELECT 1")));
+        assertEquals(3, prepared.get());
+        pool.close();
+    }
+
+}
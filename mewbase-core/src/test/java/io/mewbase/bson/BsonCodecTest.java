@@ -11,8 +11,16 @@ import javax.json.JsonObjectBuilder;
 
 import java.io.StringReader;
 import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
 import java.time.Instant;
-
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static java.time.format.DateTimeFormatter.ISO_INSTANT;
 import static org.junit.Assert.*;
 
 public class BsonCodecTest {
@@ -308,6 +316,170 @@ public class BsonCodecTest {
         assertEquals(jsonArray, jsonArray2);
     }
 
+    @Test
+    public void testDecodesJacksonEncodedBytes() {
+        final JsonObject jsonObject = Json.createObjectBuilder()
+                .add("mystr", "foo")
+                .add("myint", 123)
+                .add("mylong", Long.MAX_VALUE)
+                .add("mydouble", 2.5d)
+                .add("myboolean", true)
+                .addNull("mynull")
+                .add("myobj", Json.createObjectBuilder().add("foo", "bar"))
+                .add("myarr", Json.createArrayBuilder().add("foo").add(123))
+                .build();
+
+        final BsonObject obj = BsonCodec.bsonBytesToBsonObject(BsonCodec.jsonObjectToBsonBytes(jsonObject));
+        assertEquals("foo", obj.getString("mystr"));
+        assertEquals(Integer.valueOf(123), obj.getInteger("myint"));
+        assertEquals(Long.valueOf(Long.MAX_VALUE), obj.getLong("mylong"));
+        assertEquals(2.5d, obj.getDouble("mydouble"), 0.0);
+        assertTrue(obj.getBoolean("myboolean"));
+        assertTrue(obj.containsKey("mynull"));
+        assertTrue(obj.isNull("mynull"));
+        assertEquals("bar", obj.getBsonObject("myobj").getString("foo"));
+        assertEquals("foo", obj.getBsonArray("myarr").getString(0));
+        assertEquals(Integer.valueOf(123), obj.getBsonArray("myarr").getInteger(1));
+    }
+
+    @Test
+    public void testNestedRoundTripPreservesOrderAndEquality() {
+        final BsonObject bsonObject = new BsonObject()
+                .put("z", "last first")
+                .put("a", new BsonObject().put("deeper", new BsonObject().put("deepest", 1L)))
+                .put("m", new BsonArray().add(new BsonArray().add("x")).add(new BsonObject()).addNull())
+                .put("unicode", "\u00e9\u6f22\ud83d\ude00");
+
+        final BsonObject decoded = BsonCodec.bsonBytesToBsonObject(BsonCodec.bsonObjectToBsonBytes(bsonObject));
+        assertEquals(bsonObject, decoded);
+        assertEquals(bsonObject.fieldNames().toString(), decoded.fieldNames().toString());
+    }
+
+    @Test
+    public void testDecodeFromBufferSlice() {
+        final BsonObject bsonObject = createBsonObject();
+        final byte[] encoded = BsonCodec.bsonObjectToBsonBytes(bsonObject);
+
+        // surround the document with some unrelated bytes
+        final int offset = 16;
+        final byte[] framed = new byte[offset + encoded.length + 32];
+        System.arraycopy(encoded, 0, framed, offset, encoded.length);
+        final ByteBuffer buffer = ByteBuffer.wrap(framed);
+        buffer.position(offset);
+
+        assertEquals(bsonObject, BsonCodec.bsonBytesToBsonObject(buffer));
+        assertEquals(offset, buffer.position());
+
+        final ByteBuffer direct = ByteBuffer.allocateDirect(encoded.length);
+        direct.put(encoded).flip();
+        assertEquals(bsonObject, BsonCodec.bsonBytesToBsonObject(direct));
+    }
+
+    @Test
+    public void testTruncatedBytes() {
+        final byte[] encoded = BsonCodec.bsonObjectToBsonBytes(createBsonObject());
+        final byte[] truncated = java.util.Arrays.copyOf(encoded, encoded.length - 1);
+        try {
+            BsonCodec.bsonBytesToBsonObject(truncated);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // OK
+        }
+    }
+
+    @Test
+    public void testLazyObjectReadsFieldsOnDemand() {
+        final BsonObject bsonObject = createBsonObject()
+                .put("myobj", new BsonObject().put("foo", "bar"))
+                .put("myarr", new BsonArray().add("foo").add(123L))
+                .putNull("mynull");
+        final byte[] encoded = BsonCodec.bsonObjectToBsonBytes(bsonObject);
+
+        final BsonObject lazy = BsonCodec.bsonBytesToLazyBsonObject(encoded);
+        assertEquals("bar", lazy.getString("mystr"));
+        assertEquals(Long.MAX_VALUE, (long) lazy.getLong("mylong"));
+        assertEquals("bar", lazy.getBsonObject("myobj").getString("foo"));
+        assertEquals(123L, (long) lazy.getBsonArray("myarr").getLong(1));
+        assertTrue(lazy.isNull("mynull"));
+        assertTrue(lazy.isAbsent("notthere"));
+        assertEquals("default", lazy.getString("notthere", "default"));
+        assertEquals(bsonObject, lazy);
+        assertEquals(lazy, bsonObject);
+        assertEquals(bsonObject.hashCode(), lazy.hashCode());
+    }
+
+    @Test
+    public void testLazyObjectKeepsChanges() {
+        final BsonObject bsonObject = createBsonObject().put("myobj", new BsonObject().put("foo", "bar"));
+        final byte[] encoded = BsonCodec.bsonObjectToBsonBytes(bsonObject);
+
+        // an untouched view writes back exactly the bytes it was read from
+        final BsonObject lazy = BsonCodec.bsonBytesToLazyBsonObject(encoded);
+        assertArrayEquals(encoded, BsonCodec.bsonObjectToBsonBytes(lazy));
+        assertEquals(bsonObject, lazy.copy());
+
+        // changes to nested objects are not lost when the view is decoded
+        lazy.getBsonObject("myobj").put("foo", "baz");
+        lazy.put("extra", 42);
+        assertEquals("baz", lazy.getBsonObject("myobj").getString("foo"));
+        assertEquals(42, (int) lazy.getInteger("extra"));
+
+        final BsonObject expected = bsonObject.copy();
+        expected.getBsonObject("myobj").put("foo", "baz");
+        expected.put("extra", 42);
+        assertEquals(expected, BsonCodec.bsonBytesToBsonObject(BsonCodec.bsonObjectToBsonBytes(lazy)));
+    }
+
+    @Test
+    public void testLazyObjectSharedBetweenThreads() throws Exception {
+        final BsonObject bsonObject = createBsonObject().put("myobj", new BsonObject().put("foo", "bar"));
+        final byte[] encoded = BsonCodec.bsonObjectToBsonBytes(bsonObject);
+        final int threads = 4;
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (int round = 0; round < 200; round++) {
+                final BsonObject lazy = BsonCodec.bsonBytesToLazyBsonObject(encoded);
+                final CyclicBarrier start = new CyclicBarrier(threads);
+                final List<Future<BsonObject>> nested = new ArrayList<>();
+                for (int i = 0; i < threads; i++) {
+                    final boolean decodes = i == 0;
+                    nested.add(executor.submit(() -> {
+                        start.await();
+                        // one reader forces the full decode while the others scan the bytes
+                        if (decodes) assertEquals(bsonObject.size(), lazy.size());
+                        assertEquals("bar", lazy.getString("mystr"));
+                        return lazy.getBsonObject("myobj");
+                    }));
+                }
+                final BsonObject first = nested.get(0).get();
+                for (Future<BsonObject> future : nested) {
+                    // every reader is handed the same nested object, so changes to it are never lost
+                    assertSame(first, future.get());
+                }
+                assertEquals("bar", first.getString("foo"));
+                assertEquals(bsonObject, lazy);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testInstantValues() {
+        final Instant millis = Instant.ofEpochMilli(1234567890123L);
+        final Instant nanos = millis.plusNanos(456789);
+        final BsonObject bsonObject = new BsonObject()
+                .put("millis", BsonValue.of(millis))
+                .put("nanos", BsonValue.of(nanos));
+
+        final BsonObject decoded = BsonCodec.bsonBytesToBsonObject(BsonCodec.bsonObjectToBsonBytes(bsonObject));
+        assertEquals(BsonValue.of(millis), decoded.getBsonValue("millis"));
+        assertEquals(millis, decoded.getInstant("millis"));
+        assertEquals(ISO_INSTANT.format(millis), decoded.getString("millis"));
+        // UTC datetimes only hold milliseconds so more precise instants are kept as Strings
+        assertEquals(nanos, decoded.getInstant("nanos"));
+    }
+
     @Test
     public void testInvalidArrayJson() {
         byte[] invalid = TestUtils.randomByteArray(100);
@@ -1349,6 +1349,32 @@ public class BsonObjectTest {
         assertNumberNotEquals(4D, 5D);
     }
 
+    @Test
+    public void testNumberValueTypes() {
+        assertTrue(BsonValue.of(4) instanceof BsonValue.LongBsonValue);
+        assertTrue(BsonValue.of(4L) instanceof BsonValue.LongBsonValue);
+        assertTrue(BsonValue.of(4f) instanceof BsonValue.DoubleBsonValue);
+        assertTrue(BsonValue.of(4D) instanceof BsonValue.DoubleBsonValue);
+        assertTrue(BsonValue.of(new java.math.BigDecimal("4.10")) instanceof BsonValue.BigDecimalBsonValue);
+
+        assertEquals(BsonValue.of(4L), BsonValue.of(new java.math.BigDecimal("4.00")));
+        assertEquals(BsonValue.of(4L).hashCode(), BsonValue.of(new java.math.BigDecimal("4.00")).hashCode());
+        assertEquals(BsonValue.of(4.5D), BsonValue.of(new java.math.BigDecimal("4.5")));
+        assertEquals(BsonValue.of(4.5D).hashCode(), BsonValue.of(new java.math.BigDecimal("4.5")).hashCode());
+        assertEquals(BsonValue.of(Double.NaN), BsonValue.of(Double.NaN));
+        assertNotEquals(BsonValue.of(Double.POSITIVE_INFINITY), BsonValue.of(Long.MAX_VALUE));
+
+        bsonObject.put("long", Long.MAX_VALUE);
+        bsonObject.put("double", 1.5D);
+        bsonObject.put("decimal", BsonValue.of(new java.math.BigDecimal("12.75")));
+        assertEquals(Long.MAX_VALUE, (long) bsonObject.getLong("long"));
+        assertEquals(Long.MAX_VALUE, (double) bsonObject.getDouble("long"), 0);
+        assertEquals(1, (int) bsonObject.getInteger("double"));
+        assertEquals(1.5f, bsonObject.getFloat("double"), 0);
+        assertEquals(12, (long) bsonObject.getLong("decimal"));
+        assertEquals(12.75D, bsonObject.getDouble("decimal"), 0);
+    }
+
     private void tryPut(BsonObject object, String key, Number value) {
         if (value instanceof Integer) {
             object.put(key, (Integer) value);
@@ -1395,6 +1421,7 @@ public class BsonObjectTest {
             fail("Was expecting " + value1.getClass().getSimpleName() + ":" + value1 + " == " +
                     value2.getClass().getSimpleName() + ":" + value2);
         }
+        assertEquals(o1.hashCode(), o2.hashCode());
         BsonArray a1 = new BsonArray();
         tryAdd(a1, value1);
         BsonArray a2 = new BsonArray();
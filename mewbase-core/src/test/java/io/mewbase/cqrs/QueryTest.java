@@ -3,8 +3,10 @@ package io.mewbase.cqrs;
 import io.mewbase.MewbaseTestBase;
 import io.mewbase.binders.Binder;
 import io.mewbase.binders.BinderStore;
+import io.mewbase.binders.FieldFilter;
 import io.mewbase.binders.KeyVal;
 import io.mewbase.bson.BsonObject;
+import io.mewbase.bson.BsonValue;
 
 import io.vertx.ext.unit.junit.VertxUnitRunner;
 import org.junit.Test;
@@ -178,4 +180,123 @@ public class QueryTest extends MewbaseTestBase {
         assertEquals(1, resultSet.size());
     }
 
+
+    @Test
+    public void testParallelQuery() throws Exception {
+        final BinderStore TEST_BINDER_STORE = BinderStore.instance(createConfig());
+        final Binder TEST_BINDER = TEST_BINDER_STORE.open(TEST_BINDER_NAME);
+
+        final int DOCS = 1000;
+        for (int i = 0; i < DOCS; i++) {
+            TEST_BINDER.put("Doc" + i, new BsonObject().put(KEY_TO_MATCH, i % 2 == 0 ? VAL_TO_MATCH : VAL_TO_NOT_MATCH));
+        }
+        // a get is queued behind the puts
+        TEST_BINDER.get("Doc0").get();
+
+        QueryManager mgr = QueryManager.instance(TEST_BINDER_STORE);
+        mgr.queryBuilder().
+                named(TEST_QUERY_NAME).
+                from(TEST_BINDER_NAME).
+                filteredBy((ctx, kv) -> kv.getValue().getLong(KEY_TO_MATCH) == VAL_TO_MATCH).
+                inParallel().
+                create();
+
+        final Stream<KeyVal<String, BsonObject>> resultStream = mgr.execute(TEST_QUERY_NAME, new BsonObject());
+        assertTrue(resultStream.isParallel());
+        final Set<String> ids = resultStream.map(KeyVal::getKey).collect(Collectors.toSet());
+        assertEquals(DOCS / 2, ids.size());
+        for (int i = 0; i < DOCS; i += 2) assertTrue(ids.contains("Doc" + i));
+    }
+
+
+    @Test
+    public void testIndexedQuery() throws Exception {
+        final BinderStore TEST_BINDER_STORE = BinderStore.instance(createConfig());
+        final Binder TEST_BINDER = TEST_BINDER_STORE.open(TEST_BINDER_NAME);
+
+        final int DOCS = 100;
+        for (int i = 0; i < DOCS; i++) {
+            TEST_BINDER.put("Doc" + i, new BsonObject().put(KEY_TO_MATCH, i % 10).put("amount", i));
+        }
+        assertTrue(TEST_BINDER.createIndex(KEY_TO_MATCH).get());
+
+        QueryManager mgr = QueryManager.instance(TEST_BINDER_STORE);
+        mgr.queryBuilder().
+                named(TEST_QUERY_NAME).
+                from(TEST_BINDER_NAME).
+                whereEquals(KEY_TO_MATCH, ctx -> ctx.getBsonValue(KEY_TO_MATCH)).
+                filteredBy((ctx, kv) -> kv.getValue().getInteger("amount") < 50).
+                create();
+
+        final Set<String> ids = mgr.execute(TEST_QUERY_NAME, new BsonObject().put(KEY_TO_MATCH, 7))
+                .map(KeyVal::getKey).collect(Collectors.toSet());
+        assertEquals(new HashSet<>(Arrays.asList("Doc7", "Doc17", "Doc27", "Doc37", "Doc47")), ids);
+
+        // a value that is missing from the context matches nothing, through the index or without it
+        mgr.queryBuilder().
+                named("MissingValueQuery").
+                from(TEST_BINDER_NAME).
+                whereEquals("amount", ctx -> null).
+                create();
+        assertEquals(0, mgr.execute("MissingValueQuery", new BsonObject()).count());
+        mgr.queryBuilder().
+                named("MissingIndexedValueQuery").
+                from(TEST_BINDER_NAME).
+                whereEquals(KEY_TO_MATCH, ctx -> null).
+                create();
+        assertEquals(0, mgr.execute("MissingIndexedValueQuery", new BsonObject()).count());
+
+        // the documents looked up are filtered in parallel
+        mgr.queryBuilder().
+                named("ParallelIndexedQuery").
+                from(TEST_BINDER_NAME).
+                whereEquals(KEY_TO_MATCH, ctx -> ctx.getBsonValue(KEY_TO_MATCH)).
+                inParallel().
+                create();
+        final Stream<KeyVal<String, BsonObject>> parallel =
+                mgr.execute("ParallelIndexedQuery", new BsonObject().put(KEY_TO_MATCH, 7));
+        assertTrue(parallel.isParallel());
+        assertEquals(10, parallel.count());
+
+        // an unindexed range with an open upper bound
+        mgr.queryBuilder().
+                named("RangeQuery").
+                from(TEST_BINDER_NAME).
+                whereBetween("amount", ctx -> ctx.getBsonValue("from"), ctx -> null).
+                create();
+        assertEquals(10, mgr.execute("RangeQuery", new BsonObject().put("from", 90)).count());
+    }
+
+
+    @Test
+    public void testFieldFilterQuery() throws Exception {
+        final BinderStore TEST_BINDER_STORE = BinderStore.instance(createConfig());
+        final Binder TEST_BINDER = TEST_BINDER_STORE.open(TEST_BINDER_NAME);
+
+        final int DOCS = 100;
+        for (int i = 0; i < DOCS; i++) {
+            TEST_BINDER.put("Doc" + i, new BsonObject().put(KEY_TO_MATCH, "K" + (i % 10)).put("amount", i));
+        }
+        TEST_BINDER.get("Doc0").get();
+
+        QueryManager mgr = QueryManager.instance(TEST_BINDER_STORE);
+        mgr.queryBuilder().
+                named(TEST_QUERY_NAME).
+                from(TEST_BINDER_NAME).
+                matching(ctx -> FieldFilter.eq(KEY_TO_MATCH, ctx.getBsonValue(KEY_TO_MATCH))
+                        .and(FieldFilter.gt("amount", ctx.getBsonValue("over")))).
+                create();
+
+        final BsonObject context = new BsonObject().put(KEY_TO_MATCH, "K3").put("over", 50.5);
+        final Set<String> expected = new HashSet<>(Arrays.asList("Doc53", "Doc63", "Doc73", "Doc83", "Doc93"));
+        assertEquals(expected, mgr.execute(TEST_QUERY_NAME, context).map(KeyVal::getKey).collect(Collectors.toSet()));
+
+        // the same documents through an index
+        assertTrue(TEST_BINDER.createIndex(KEY_TO_MATCH).get());
+        assertEquals(expected, mgr.execute(TEST_QUERY_NAME, context).map(KeyVal::getKey).collect(Collectors.toSet()));
+
+        // values of another type do not match
+        assertEquals(0, mgr.execute(TEST_QUERY_NAME, context.put("over", "50")).count());
+    }
+
 }
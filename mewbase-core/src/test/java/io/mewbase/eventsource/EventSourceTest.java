@@ -311,6 +311,30 @@ public class EventSourceTest extends MewbaseTestBase {
 
 
 
+    @Test
+    public void testNonBlockingHandlerRunsOnDispatchThreads() throws Exception {
+
+        final Config testConfig = createConfig();
+        final EventSink sink = EventSink.instance(testConfig);
+        final EventSource source = EventSource.instance(testConfig);
+
+        final String testChannelName = "TestNonBlockingChannel"+UUID.randomUUID();
+        final CompletableFuture<String> handlerThread = new CompletableFuture<>();
+        final Subscription sub = source.subscribeAll(testChannelName,
+                EventHandler.nonBlocking(event -> handlerThread.complete(Thread.currentThread().getName())))
+                .get(SUBSCRIPTION_SETUP_MAX_TIMEOUT, TimeUnit.SECONDS);
+        sink.publishSync(testChannelName, new BsonObject().put("num", 0));
+
+        // the shims of the source must keep the handler's marking
+        final String threadName = handlerThread.get(10, TimeUnit.SECONDS);
+        assertTrue(threadName, threadName.startsWith("mewbase-dispatch"));
+
+        sub.close();
+        source.close();
+        sink.close();
+    }
+
+
     // @Test
     // @Repeat(10)
     public void testManyEvents() throws Exception {
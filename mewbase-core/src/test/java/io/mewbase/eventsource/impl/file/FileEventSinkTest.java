@@ -1,27 +1,46 @@
 package io.mewbase.eventsource.impl.file;
 
 import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+import com.typesafe.config.ConfigValueFactory;
 import io.mewbase.MewbaseTestBase;
 
 import io.mewbase.bson.BsonObject;
+import io.mewbase.eventsource.Event;
 import io.mewbase.eventsource.EventSink;
+import io.mewbase.eventsource.EventSource;
+import io.mewbase.eventsource.Subscription;
 
 import io.vertx.ext.unit.junit.VertxUnitRunner;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
 import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.channels.ClosedChannelException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import static junit.framework.TestCase.assertTrue;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
 
 
 /**
@@ -72,5 +91,307 @@ public class FileEventSinkTest extends MewbaseTestBase {
     }
 
 
+    @Test
+    public void testSegmentedPublishAppendsToSegment() throws Exception {
+
+        final Config cfg = createSegmentedConfig(1024 * 1024);
+        final EventSink es = new FileEventSink(cfg);
+        final Path channelPath = Paths.get(cfg.getString("mewbase.event.sink.file.basedir"), "channel");
+
+        final BsonObject evt = new BsonObject().put("key","value");
+        for (long i = 0; i < 10; i++) {
+            assertEquals(i, (long) es.publishSync("channel", evt.put("evt", i)));
+        }
+        es.close();
+
+        // a single segment and its index, beside the writer's lock, rather than a file per event
+        assertTrue(Files.exists(FileEventSegment.logPath(channelPath, 0)));
+        assertTrue(Files.exists(FileEventSegment.indexPath(channelPath, 0)));
+        assertEquals(3, Files.list(channelPath).count());
+        assertEquals(10, FileEventUtils.nextEventNumberFromSegments(channelPath));
+    }
+
+
+    @Test
+    public void testSegmentedPublishRollsSegments() throws Exception {
+
+        final Config cfg = createSegmentedConfig(512);
+        final EventSink es = new FileEventSink(cfg);
+        final Path channelPath = Paths.get(cfg.getString("mewbase.event.sink.file.basedir"), "channel");
+
+        final int events = 50;
+        IntStream.range(0, events).forEach( i -> es.publishSync("channel", new BsonObject().put("evt", i)) );
+        es.close();
+
+        final long[] segmentNumbers = FileEventUtils.segmentNumbersFromPath(channelPath);
+        assertTrue(segmentNumbers.length > 1);
+        assertEquals(0, segmentNumbers[0]);
+        assertEquals(events, FileEventUtils.nextEventNumberFromSegments(channelPath));
+    }
+
+
+    @Test
+    public void testSegmentedSinkRefusesChannelWithFilePerEvent() throws Exception {
+
+        final Config cfg = createSegmentedConfig(1024 * 1024);
+        final Path channelPath = Paths.get(cfg.getString("mewbase.event.sink.file.basedir"), "channel");
+
+        final EventSink filePerEvent = new FileEventSink(
+                cfg.withValue("mewbase.event.sink.file.segmented", ConfigValueFactory.fromAnyRef(false)));
+        IntStream.range(0, 5).forEach( i -> filePerEvent.publishSync("channel", new BsonObject().put("evt", i)) );
+        filePerEvent.close();
+
+        // segments after the event files would hide them from the readers
+        final EventSink segmentedSink = new FileEventSink(cfg);
+        assertEquals(EventSink.SYNC_WRITE_FAILED, segmentedSink.publishSync("channel", new BsonObject().put("evt", 5)));
+        segmentedSink.close();
+        assertFalse(FileEventUtils.isSegmented(channelPath));
+        assertEquals(5, FileEventUtils.nextEventNumberFromPath(channelPath));
+    }
+
+
+    @Test
+    public void testSegmentedChannelClosesWithSink() throws Exception {
+
+        final Config cfg = createSegmentedConfig(1024 * 1024);
+        final Path channelPath = Paths.get(cfg.getString("mewbase.event.sink.file.basedir"), "channel");
+
+        final EventSink first = new FileEventSink(cfg);
+        assertEquals(0L, (long) first.publishSync("channel", new BsonObject().put("evt", 0)));
+
+        // only one sink at a time can append to the segments
+        final EventSink second = new FileEventSink(cfg);
+        assertEquals(EventSink.SYNC_WRITE_FAILED, second.publishSync("channel", new BsonObject().put("evt", 1)));
+        first.close();
+
+        // once closed the channel is opened afresh, so into a new directory if the old one has gone
+        try (Stream<Path> files = Files.list(channelPath)) {
+            for (Path file : files.collect(Collectors.toList())) Files.delete(file);
+        }
+        Files.delete(channelPath);
+        assertEquals(0L, (long) second.publishSync("channel", new BsonObject().put("evt", 1)));
+        second.close();
+        assertTrue(Files.exists(FileEventSegment.logPath(channelPath, 0)));
+        assertEquals(1, FileEventUtils.nextEventNumberFromSegments(channelPath));
+    }
+
+
+    @Test
+    public void testSegmentedSubscriptionReadsAcrossSegments() throws Exception {
+
+        final Config cfg = createSegmentedConfig(512);
+        final EventSink sink = new FileEventSink(cfg);
+        final EventSource source = new FileEventSource(cfg);
+
+        final int events = 60;
+        final int mid = events / 2;
+        IntStream.range(0, mid).forEach( i -> sink.publishSync("channel", new BsonObject().put("evt", i)) );
+
+        final List<Event> received = new CopyOnWriteArrayList<>();
+        final CountDownLatch latch = new CountDownLatch(events - 10);
+        final Subscription subs = source.subscribeFromEventNumber("channel", 10L, event -> {
+            received.add(event);
+            latch.countDown();
+        }).get(SUBSCRIPTION_SETUP_MAX_TIMEOUT, TimeUnit.SECONDS);
+
+        // publish the rest whilst the subscription tails the log
+        IntStream.range(mid, events).forEach( i -> sink.publishSync("channel", new BsonObject().put("evt", i)) );
+
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        for (int i = 0; i < received.size(); i++) {
+            final Event event = received.get(i);
+            assertEquals(10L + i, (long) event.getEventNumber());
+            assertEquals(10 + i, (int) event.getBson().getInteger("evt"));
+        }
+        subs.close();
+        source.close();
+        sink.close();
+    }
+
+
+    @Test
+    public void testSegmentedReaderWaitsAtHeadOfEmptySegment() throws Exception {
+
+        final Config cfg = createSegmentedConfig(64 * 1024);
+        final Path channelPath = Paths.get(cfg.getString("mewbase.event.sink.file.basedir"), "channel");
+        Files.createDirectories(channelPath);
+        // a segment that the writer has created but not yet written the first event to
+        FileEventSegment.create(channelPath, 0, 64 * 1024, 4).close();
+
+        final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        final CompletableFuture<Long> readerThread = new CompletableFuture<>();
+        final CompletableFuture<FileEvent> read = CompletableFuture.supplyAsync(() -> {
+            readerThread.complete(Thread.currentThread().getId());
+            try (FileEventReader reader = new SegmentedFileEventReader(channelPath)) {
+                return reader.read(0);
+            } catch (Exception exp) {
+                throw new RuntimeException(exp);
+            }
+        });
+
+        // the reader should be waiting on the notifier rather than reopening the segment it is at the head of
+        final long threadId = readerThread.get(5, TimeUnit.SECONDS);
+        Thread.sleep(200);
+        final long cpuBefore = threads.getThreadCpuTime(threadId);
+        Thread.sleep(500);
+        final long cpuUsed = threads.getThreadCpuTime(threadId) - cpuBefore;
+        assertTrue("Reader used " + cpuUsed + "ns of CPU whilst waiting", cpuUsed < TimeUnit.MILLISECONDS.toNanos(100));
+        assertFalse(read.isDone());
+
+        final EventSink sink = new FileEventSink(cfg);
+        sink.publishSync("channel", new BsonObject().put("evt", 0));
+        assertEquals(0L, (long) read.get(5, TimeUnit.SECONDS).getEventNumber());
+        sink.close();
+    }
+
+
+    @Test
+    public void testAsyncPublishWritesBatches() throws Exception {
+
+        final Config cfg = createSegmentedConfig(1024 * 1024);
+        final EventSink es = new FileEventSink(cfg);
+
+        final int events = 1000;
+        final List<CompletableFuture<Long>> futures = IntStream.range(0, events)
+                .mapToObj( i -> es.publishAsync("channel", new BsonObject().put("evt", i)) )
+                .collect(Collectors.toList());
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+
+        // numbered in the order that they were published
+        for (int i = 0; i < events; i++) {
+            assertEquals(i, (long) futures.get(i).get());
+        }
+        es.close();
+
+        final Path channelPath = Paths.get(cfg.getString("mewbase.event.sink.file.basedir"), "channel");
+        assertEquals(events, FileEventUtils.nextEventNumberFromSegments(channelPath));
+    }
+
+
+    @Test
+    public void testAsyncPublishCompletesOnClose() throws Exception {
+
+        final Config cfg = ConfigFactory.parseString("mewbase.event.sink.file.batch.linger = 1 minute")
+                .withFallback(createConfig());
+        final EventSink es = new FileEventSink(cfg);
+
+        final CompletableFuture<Long> fut = es.publishAsync("channel", new BsonObject().put("key", "value"));
+        // closing the sink writes the events that are lingering in a batch
+        es.close();
+        assertTrue(fut.isDone());
+        assertEquals(0L, (long) fut.get());
+    }
+
+
+    @Test
+    public void testAsyncPublishWritesEventAsPublished() throws Exception {
+
+        final Config cfg = ConfigFactory.parseString("mewbase.event.sink.file.batch.linger = 1 minute")
+                .withFallback(createSegmentedConfig(1024 * 1024));
+        final EventSink es = new FileEventSink(cfg);
+
+        final BsonObject event = new BsonObject().put("key", "value");
+        final CompletableFuture<Long> fut = es.publishAsync("channel", event);
+        // the event is still lingering in its batch when the publisher changes it
+        event.put("key", "changed");
+        es.close();
+        assertEquals(0L, (long) fut.get());
+
+        final Path channelPath = Paths.get(cfg.getString("mewbase.event.sink.file.basedir"), "channel");
+        try (FileEventReader reader = new SegmentedFileEventReader(channelPath)) {
+            assertEquals("value", reader.read(0).getBson().getString("key"));
+        }
+    }
+
+
+    @Test
+    public void testTimeIndexFindsEvents() throws Exception {
+
+        final Config cfg = ConfigFactory.parseString("mewbase.event.sink.file.time.index.interval = 2 ms")
+                .withFallback(createConfig());
+        final EventSink es = new FileEventSink(cfg);
+        final Path channelPath = Paths.get(cfg.getString("mewbase.event.sink.file.basedir"), "channel");
+
+        final int events = 40;
+        for (int i = 0; i < events; i++) {
+            es.publishSync("channel", new BsonObject().put("evt", i));
+            if (i % 4 == 0) Thread.sleep(3);
+        }
+        es.close();
+
+        assertTrue(FileEventTimeIndex.entryCount(channelPath) > 1);
+        assertEquals(0, FileEventTimeIndex.eventNumberAtOrBefore(channelPath, Long.MIN_VALUE));
+        assertEquals(events, FileEventUtils.nextEventNumberFromPath(channelPath));
+
+        // the index gives the same answers as looking at every event
+        for (int i = 0; i < events; i++) {
+            final File eventFile = channelPath.resolve(FileEventUtils.pathFromEventNumber(i)).toFile();
+            final Instant instant = Instant.ofEpochMilli(FileEventUtils.fileToEpochMillis(eventFile));
+            assertEquals(FileEventUtils.eventNumberAfterInstantFromListing(channelPath, instant),
+                    FileEventUtils.eventNumberAfterInstant(channelPath, instant));
+        }
+
+        // and is rebuilt if it goes missing
+        Files.delete(FileEventTimeIndex.indexPath(channelPath));
+        try (FileEventChannel channel = new FilePerEventChannel(channelPath, 2)) {
+            channel.publish(new BsonObject().put("evt", events));
+        }
+        assertEquals(0, FileEventTimeIndex.eventNumberAtOrBefore(channelPath, Long.MIN_VALUE));
+        assertEquals(events + 1, FileEventUtils.nextEventNumberFromPath(channelPath));
+    }
+
+
+    @Test
+    public void testClosedChannelReleasesTimeIndex() throws Exception {
+
+        final Path channelPath = Paths.get(createConfig().getString("mewbase.event.sink.file.basedir"), "channel");
+        final FileEventChannel channel = new FilePerEventChannel(channelPath);
+        assertEquals(0, channel.publish(new BsonObject().put("evt", 0)));
+        channel.close();
+
+        // nothing more is written once the time index has been closed
+        try {
+            channel.publish(new BsonObject().put("evt", 1));
+            fail("Published to a closed channel");
+        } catch (ClosedChannelException exp) {
+            // expected
+        }
+        assertFalse(Files.exists(channelPath.resolve(FileEventUtils.pathFromEventNumber(1))));
+        assertEquals(0, FileEventTimeIndex.lastEventNumber(channelPath));
+    }
+
+
+    @Test
+    public void testPublishWakesWaitingReaders() throws Exception {
+
+        final Config cfg = createSegmentedConfig(1024 * 1024);
+        final EventSink es = new FileEventSink(cfg);
+        final Path channelPath = Paths.get(cfg.getString("mewbase.event.sink.file.basedir"), "channel");
+        final FileEventNotifier notifier = FileEventNotifier.forChannel(channelPath);
+
+        final long seen = notifier.version();
+        final CompletableFuture<Long> woken = CompletableFuture.supplyAsync(() -> {
+            try {
+                // much longer than any backoff so only a publish wakes it in time
+                notifier.await(seen, TimeUnit.SECONDS.toNanos(30));
+            } catch (InterruptedException exp) {
+                throw new RuntimeException(exp);
+            }
+            return notifier.version();
+        });
+        es.publishSync("channel", new BsonObject().put("key", "value"));
+        assertTrue(woken.get(5, TimeUnit.SECONDS) > seen);
+        es.close();
+    }
+
+
+    private Config createSegmentedConfig(final long segmentSize) {
+        final Map<String, Object> segmented = new HashMap<>();
+        segmented.put("mewbase.event.sink.file.segmented", true);
+        segmented.put("mewbase.event.sink.file.segment.size", segmentSize);
+        segmented.put("mewbase.event.sink.file.segment.index.interval", 4);
+        segmented.put("mewbase.event.source.file.segmented", true);
+        return ConfigFactory.parseMap(segmented).withFallback(createConfig());
+    }
 
 }
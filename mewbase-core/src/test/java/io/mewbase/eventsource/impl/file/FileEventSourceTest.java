@@ -0,0 +1,344 @@
+package io.mewbase.eventsource.impl.file;
+
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+import io.mewbase.MewbaseTestBase;
+
+import io.mewbase.bson.BsonObject;
+import io.mewbase.eventsource.BatchEventHandler;
+import io.mewbase.eventsource.Event;
+import io.mewbase.eventsource.EventSink;
+import io.mewbase.eventsource.EventSource;
+import io.mewbase.eventsource.Subscription;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static junit.framework.TestCase.assertTrue;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+
+public class FileEventSourceTest extends MewbaseTestBase {
+
+
+    @Test
+    public void testSubscriptionsShareChannelReader() throws Exception {
+
+        final Config cfg = createConfig();
+        final EventSink sink = new FileEventSink(cfg);
+        final EventSource source = new FileEventSource(cfg);
+
+        final int events = 40;
+        final int mid = events / 2;
+
+        // a live subscription that tails the channel from the start
+        final List<Event> tailed = new CopyOnWriteArrayList<>();
+        final CountDownLatch tailLatch = new CountDownLatch(events);
+        final Subscription tail = source.subscribeAll("channel", event -> {
+            tailed.add(event);
+            tailLatch.countDown();
+        }).get(SUBSCRIPTION_SETUP_MAX_TIMEOUT, TimeUnit.SECONDS);
+
+        IntStream.range(0, mid).forEach( i -> sink.publishSync("channel", new BsonObject().put("evt", i)) );
+        waitFor(tailed, mid);
+
+        // subscriptions that start behind the shared reader catch up before joining it
+        final List<Event> replayed = new CopyOnWriteArrayList<>();
+        final CountDownLatch replayLatch = new CountDownLatch(events);
+        final Subscription replay = source.subscribeAll("channel", event -> {
+            replayed.add(event);
+            replayLatch.countDown();
+        }).get(SUBSCRIPTION_SETUP_MAX_TIMEOUT, TimeUnit.SECONDS);
+
+        final List<Event> later = new CopyOnWriteArrayList<>();
+        final CountDownLatch laterLatch = new CountDownLatch(events - 30);
+        final Subscription fromEvent = source.subscribeFromEventNumber("channel", 30L, event -> {
+            later.add(event);
+            laterLatch.countDown();
+        }).get(SUBSCRIPTION_SETUP_MAX_TIMEOUT, TimeUnit.SECONDS);
+
+        IntStream.range(mid, events).forEach( i -> sink.publishSync("channel", new BsonObject().put("evt", i)) );
+
+        assertTrue(tailLatch.await(10, TimeUnit.SECONDS));
+        assertTrue(replayLatch.await(10, TimeUnit.SECONDS));
+        assertTrue(laterLatch.await(10, TimeUnit.SECONDS));
+        assertInOrder(tailed, 0, events);
+        assertInOrder(replayed, 0, events);
+        assertInOrder(later, 30, events);
+
+        tail.close();
+        replay.close();
+        fromEvent.close();
+        source.close();
+        sink.close();
+    }
+
+
+    @Test
+    public void testSubscribeAfterAllSubscriptionsClosed() throws Exception {
+
+        final Config cfg = createConfig();
+        final EventSink sink = new FileEventSink(cfg);
+        final EventSource source = new FileEventSource(cfg);
+
+        final List<Event> first = new CopyOnWriteArrayList<>();
+        final Subscription subs = source.subscribeAll("channel", first::add)
+                .get(SUBSCRIPTION_SETUP_MAX_TIMEOUT, TimeUnit.SECONDS);
+        sink.publishSync("channel", new BsonObject().put("evt", 0));
+        waitFor(first, 1);
+        subs.close();
+
+        // the channel's reader stopped with the last subscription so a new one is started
+        sink.publishSync("channel", new BsonObject().put("evt", 1));
+        final List<Event> second = new CopyOnWriteArrayList<>();
+        final Subscription again = source.subscribeAll("channel", second::add)
+                .get(SUBSCRIPTION_SETUP_MAX_TIMEOUT, TimeUnit.SECONDS);
+        waitFor(second, 2);
+        assertInOrder(second, 0, 2);
+        again.close();
+        source.close();
+        sink.close();
+    }
+
+
+    @Test
+    public void testBatchHandlerReceivesEventsInOrder() throws Exception {
+        for (String bufferType : new String[] { "blocking", "ring" }) {
+
+            final Config cfg = ConfigFactory.parseString(
+                    "mewbase.event.dispatcher { buffer.type = " + bufferType + ", buffer.size = 8, batch.size = 5 }")
+                    .withFallback(createConfig());
+            final EventSink sink = new FileEventSink(cfg);
+            final EventSource source = new FileEventSource(cfg);
+
+            final int events = 100;
+            IntStream.range(0, events).forEach( i -> sink.publishSync("channel", new BsonObject().put("evt", i)) );
+
+            final List<Event> received = new CopyOnWriteArrayList<>();
+            final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+            final BatchEventHandler handler = batch -> {
+                batchSizes.add(batch.size());
+                received.addAll(batch);
+            };
+            final Subscription subs = source.subscribeAll("channel", handler)
+                    .get(SUBSCRIPTION_SETUP_MAX_TIMEOUT, TimeUnit.SECONDS);
+
+            waitFor(received, events);
+            assertInOrder(received, 0, events);
+            assertTrue(batchSizes.stream().allMatch(size -> size > 0 && size <= 5));
+            subs.close();
+            source.close();
+            sink.close();
+        }
+    }
+
+
+    @Test
+    public void testSubscriptionsDecodeSharedEventsIndependently() throws Exception {
+
+        final Config cfg = createConfig();
+        final EventSink sink = new FileEventSink(cfg);
+        final EventSource source = new FileEventSource(cfg);
+
+        // both subscriptions tail the channel so they are handed the events read by the same reader
+        final List<Event> first = new CopyOnWriteArrayList<>();
+        final List<Event> second = new CopyOnWriteArrayList<>();
+        final List<String> firstNames = new CopyOnWriteArrayList<>();
+        final List<String> secondNames = new CopyOnWriteArrayList<>();
+        final Subscription firstSubs = source.subscribeAll("channel", event -> {
+            firstNames.add(event.getBson().getBsonObject("nested").getString("name"));
+            first.add(event);
+        }).get(SUBSCRIPTION_SETUP_MAX_TIMEOUT, TimeUnit.SECONDS);
+        final Subscription secondSubs = source.subscribeAll("channel", event -> {
+            secondNames.add(event.getBson().getBsonObject("nested").getString("name"));
+            second.add(event);
+        }).get(SUBSCRIPTION_SETUP_MAX_TIMEOUT, TimeUnit.SECONDS);
+
+        final int events = 200;
+        IntStream.range(0, events).forEach( i -> sink.publishSync("channel",
+                new BsonObject().put("evt", i).put("nested", new BsonObject().put("name", "name-" + i))) );
+
+        waitFor(first, events);
+        waitFor(second, events);
+        assertInOrder(first, 0, events);
+        assertInOrder(second, 0, events);
+        for (int i = 0; i < events; i++) {
+            assertEquals("name-" + i, firstNames.get(i));
+            assertEquals("name-" + i, secondNames.get(i));
+            assertNotSame(first.get(i), second.get(i));
+        }
+        firstSubs.close();
+        secondSubs.close();
+        source.close();
+        sink.close();
+    }
+
+
+    @Test
+    public void testFailedHandlerClosesItsSubscription() throws Exception {
+
+        final Config cfg = createConfig();
+        final EventSink sink = new FileEventSink(cfg);
+        final EventSource source = new FileEventSource(cfg);
+
+        final List<Event> failing = new CopyOnWriteArrayList<>();
+        final Subscription failingSubs = source.subscribeAll("channel", event -> {
+            failing.add(event);
+            if (event.getEventNumber() == 2) throw new IllegalStateException("Handler failed");
+        }).get(SUBSCRIPTION_SETUP_MAX_TIMEOUT, TimeUnit.SECONDS);
+        final List<Event> healthy = new CopyOnWriteArrayList<>();
+        final Subscription healthySubs = source.subscribeAll("channel", healthy::add)
+                .get(SUBSCRIPTION_SETUP_MAX_TIMEOUT, TimeUnit.SECONDS);
+
+        final int events = 20;
+        IntStream.range(0, events).forEach( i -> sink.publishSync("channel", new BsonObject().put("evt", i)) );
+
+        // the failed subscription is handed nothing after the event it failed on, the others carry on
+        waitFor(healthy, events);
+        assertInOrder(healthy, 0, events);
+        waitFor(failing, 3);
+        assertInOrder(failing, 0, 3);
+
+        failingSubs.close();
+        healthySubs.close();
+        source.close();
+        sink.close();
+    }
+
+
+    @Test
+    public void testFailedChannelReaderStopsMultiplexer() throws Exception {
+
+        final Config cfg = createConfig();
+        final Path channelPath = Paths.get(cfg.getString("mewbase.event.source.file.basedir"), "channel");
+        final CompletableFuture<FileEventMultiplexer> stopped = new CompletableFuture<>();
+        final FileEventMultiplexer multiplexer = new FileEventMultiplexer(channelPath, () -> new FileEventReader() {
+            @Override
+            public FileEvent read(long eventNumber) throws Exception {
+                throw new IOException("Unreadable channel");
+            }
+
+            @Override
+            public void close() {
+            }
+        }, stopped::complete);
+
+        final FileEventSubscription subscription =
+                new FileEventSubscription(channelPath, multiplexer, 0, event -> { }, cfg);
+        assertTrue(multiplexer.join(subscription));
+
+        // the failed reader stops the multiplexer so that later subscriptions start a new one
+        assertSame(multiplexer, stopped.get(10, TimeUnit.SECONDS));
+        assertFalse(multiplexer.join(new FileEventSubscription(channelPath, multiplexer, 0, event -> { }, cfg)));
+    }
+
+
+    @Test
+    public void testSlowSubscriptionDoesNotHoldBackOthers() throws Exception {
+
+        final Config cfg = ConfigFactory.parseString("mewbase.event.dispatcher.buffer.size = 4")
+                .withFallback(createConfig());
+        final EventSink sink = new FileEventSink(cfg);
+        final EventSource source = new FileEventSource(cfg);
+
+        final CountDownLatch release = new CountDownLatch(1);
+        final List<Event> slow = new CopyOnWriteArrayList<>();
+        final Subscription slowSubs = source.subscribeAll("channel", event -> {
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException exp) {
+                Thread.currentThread().interrupt();
+            }
+            slow.add(event);
+        }).get(SUBSCRIPTION_SETUP_MAX_TIMEOUT, TimeUnit.SECONDS);
+        final List<Event> fast = new CopyOnWriteArrayList<>();
+        final Subscription fastSubs = source.subscribeAll("channel", fast::add)
+                .get(SUBSCRIPTION_SETUP_MAX_TIMEOUT, TimeUnit.SECONDS);
+
+        // many more events than the slow subscription has room for
+        final int events = 50;
+        IntStream.range(0, events).forEach( i -> sink.publishSync("channel", new BsonObject().put("evt", i)) );
+        waitFor(fast, events);
+        assertTrue(slow.isEmpty());
+
+        release.countDown();
+        waitFor(slow, events);
+        assertInOrder(fast, 0, events);
+        assertInOrder(slow, 0, events);
+
+        slowSubs.close();
+        fastSubs.close();
+        source.close();
+        sink.close();
+    }
+
+
+    @Test
+    public void testHandlerSubscribesToItsOwnChannel() throws Exception {
+
+        final Config cfg = ConfigFactory.parseString("mewbase.event.dispatcher.buffer.size = 2")
+                .withFallback(createConfig());
+        final EventSink sink = new FileEventSink(cfg);
+        final EventSource source = new FileEventSource(cfg);
+
+        final int events = 20;
+        IntStream.range(0, events).forEach( i -> sink.publishSync("channel", new BsonObject().put("evt", i)) );
+
+        // the handler subscribes again whilst the channel's reader is handing it events
+        final List<Event> outer = new CopyOnWriteArrayList<>();
+        final List<Event> inner = new CopyOnWriteArrayList<>();
+        final CompletableFuture<Subscription> innerSubs = new CompletableFuture<>();
+        final Subscription outerSubs = source.subscribeAll("channel", event -> {
+            if (!innerSubs.isDone()) {
+                try {
+                    innerSubs.complete(source.subscribeAll("channel", inner::add)
+                            .get(SUBSCRIPTION_SETUP_MAX_TIMEOUT, TimeUnit.SECONDS));
+                } catch (Exception exp) {
+                    innerSubs.completeExceptionally(exp);
+                }
+            }
+            outer.add(event);
+        }).get(SUBSCRIPTION_SETUP_MAX_TIMEOUT, TimeUnit.SECONDS);
+
+        waitFor(outer, events);
+        waitFor(inner, events);
+        assertInOrder(outer, 0, events);
+        assertInOrder(inner, 0, events);
+
+        innerSubs.get().close();
+        outerSubs.close();
+        source.close();
+        sink.close();
+    }
+
+
+    private static void waitFor(final List<Event> received, final int count) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 10000;
+        while (received.size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(count, received.size());
+    }
+
+    private static void assertInOrder(final List<Event> received, final int from, final int to) {
+        assertEquals(to - from, received.size());
+        for (int i = from; i < to; i++) {
+            final Event event = received.get(i - from);
+            assertEquals(i, (long) event.getEventNumber());
+            assertEquals(i, (int) event.getBson().getInteger("evt"));
+        }
+    }
+
+}
@@ -8,16 +8,21 @@ import io.mewbase.binders.BinderStore;
 
 import io.mewbase.binders.impl.filestore.FileBinder;
 import io.mewbase.binders.impl.filestore.FileBinderStore;
+import io.mewbase.bson.BsonArray;
 import io.mewbase.bson.BsonObject;
+import io.mewbase.bson.BsonValue;
 
 import io.mewbase.eventsource.EventSink;
 import io.mewbase.eventsource.EventSource;
 
+import io.mewbase.metrics.MetricsRegistry;
 import io.mewbase.projection.impl.ProjectionManagerImpl;
 
 
 import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
 import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.After;
 import org.junit.Assert;
@@ -27,8 +32,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
+import java.time.Duration;
 import java.util.UUID;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
@@ -441,6 +448,372 @@ public class ProjectionTest extends MewbaseTestBase {
     }
 
 
+    @Test
+    public void testBatchedProjectionFoldsEvents() throws Exception {
+
+        final String TEST_BINDER = new Object(){}.getClass().getEnclosingMethod().getName();
+        final String COUNT_FIELD = "count";
+        final int BASKETS = 3;
+        final int EVENTS = 300;
+
+        ProjectionManager manager = ProjectionManager.instance(source,store);
+
+        final CountDownLatch latch = new CountDownLatch(EVENTS);
+        final Projection projection = manager.builder()
+                .named(TEST_PROJECTION_NAME)
+                .projecting(TEST_CHANNEL)
+                .onto(TEST_BINDER)
+                .identifiedBy(event -> event.getBson().getString(BASKET_ID_FIELD))
+                .as( (basket, event) -> {
+                    final Integer count = basket.getInteger(COUNT_FIELD);
+                    latch.countDown();
+                    return basket.put(COUNT_FIELD, count == null ? 1 : count + 1);
+                })
+                .batched(64)
+                .create()
+                .get(PROJECTION_SETUP_MAX_TIMEOUT, TimeUnit.SECONDS);
+
+        IntStream.range(0, EVENTS).forEach( i ->
+            sink.publishSync(TEST_CHANNEL, new BsonObject().put(BASKET_ID_FIELD, "Basket" + (i % BASKETS)))
+        );
+
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        Thread.sleep(200);
+
+        // every event has been folded into its basket
+        final Binder binder = store.open(TEST_BINDER);
+        for (int basket = 0; basket < BASKETS; basket++) {
+            assertEquals(new Integer(EVENTS / BASKETS), binder.get("Basket" + basket).get().getInteger(COUNT_FIELD));
+        }
+
+        // and the state holds the last event of the last batch
+        final Binder stateBinder = store.open(ProjectionManagerImpl.PROJ_STATE_BINDER_NAME);
+        final BsonObject state = stateBinder.get(TEST_PROJECTION_NAME).get();
+        assertEquals(new Long(EVENTS - 1), state.getLong(ProjectionManagerImpl.EVENT_NUM_FIELD));
+
+        projection.stop();
+    }
+
+
+    @Test
+    public void testParallelProjectionPreservesOrderPerDocument() throws Exception {
+
+        final String TEST_BINDER = new Object(){}.getClass().getEnclosingMethod().getName();
+        final String SEQ_FIELD = "seq";
+        final String LAST_FIELD = "last";
+        final int BASKETS = 8;
+        final int EVENTS = 400;
+
+        ProjectionManager manager = ProjectionManager.instance(source,store);
+
+        final CountDownLatch latch = new CountDownLatch(EVENTS);
+        final Projection projection = manager.builder()
+                .named(TEST_PROJECTION_NAME)
+                .projecting(TEST_CHANNEL)
+                .onto(TEST_BINDER)
+                .identifiedBy(event -> event.getBson().getString(BASKET_ID_FIELD))
+                .as( (basket, event) -> {
+                    // the events for each basket must arrive in the order they were sent
+                    final int seq = event.getBson().getInteger(SEQ_FIELD);
+                    final Integer last = basket.getInteger(LAST_FIELD);
+                    assertTrue(last == null || last < seq);
+                    latch.countDown();
+                    return basket.put(LAST_FIELD, seq);
+                })
+                .parallel(4)
+                .create()
+                .get(PROJECTION_SETUP_MAX_TIMEOUT, TimeUnit.SECONDS);
+
+        IntStream.range(0, EVENTS).forEach( i ->
+            sink.publishSync(TEST_CHANNEL, new BsonObject()
+                    .put(BASKET_ID_FIELD, "Basket" + (i % BASKETS))
+                    .put(SEQ_FIELD, i))
+        );
+
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        Thread.sleep(200);
+
+        final Binder binder = store.open(TEST_BINDER);
+        for (int basket = 0; basket < BASKETS; basket++) {
+            assertEquals(new Integer(EVENTS - BASKETS + basket), binder.get("Basket" + basket).get().getInteger(LAST_FIELD));
+        }
+
+        // once every event has been projected the low-watermark is the last event
+        final Binder stateBinder = store.open(ProjectionManagerImpl.PROJ_STATE_BINDER_NAME);
+        final BsonObject state = stateBinder.get(TEST_PROJECTION_NAME).get();
+        assertEquals(new Long(EVENTS - 1), state.getLong(ProjectionManagerImpl.EVENT_NUM_FIELD));
+
+        projection.stop();
+    }
+
+
+    @Test
+    public void testProjectionCannotBeBatchedAndParallel() throws Exception {
+        ProjectionManager manager = ProjectionManager.instance(source,store);
+        final CompletableFuture<Projection> projectionFut = manager.builder()
+                .named(TEST_PROJECTION_NAME)
+                .projecting(TEST_CHANNEL)
+                .onto("TestBinder")
+                .identifiedBy(event -> event.getBson().getString(BASKET_ID_FIELD))
+                .as( (basket, event) -> basket)
+                .batched(16)
+                .parallel(2)
+                .create();
+        assertTrue(projectionFut.isCompletedExceptionally());
+    }
+
+
+    @Test
+    public void testCachedProjectionWritesBehind() throws Exception {
+
+        final String TEST_BINDER = new Object(){}.getClass().getEnclosingMethod().getName();
+        final String COUNT_FIELD = "count";
+        final int BASKETS = 5;
+        final int EVENTS = 100;
+
+        ProjectionManager manager = ProjectionManager.instance(source,store);
+
+        final CountDownLatch latch = new CountDownLatch(EVENTS);
+        // too small to hold all of the baskets so that dirty baskets are evicted
+        final Projection projection = manager.builder()
+                .named(TEST_PROJECTION_NAME)
+                .projecting(TEST_CHANNEL)
+                .onto(TEST_BINDER)
+                .identifiedBy(event -> event.getBson().getString(BASKET_ID_FIELD))
+                .as( (basket, event) -> {
+                    final Integer count = basket.getInteger(COUNT_FIELD);
+                    latch.countDown();
+                    return basket.put(COUNT_FIELD, count == null ? 1 : count + 1);
+                })
+                .cached(2, Duration.ofHours(1))
+                .create()
+                .get(PROJECTION_SETUP_MAX_TIMEOUT, TimeUnit.SECONDS);
+
+        IntStream.range(0, EVENTS).forEach( i ->
+            sink.publishSync(TEST_CHANNEL, new BsonObject().put(BASKET_ID_FIELD, "Basket" + (i % BASKETS)))
+        );
+
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        Thread.sleep(200);
+
+        // stopping flushes the documents and then the state
+        projection.stop();
+
+        final Binder binder = store.open(TEST_BINDER);
+        for (int basket = 0; basket < BASKETS; basket++) {
+            assertEquals(new Integer(EVENTS / BASKETS), binder.get("Basket" + basket).get().getInteger(COUNT_FIELD));
+        }
+        final Binder stateBinder = store.open(ProjectionManagerImpl.PROJ_STATE_BINDER_NAME);
+        final BsonObject state = stateBinder.get(TEST_PROJECTION_NAME).get();
+        assertEquals(new Long(EVENTS - 1), state.getLong(ProjectionManagerImpl.EVENT_NUM_FIELD));
+    }
+
+
+    @Test
+    public void testCachedProjectionFlushesPeriodically() throws Exception {
+
+        final String TEST_BINDER = new Object(){}.getClass().getEnclosingMethod().getName();
+        final String TEST_BASKET_ID = "HotBasket";
+
+        ProjectionManager manager = ProjectionManager.instance(source,store);
+
+        final CountDownLatch latch = new CountDownLatch(1);
+        final Projection projection = manager.builder()
+                .named(TEST_PROJECTION_NAME)
+                .projecting(TEST_CHANNEL)
+                .onto(TEST_BINDER)
+                .identifiedBy(event -> event.getBson().getString(BASKET_ID_FIELD))
+                .as( (basket, event) -> {
+                    latch.countDown();
+                    return basket.put("output", 27);
+                })
+                .cached(100, Duration.ofMillis(50))
+                .create()
+                .get(PROJECTION_SETUP_MAX_TIMEOUT, TimeUnit.SECONDS);
+
+        sink.publishSync(TEST_CHANNEL, new BsonObject().put(BASKET_ID_FIELD, TEST_BASKET_ID));
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        Thread.sleep(500);
+
+        // written without the projection stopping
+        final Binder binder = store.open(TEST_BINDER);
+        assertEquals(new Integer(27), binder.get(TEST_BASKET_ID).get().getInteger("output"));
+        final Binder stateBinder = store.open(ProjectionManagerImpl.PROJ_STATE_BINDER_NAME);
+        assertEquals(new Long(0), stateBinder.get(TEST_PROJECTION_NAME).get().getLong(ProjectionManagerImpl.EVENT_NUM_FIELD));
+
+        projection.stop();
+    }
+
+
+    @Test
+    public void testProjectionRestoresFromSnapshot() throws Exception {
+
+        final String TEST_BINDER = new Object(){}.getClass().getEnclosingMethod().getName();
+        final String COUNT_FIELD = "count";
+        final String TEST_BASKET_ID = "TestBasket";
+        final int EVENTS = 20;
+
+        ProjectionManager manager = ProjectionManager.instance(source,store);
+
+        final CountDownLatch latch = new CountDownLatch(EVENTS);
+        final Projection projection = manager.builder()
+                .named(TEST_PROJECTION_NAME)
+                .projecting(TEST_CHANNEL)
+                .onto(TEST_BINDER)
+                .identifiedBy(event -> event.getBson().getString(BASKET_ID_FIELD))
+                .as( (basket, event) -> {
+                    final Integer count = basket.getInteger(COUNT_FIELD);
+                    latch.countDown();
+                    return basket.put(COUNT_FIELD, count == null ? 1 : count + 1);
+                })
+                .snapshotEvery(Duration.ZERO)
+                .create()
+                .get(PROJECTION_SETUP_MAX_TIMEOUT, TimeUnit.SECONDS);
+
+        IntStream.range(0, EVENTS).forEach( i ->
+            sink.publishSync(TEST_CHANNEL, new BsonObject().put(BASKET_ID_FIELD, TEST_BASKET_ID))
+        );
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        Thread.sleep(200);
+        projection.stop();
+
+        // the snapshots are kept in internal binders which are not listed with the others
+        assertTrue(store.binderNames().noneMatch(name -> name.startsWith(BinderStore.internalBinderPrefix)));
+        assertTrue(store.binderNames().noneMatch(name -> name.contains("proj_snapshot")));
+
+        // lose the state and the documents of the projection
+        final Binder binder = store.open(TEST_BINDER);
+        binder.delete(TEST_BASKET_ID).get();
+        binder.put("NotInTheSnapshot", new BsonObject()).get();
+        store.open(ProjectionManagerImpl.PROJ_STATE_BINDER_NAME).delete(TEST_PROJECTION_NAME).get();
+
+        // the restarted projection restores the snapshot and then only sees the new events
+        final CountDownLatch tailLatch = new CountDownLatch(1);
+        final AtomicInteger replayed = new AtomicInteger();
+        final Projection restarted = ProjectionManager.instance(source,store).builder()
+                .named(TEST_PROJECTION_NAME)
+                .projecting(TEST_CHANNEL)
+                .onto(TEST_BINDER)
+                .identifiedBy(event -> event.getBson().getString(BASKET_ID_FIELD))
+                .as( (basket, event) -> {
+                    replayed.incrementAndGet();
+                    tailLatch.countDown();
+                    return basket.put(COUNT_FIELD, basket.getInteger(COUNT_FIELD) + 1);
+                })
+                .create()
+                .get(PROJECTION_SETUP_MAX_TIMEOUT, TimeUnit.SECONDS);
+
+        assertNull(binder.get("NotInTheSnapshot").get());
+        sink.publishSync(TEST_CHANNEL, new BsonObject().put(BASKET_ID_FIELD, TEST_BASKET_ID));
+        assertTrue(tailLatch.await(5, TimeUnit.SECONDS));
+        Thread.sleep(200);
+
+        assertEquals(1, replayed.get());
+        assertEquals(new Integer(EVENTS + 1), binder.get(TEST_BASKET_ID).get().getInteger(COUNT_FIELD));
+        restarted.stop();
+    }
+
+
+    @Test
+    public void testProjectionMetrics() throws Exception {
+
+        MetricsRegistry.ensureRegistry();
+
+        final String TEST_BINDER = new Object(){}.getClass().getEnclosingMethod().getName();
+        final String PROJ_NAME = "MeteredProjection";
+        final int EVENTS = 10;
+
+        ProjectionManager manager = ProjectionManager.instance(source,store);
+        final CountDownLatch latch = new CountDownLatch(EVENTS);
+        final Projection projection = manager.builder()
+                .named(PROJ_NAME)
+                .projecting(TEST_CHANNEL)
+                .onto(TEST_BINDER)
+                .identifiedBy(event -> event.getBson().getString(BASKET_ID_FIELD))
+                .as( (basket, event) -> {
+                    latch.countDown();
+                    return event.getBson();
+                })
+                .create()
+                .get(PROJECTION_SETUP_MAX_TIMEOUT, TimeUnit.SECONDS);
+
+        IntStream.range(0, EVENTS).forEach( i ->
+                sink.publishSync(TEST_CHANNEL, new BsonObject().put(BASKET_ID_FIELD, "Basket" + i))
+        );
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        Thread.sleep(200);
+
+        Stream.of("get", "project", "put", "checkpoint").forEach( phase -> {
+            final Timer timer = Metrics.globalRegistry.find("mewbase.projection.phase")
+                    .tags("name", PROJ_NAME, "phase", phase)
+                    .timer();
+            assertNotNull(timer);
+            assertEquals(EVENTS, timer.count());
+        });
+
+        // all caught up
+        final Gauge lag = Metrics.globalRegistry.find("mewbase.projection.lag").tag("name", PROJ_NAME).gauge();
+        assertNotNull(lag);
+        assertEquals(0.0, lag.value(), 0.0);
+        assertNotNull(Metrics.globalRegistry.find("mewbase.projection.throughput").tag("name", PROJ_NAME).gauge());
+
+        // and published through the registry document
+        final BsonArray meters = MetricsRegistry.allMetricsAsDocument().getBsonArray("meters");
+        assertTrue(meters.stream()
+                .map( m -> ((BsonValue.BsonObjectBsonValue)m).getValue().getString("name"))
+                .anyMatch("mewbase.projection.lag"::equals));
+
+        projection.stop();
+    }
+
+
+    @Test
+    public void testProjectionLagWhileBehind() throws Exception {
+
+        MetricsRegistry.ensureRegistry();
+
+        final String TEST_BINDER = new Object(){}.getClass().getEnclosingMethod().getName();
+        final String PROJ_NAME = "LaggingProjection";
+        final int EVENTS = 50;
+
+        ProjectionManager manager = ProjectionManager.instance(source,store);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch latch = new CountDownLatch(EVENTS);
+        final Projection projection = manager.builder()
+                .named(PROJ_NAME)
+                .projecting(TEST_CHANNEL)
+                .onto(TEST_BINDER)
+                .identifiedBy(event -> event.getBson().getString(BASKET_ID_FIELD))
+                .as( (basket, event) -> {
+                    try {
+                        release.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException exp) {
+                        Thread.currentThread().interrupt();
+                    }
+                    latch.countDown();
+                    return event.getBson();
+                })
+                .create()
+                .get(PROJECTION_SETUP_MAX_TIMEOUT, TimeUnit.SECONDS);
+
+        IntStream.range(0, EVENTS).forEach( i ->
+                sink.publishSync(TEST_CHANNEL, new BsonObject().put(BASKET_ID_FIELD, "Basket" + i))
+        );
+
+        // the projection is held on its first event so none of the events have been projected
+        final Gauge lag = Metrics.globalRegistry.find("mewbase.projection.lag").tag("name", PROJ_NAME).gauge();
+        assertNotNull(lag);
+        assertEquals(EVENTS, lag.value(), 0.0);
+
+        release.countDown();
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        Thread.sleep(200);
+        assertEquals(0.0, lag.value(), 0.0);
+
+        projection.stop();
+    }
+
+
     private Projection createProjection(ProjectionBuilder builder, String testBinder, String binderIdKey, String projName) {
 
         CompletableFuture<Projection> projectionFut = builder
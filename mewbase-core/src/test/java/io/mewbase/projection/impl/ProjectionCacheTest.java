@@ -0,0 +1,46 @@
+package io.mewbase.projection.impl;
+
+import io.mewbase.MewbaseTestBase;
+import io.mewbase.binders.Binder;
+import io.mewbase.binders.BinderStore;
+import io.mewbase.bson.BsonObject;
+
+import org.junit.Test;
+
+import java.time.Duration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+
+public class ProjectionCacheTest extends MewbaseTestBase {
+
+    @Test
+    public void testProjectionChangesACopyOfTheCachedDocument() throws Exception {
+        final BinderStore store = BinderStore.instance(createConfig());
+        final Binder docBinder = store.open("docs");
+        final Binder stateBinder = store.open("state");
+        docBinder.put("basket", new BsonObject().put("items", 1)).get();
+
+        final ProjectionCache cache = new ProjectionCache("proj", docBinder, stateBinder, "eventNum", 10,
+                Duration.ofHours(1), ProjectionMetrics.forProjection("proj"));
+
+        final BsonObject projected = cache.get("basket").put("items", 2);
+        cache.put("basket", projected, 0);
+
+        // a projection that fails part way through an event leaves the cached document as it was
+        cache.get("basket").put("items", 3).put("broken", true);
+        final BsonObject cached = cache.get("basket");
+        assertEquals(2, (int) cached.getInteger("items"));
+        assertFalse(cached.containsKey("broken"));
+
+        // and only the document that was put is written
+        cache.close();
+        final BsonObject stored = docBinder.get("basket").get();
+        assertEquals(2, (int) stored.getInteger("items"));
+        assertFalse(stored.containsKey("broken"));
+        assertEquals(0L, (long) stateBinder.get("proj").get().getLong("eventNum"));
+        store.close();
+    }
+
+}
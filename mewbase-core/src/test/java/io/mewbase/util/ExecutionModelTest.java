@@ -0,0 +1,55 @@
+package io.mewbase.util;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static junit.framework.TestCase.assertTrue;
+import static org.junit.Assert.assertEquals;
+
+
+public class ExecutionModelTest {
+
+    @Test
+    public void testSerialExecutorRunsTasksInOrder() throws Exception {
+        final SerialExecutor serial = ExecutionModel.instance().serial();
+        final int tasks = 1000;
+        final List<Integer> ran = new CopyOnWriteArrayList<>();
+        final AtomicInteger running = new AtomicInteger();
+        final CountDownLatch latch = new CountDownLatch(tasks);
+        for (int i = 0; i < tasks; i++) {
+            final int task = i;
+            serial.execute(() -> {
+                // never more than one task at a time
+                assertEquals(1, running.incrementAndGet());
+                ran.add(task);
+                running.decrementAndGet();
+                latch.countDown();
+            });
+        }
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        for (int i = 0; i < tasks; i++) {
+            assertEquals(i, (int) ran.get(i));
+        }
+    }
+
+    @Test
+    public void testSerialExecutorsShareThreads() throws Exception {
+        // many more serial executors than there are threads in the pool
+        final int executors = 500;
+        final CountDownLatch latch = new CountDownLatch(executors);
+        for (int i = 0; i < executors; i++) {
+            ExecutionModel.instance().serial().execute(latch::countDown);
+        }
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        final long ioThreads = Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.getName().startsWith("mewbase-io-"))
+                .count();
+        assertTrue(ioThreads < executors);
+    }
+
+}